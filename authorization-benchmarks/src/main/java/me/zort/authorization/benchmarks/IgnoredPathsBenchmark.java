@@ -0,0 +1,63 @@
+package me.zort.authorization.benchmarks;
+
+import me.zort.authorization.spring.JWTDenyUnauthorizedFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route matching of {@link JWTDenyUnauthorizedFilter} against ignored path tables
+ * of realistic sizes, for a request matching one of them and a request matching none.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IgnoredPathsBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int paths;
+
+    private JWTDenyUnauthorizedFilter filter;
+    private MockHttpServletRequest ignoredRequest;
+    private MockHttpServletRequest deniedRequest;
+    private MockHttpServletResponse response;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setup() {
+        List<String> ignoredPaths = new ArrayList<>();
+        for (int i = 0; i < paths; i++) {
+            ignoredPaths.add(i % 2 == 0 ? "/public/module" + i + "/**" : "/public/module" + i + "/*/info");
+        }
+        filter = new JWTDenyUnauthorizedFilter(ignoredPaths);
+        ignoredRequest = request("/public/module" + (paths / 2) + "/docs/index");
+        deniedRequest = request("/api/module" + (paths / 2) + "/resource");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public void ignored() throws ServletException, IOException {
+        filter.doFilter(ignoredRequest, response, chain);
+    }
+
+    @Benchmark
+    public void denied() throws ServletException, IOException {
+        filter.doFilter(deniedRequest, response, chain);
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return request;
+    }
+}
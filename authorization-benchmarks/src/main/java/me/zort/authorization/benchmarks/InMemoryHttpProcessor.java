@@ -0,0 +1,48 @@
+package me.zort.authorization.benchmarks;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Processor answering from canned responses without any I/O,
+ * so benchmarks using it measure only the client side.
+ */
+final class InMemoryHttpProcessor extends HttpProcessor {
+
+    private final Map<String, String> responses = new HashMap<>();
+
+    InMemoryHttpProcessor respond(String relativeUrl, byte[] response) {
+        // Kept decoded, so charset decoding doesn't show up in the client's allocations.
+        responses.put(relativeUrl, new String(response, StandardCharsets.UTF_8));
+        return this;
+    }
+
+    @Override
+    public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException {
+        return perform(relativeUrl, method, headers, (byte[]) null, reader -> JsonParser.parseReader(reader).getAsJsonObject());
+    }
+
+    @Override
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        String response = responses.get(relativeUrl);
+        if (response == null) {
+            throw new BadStatusException(404);
+        }
+        try {
+            return reader.read(new JsonReader(new StringReader(response)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package me.zort.authorization.benchmarks;
+
+import com.google.gson.JsonObject;
+import com.squareup.okhttp.OkHttpClient;
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.AuthorizationStrategy;
+import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.okhttp.OkHttpProcessor;
+import me.zort.authorization.lib.strategy.AuthorizationStrategyV1;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of {@link OkHttpProcessor} to a local stub server, covering
+ * request building, the connection pool and response decoding.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OkHttpProcessorBenchmark {
+
+    @Param({"10", "1000"})
+    public int permissions;
+
+    private StubServer server;
+    private OkHttpProcessor processor;
+    private AuthorizationStrategyV1 strategy;
+    private AuthorizationStrategy.Token token;
+    private Map<String, String> headers;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new StubServer()
+                .respond("/v1/user/details", Responses.userDetails(permissions))
+                .respond("/v1/user/checknode", Responses.NODE_STATE)
+                .start();
+        processor = new OkHttpProcessor(new OkHttpClient());
+        new AuthorizationClient(server.url(), processor);
+        strategy = new AuthorizationStrategyV1();
+        token = new AuthorizationStrategy.Token("token", null, Long.MAX_VALUE);
+        headers = Map.of("Authorization", "Bearer token");
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public JsonObject performTree() {
+        return processor.perform("/v1/user/details", "GET", headers, null);
+    }
+
+    @Benchmark
+    public UserDetails fetchUserDetails() {
+        return strategy.fetchUserDetails(processor, token);
+    }
+
+    @Benchmark
+    public boolean fetchNodeState() {
+        return strategy.fetchNodeState(processor, token, "service.module1.action1");
+    }
+}
@@ -0,0 +1,70 @@
+package me.zort.authorization.benchmarks;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.AuthorizationStrategy;
+import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.strategy.AuthorizationStrategyV1;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of decoding user details responses: streaming decoder of
+ * {@link AuthorizationStrategyV1} against parsing the response into a
+ * {@link JsonObject} and mapping it, the way responses were decoded before.
+ * Compare {@code gc.alloc.rate.norm} of both benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseDecodingBenchmark {
+
+    @Param({"10", "100", "1000", "5000"})
+    public int permissions;
+
+    private String response;
+    private InMemoryHttpProcessor processor;
+    private AuthorizationStrategyV1 strategy;
+    private AuthorizationStrategy.Token token;
+
+    @Setup
+    public void setup() {
+        byte[] details = Responses.userDetails(permissions);
+        response = new String(details, StandardCharsets.UTF_8);
+        processor = new InMemoryHttpProcessor()
+                .respond("/v1/user/details?includePermissions=true", details);
+        new AuthorizationClient("http://localhost", processor);
+        strategy = new AuthorizationStrategyV1();
+        token = new AuthorizationStrategy.Token("token", null, Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public UserDetails streaming() {
+        return strategy.fetchUserDetails(processor, token);
+    }
+
+    @Benchmark
+    public UserDetails tree() {
+        JsonObject object = JsonParser.parseString(response).getAsJsonObject();
+        return new UserDetails(
+                object.get("permissionsIncluded").getAsBoolean(),
+                object.get("permissions").getAsJsonArray().asList().stream()
+                        .map(JsonElement::getAsString)
+                        .toList(),
+                nullableString(object.get("uuid")),
+                nullableString(object.get("primaryGroup")),
+                nullableString(object.get("username"))
+        );
+    }
+
+    private static String nullableString(JsonElement element) {
+        return element.isJsonNull() ? null : element.getAsString();
+    }
+}
@@ -0,0 +1,38 @@
+package me.zort.authorization.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Canned authorization server responses used by the benchmarks.
+ */
+final class Responses {
+
+    static final byte[] TOKEN = bytes("{\"token\":\"eyJhbGciOiJSUzI1NiJ9.e30.c2ln\",\"refreshToken\":\"refresh\",\"expiresAt\":4102444800000}");
+    static final byte[] NODE_STATE = bytes("{\"state\":true}");
+
+    private Responses() {
+    }
+
+    /**
+     * Builds user details with provided number of permissions, spread across
+     * a few modules the way real permission sets are.
+     *
+     * @param permissions Number of permissions
+     * @return Encoded user details
+     */
+    static byte[] userDetails(int permissions) {
+        StringBuilder builder = new StringBuilder("{\"permissionsIncluded\":true,\"permissions\":[");
+        for (int i = 0; i < permissions; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("\"service.module").append(i % 50).append(".action").append(i).append('"');
+        }
+        builder.append("],\"uuid\":\"5f0c7d1e-8a5b-4c2e-9d3f-1b2a3c4d5e6f\",\"primaryGroup\":\"default\",\"username\":\"benchmark\"}");
+        return bytes(builder.toString());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,62 @@
+package me.zort.authorization.benchmarks;
+
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.AuthorizationStrategy;
+import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.strategy.AuthorizationStrategyV1;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request building and response mapping of {@link AuthorizationStrategyV1},
+ * isolated from the network by {@link InMemoryHttpProcessor}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StrategyMappingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int permissions;
+
+    private InMemoryHttpProcessor processor;
+    private AuthorizationStrategyV1 strategy;
+    private AuthorizationStrategy.Token token;
+
+    @Setup
+    public void setup() {
+        byte[] details = Responses.userDetails(permissions);
+        processor = new InMemoryHttpProcessor()
+                .respond("/v1/auth/refresh", Responses.TOKEN)
+                .respond("/v1/user/checknode", Responses.NODE_STATE)
+                .respond("/v1/user/details", details)
+                .respond("/v1/user/details?includePermissions=true", details);
+        new AuthorizationClient("http://localhost", processor);
+        strategy = new AuthorizationStrategyV1();
+        token = new AuthorizationStrategy.Token("token", "refresh", Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public UserDetails fetchUserDetails() {
+        return strategy.fetchUserDetails(processor, token);
+    }
+
+    @Benchmark
+    public UserDetails verifyWithDetails() {
+        return strategy.verifyWithDetails(processor, token.token());
+    }
+
+    @Benchmark
+    public boolean fetchNodeState() {
+        return strategy.fetchNodeState(processor, token, "service.module1.action1");
+    }
+
+    @Benchmark
+    public AuthorizationStrategy.Token refresh() {
+        return strategy.refresh(processor, "refresh");
+    }
+}
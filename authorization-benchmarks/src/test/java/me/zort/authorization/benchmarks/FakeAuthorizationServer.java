@@ -0,0 +1,350 @@
+package me.zort.authorization.benchmarks;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for ketchup-authorization-server implementing the
+ * {@code /v1/auth/*} and {@code /v1/user/*} endpoints used by
+ * {@link me.zort.authorization.lib.strategy.AuthorizationStrategyV1}.
+ * <p>
+ * Every user has the same permissions. Issued tokens are JWT shaped with an
+ * {@code exp} claim, but not signed. Each request can be delayed by a fixed
+ * latency plus random jitter, and fail with {@code 503} at a configured rate,
+ * to observe the client under a slow or unreliable server.
+ * <pre>
+ *     FakeAuthorizationServer server = new FakeAuthorizationServer.Builder()
+ *             .latency(Duration.ofMillis(20))
+ *             .jitter(Duration.ofMillis(10))
+ *             .errorRate(0.01)
+ *             .build()
+ *             .start();
+ * </pre>
+ */
+final class FakeAuthorizationServer implements AutoCloseable {
+
+    static {
+        // Without TCP_NODELAY, delayed ACKs on loopback dominate every round trip.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    private static final String TOKEN_HEADER = BASE64_URL.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double errorRate;
+    private final Duration tokenTtl;
+    private final Set<String> permissions;
+    private final byte[] details;
+    private final byte[] detailsWithPermissions;
+    private final String etag;
+    // Issued token mapped to username, refresh token mapped to issued token.
+    private final Map<String, String> tokens = new ConcurrentHashMap<>();
+    private final Map<String, String> refreshTokens = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private FakeAuthorizationServer(Builder builder) throws IOException {
+        this.latencyNanos = builder.latency.toNanos();
+        this.jitterNanos = builder.jitter.toNanos();
+        this.errorRate = builder.errorRate;
+        this.tokenTtl = builder.tokenTtl;
+        this.permissions = Set.copyOf(builder.permissions);
+        this.details = userDetails(null);
+        this.detailsWithPermissions = userDetails(builder.permissions);
+        this.etag = "\"" + Integer.toHexString(builder.permissions.hashCode()) + "\"";
+        this.executor = Executors.newFixedThreadPool(builder.threads);
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/v1/auth/authenticate", exchange -> handle(exchange, this::authenticate));
+        server.createContext("/v1/auth/refresh", exchange -> handle(exchange, this::refresh));
+        server.createContext("/v1/user/details", exchange -> handle(exchange, this::details));
+        server.createContext("/v1/user/checknode", exchange -> handle(exchange, this::checkNode));
+    }
+
+    FakeAuthorizationServer start() {
+        server.start();
+        return this;
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Issues a valid token for provided user without a request,
+     * the same way {@code /v1/auth/authenticate} does.
+     *
+     * @param username Username
+     * @return Issued token
+     */
+    String issueToken(String username) {
+        long exp = (System.currentTimeMillis() + tokenTtl.toMillis()) / 1000;
+        String payload = "{\"sub\":\"" + username + "\",\"exp\":" + exp + ",\"jti\":\"" + UUID.randomUUID() + "\"}";
+        String token = TOKEN_HEADER + "." + BASE64_URL.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".c2ln";
+        tokens.put(token, username);
+        return token;
+    }
+
+    /**
+     * Revokes provided token, requests using it are rejected from now on.
+     *
+     * @param token Token to revoke
+     */
+    void revoke(String token) {
+        tokens.remove(token);
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    long injectedFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            JsonObject body = readBody(exchange);
+            delay();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            handler.handle(exchange, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void authenticate(HttpExchange exchange, @Nullable JsonObject body) throws IOException {
+        String username = body != null && body.has("username") ? body.get("username").getAsString() : "trusted";
+        reply(exchange, tokenResponse(issueToken(username)));
+    }
+
+    private void refresh(HttpExchange exchange, @Nullable JsonObject body) throws IOException {
+        String refreshToken = body != null && body.has("refreshToken") ? body.get("refreshToken").getAsString() : null;
+        String token = refreshToken != null ? refreshTokens.remove(refreshToken) : null;
+        String username = token != null ? tokens.remove(token) : null;
+        if (username == null) {
+            exchange.sendResponseHeaders(401, -1);
+            return;
+        }
+        reply(exchange, tokenResponse(issueToken(username)));
+    }
+
+    private void details(HttpExchange exchange, @Nullable JsonObject body) throws IOException {
+        if (authorizedUser(exchange) == null) {
+            exchange.sendResponseHeaders(401, -1);
+            return;
+        }
+        String query = exchange.getRequestURI().getQuery();
+        if (query == null || !query.contains("includePermissions=true")) {
+            reply(exchange, details);
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        reply(exchange, detailsWithPermissions);
+    }
+
+    private void checkNode(HttpExchange exchange, @Nullable JsonObject body) throws IOException {
+        if (authorizedUser(exchange) == null) {
+            exchange.sendResponseHeaders(401, -1);
+            return;
+        }
+        boolean state = body != null && body.has("node") && permissions.contains(body.get("node").getAsString());
+        reply(exchange, ("{\"state\":" + state + "}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private @Nullable String authorizedUser(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        return tokens.get(authorization.substring(7));
+    }
+
+    private byte[] tokenResponse(String token) {
+        String refreshToken = UUID.randomUUID().toString();
+        refreshTokens.put(refreshToken, token);
+        long expiresAt = System.currentTimeMillis() + tokenTtl.toMillis();
+        return ("{\"token\":\"" + token + "\",\"refreshToken\":\"" + refreshToken + "\",\"expiresAt\":" + expiresAt + "}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void delay() throws InterruptedException {
+        long nanos = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos + 1) : 0);
+        if (nanos > 0) {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    }
+
+    private static @Nullable JsonObject readBody(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream request = exchange.getRequestBody()) {
+            body = request.readAllBytes();
+        }
+        if (body.length == 0) {
+            return null;
+        }
+        return JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    private static void reply(HttpExchange exchange, byte[] response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(response);
+        }
+    }
+
+    private static byte[] userDetails(@Nullable List<String> permissions) {
+        StringBuilder builder = new StringBuilder("{\"permissionsIncluded\":").append(permissions != null)
+                .append(",\"permissions\":[");
+        if (permissions != null) {
+            for (int i = 0; i < permissions.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append('"').append(permissions.get(i)).append('"');
+            }
+        }
+        builder.append("],\"uuid\":\"5f0c7d1e-8a5b-4c2e-9d3f-1b2a3c4d5e6f\",\"primaryGroup\":\"default\",\"username\":\"fake\"}");
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, @Nullable JsonObject body) throws IOException;
+    }
+
+    static final class Builder {
+        private Duration latency = Duration.ZERO;
+        private Duration jitter = Duration.ZERO;
+        private double errorRate = 0;
+        private Duration tokenTtl = Duration.ofHours(1);
+        private List<String> permissions = List.of();
+        private int threads = 64;
+
+        /**
+         * Sets the delay added to every request, defaults to none.
+         *
+         * @param latency Fixed delay
+         * @return This builder
+         */
+        @NotNull Builder latency(@NotNull Duration latency) {
+            this.latency = requireNonNegative(latency, "Latency");
+            return this;
+        }
+
+        /**
+         * Sets the maximum random delay added on top of the latency, defaults to none.
+         *
+         * @param jitter Maximum random delay
+         * @return This builder
+         */
+        @NotNull Builder jitter(@NotNull Duration jitter) {
+            this.jitter = requireNonNegative(jitter, "Jitter");
+            return this;
+        }
+
+        /**
+         * Sets the fraction of requests failing with {@code 503}, defaults to none.
+         *
+         * @param errorRate Fraction between 0 and 1
+         * @return This builder
+         */
+        @NotNull Builder errorRate(double errorRate) {
+            if (errorRate < 0 || errorRate > 1) {
+                throw new IllegalArgumentException("Error rate must be between 0 and 1");
+            }
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        @NotNull Builder tokenTtl(@NotNull Duration tokenTtl) {
+            Objects.requireNonNull(tokenTtl, "Token TTL cannot be null");
+            if (tokenTtl.isNegative() || tokenTtl.isZero()) {
+                throw new IllegalArgumentException("Token TTL must be positive");
+            }
+            this.tokenTtl = tokenTtl;
+            return this;
+        }
+
+        /**
+         * Sets permissions granted to every user.
+         *
+         * @param permissions Permission nodes
+         * @return This builder
+         */
+        @NotNull Builder permissions(@NotNull List<String> permissions) {
+            Objects.requireNonNull(permissions, "Permissions cannot be null");
+            this.permissions = List.copyOf(permissions);
+            return this;
+        }
+
+        /**
+         * Sets the number of threads handling requests, which bounds how many
+         * delayed requests are served at once. Defaults to 64.
+         *
+         * @param threads Number of threads
+         * @return This builder
+         */
+        @NotNull Builder threads(int threads) {
+            if (threads <= 0) {
+                throw new IllegalArgumentException("Threads must be positive");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        @NotNull FakeAuthorizationServer build() throws IOException {
+            return new FakeAuthorizationServer(this);
+        }
+
+        private static Duration requireNonNegative(Duration duration, String name) {
+            Objects.requireNonNull(duration, name + " cannot be null");
+            if (duration.isNegative()) {
+                throw new IllegalArgumentException(name + " cannot be negative");
+            }
+            return duration;
+        }
+    }
+}
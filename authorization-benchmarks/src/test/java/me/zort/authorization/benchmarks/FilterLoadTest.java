@@ -0,0 +1,267 @@
+package me.zort.authorization.benchmarks;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.okhttp.OkHttpProcessor;
+import me.zort.authorization.spring.JWTAuthorizationFilter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test passing bearer requests through {@link JWTAuthorizationFilter}
+ * from concurrent threads, with the client talking to {@link FakeAuthorizationServer}
+ * over HTTP. Unlike the JMH benchmarks, the server is slow and unreliable on demand,
+ * so the numbers show how the filter behaves when the server degrades.
+ * <p>
+ * Runs once per thread count and prints throughput and p50/p99/max latency of a single
+ * filter pass. Options are system properties, forwarded by the
+ * {@code loadTest} task from project properties of the same name:
+ * <pre>
+ *     gradle :authorization-benchmarks:loadTest -PloadTest.threads=1,16,64 -PloadTest.latency=20ms -PloadTest.errorRate=0.01
+ * </pre>
+ * <ul>
+ *     <li>{@code loadTest.threads} - comma separated thread counts, defaults to 1,4,16,64</li>
+ *     <li>{@code loadTest.duration}, {@code loadTest.warmup} - measured and warmup time per thread count, 10s and 3s</li>
+ *     <li>{@code loadTest.latency}, {@code loadTest.jitter} - delay of each server response, 5ms and none</li>
+ *     <li>{@code loadTest.errorRate} - fraction of server responses failing with 503, none</li>
+ *     <li>{@code loadTest.tokens} - number of distinct tokens sent, 1000</li>
+ *     <li>{@code loadTest.cacheTtl} - TTL of the client's verification cache, disabled by default</li>
+ *     <li>{@code loadTest.mappings}, {@code loadTest.permissions} - size of the permission mapping and of the user's permissions, 10 and 200</li>
+ *     <li>{@code loadTest.lazyDetails} - whether the filter fetches details lazily, false</li>
+ *     <li>{@code loadTest.localPermissions} - whether the client evaluates permissions locally, false</li>
+ * </ul>
+ */
+class FilterLoadTest {
+
+    private static final Duration DURATION = duration("duration", "10s");
+    private static final Duration WARMUP = duration("warmup", "3s");
+    private static final Duration CACHE_TTL = duration("cacheTtl", "0s");
+    private static final double ERROR_RATE = Double.parseDouble(option("errorRate", "0"));
+    private static final int TOKENS = Integer.parseInt(option("tokens", "1000"));
+    private static final int MAPPINGS = Integer.parseInt(option("mappings", "10"));
+    private static final int PERMISSIONS = Integer.parseInt(option("permissions", "200"));
+    private static final boolean LAZY_DETAILS = Boolean.parseBoolean(option("lazyDetails", "false"));
+    private static final boolean LOCAL_PERMISSIONS = Boolean.parseBoolean(option("localPermissions", "false"));
+
+    private static FakeAuthorizationServer server;
+    private static String[] tokens;
+    private static JWTAuthorizationFilter.PermissionMapping mapping;
+
+    @BeforeAll
+    static void startServer() throws Exception {
+        List<String> permissions = new ArrayList<>();
+        for (int i = 0; i < PERMISSIONS; i++) {
+            permissions.add("service.module" + (i % 50) + ".action" + i);
+        }
+        int maxThreads = threadCounts().max().orElse(1);
+        server = new FakeAuthorizationServer.Builder()
+                .latency(duration("latency", "5ms"))
+                .jitter(duration("jitter", "0s"))
+                .errorRate(ERROR_RATE)
+                .permissions(permissions)
+                .threads(Math.max(64, maxThreads))
+                .build()
+                .start();
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = server.issueToken("user" + i);
+        }
+        mapping = new JWTAuthorizationFilter.PermissionMapping();
+        for (int i = 0; i < MAPPINGS; i++) {
+            mapping.path("/api/module" + i + "/**", permissions.isEmpty() ? "service.none" : permissions.get(i % permissions.size()));
+        }
+    }
+
+    @AfterAll
+    static void stopServer() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    static IntStream threadCounts() {
+        return Arrays.stream(option("threads", "1,4,16,64").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim()));
+    }
+
+    @ParameterizedTest(name = "{0} threads")
+    @MethodSource("threadCounts")
+    void filterUnderLoad(int threads) throws Exception {
+        AuthorizationClient.Builder clientBuilder = new AuthorizationClient.Builder()
+                .url(server.url())
+                .processor(new OkHttpProcessor(pooledClient(threads)))
+                .localPermissionEvaluation(LOCAL_PERMISSIONS);
+        if (!CACHE_TTL.isZero()) {
+            clientBuilder.verificationCache(TOKENS, CACHE_TTL);
+        }
+        try (AuthorizationClient client = clientBuilder.build()) {
+            JWTAuthorizationFilter filter = new JWTAuthorizationFilter(client, mapping, LAZY_DETAILS);
+            run(filter, threads, WARMUP);
+            long serverRequests = server.requests();
+            Result result = run(filter, threads, DURATION);
+
+            Map<String, String> report = new LinkedHashMap<>();
+            report.put("requests", Integer.toString(result.requests()));
+            report.put("req/s", String.format("%.0f", result.requests() / (DURATION.toNanos() / 1e9)));
+            report.put("p50 ms", String.format("%.2f", result.percentile(0.5)));
+            report.put("p99 ms", String.format("%.2f", result.percentile(0.99)));
+            report.put("max ms", String.format("%.2f", result.percentile(1)));
+            report.put("denied", Integer.toString(result.denied()));
+            report.put("errors", Integer.toString(result.errors()));
+            report.put("server requests", Long.toString(server.requests() - serverRequests));
+            System.out.println(threads + " threads: " + report);
+
+            assertTrue(result.requests() > 0, "No request completed");
+            if (ERROR_RATE == 0) {
+                // Every user holds every mapped permission, so only server failures deny.
+                assertEquals(0, result.denied(), "Denied requests");
+                assertEquals(0, result.errors(), "Failed requests");
+            }
+        }
+    }
+
+    private static Result run(JWTAuthorizationFilter filter, int threads, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        Worker[] workers = new Worker[threads];
+        Thread[] running = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(filter, tokens, MAPPINGS, deadline);
+            running[i] = new Thread(workers[i], "load-generator-" + i);
+            running[i].start();
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+        return Result.merge(workers);
+    }
+
+    private static OkHttpClient pooledClient(int threads) {
+        OkHttpClient client = new OkHttpClient();
+        // Default pool keeps only 5 idle connections, more threads would keep reconnecting.
+        client.setConnectionPool(new ConnectionPool(threads, TimeUnit.MINUTES.toMillis(5)));
+        return client;
+    }
+
+    private static String option(String name, String defaultValue) {
+        return System.getProperty("loadTest." + name, defaultValue);
+    }
+
+    private static Duration duration(String name, String defaultValue) {
+        String value = option(name, defaultValue);
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+
+    private static final class Worker implements Runnable {
+        private final JWTAuthorizationFilter filter;
+        private final String[] tokens;
+        private final int mappings;
+        private final long deadline;
+        private long[] latencies = new long[1 << 14];
+        private int requests;
+        private int denied;
+        private int errors;
+
+        private Worker(JWTAuthorizationFilter filter, String[] tokens, int mappings, long deadline) {
+            this.filter = filter;
+            this.tokens = tokens;
+            this.mappings = mappings;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            boolean[] authenticated = new boolean[1];
+            FilterChain chain = (request, ignored) -> authenticated[0] = SecurityContextHolder.getContext().getAuthentication() != null;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start;
+            while ((start = System.nanoTime()) < deadline) {
+                String path = "/api/module" + random.nextInt(Math.max(1, mappings)) + "/resource";
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+                // Mappings are matched against the servlet path, which the mock leaves empty.
+                request.setServletPath(path);
+                request.addHeader("Authorization", "Bearer " + tokens[random.nextInt(tokens.length)]);
+                authenticated[0] = false;
+                try {
+                    filter.doFilter(request, response, chain);
+                    if (!authenticated[0]) {
+                        denied++;
+                    }
+                } catch (Exception e) {
+                    // I/O failures propagate out of the filter, server errors leave the request unauthenticated.
+                    errors++;
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                record(System.nanoTime() - start);
+            }
+        }
+
+        private void record(long latency) {
+            if (requests == latencies.length) {
+                latencies = Arrays.copyOf(latencies, requests * 2);
+            }
+            latencies[requests++] = latency;
+        }
+    }
+
+    private record Result(long[] latencies, int denied, int errors) {
+
+        static Result merge(Worker[] workers) {
+            int requests = 0;
+            int denied = 0;
+            int errors = 0;
+            for (Worker worker : workers) {
+                requests += worker.requests;
+                denied += worker.denied;
+                errors += worker.errors;
+            }
+            long[] latencies = new long[requests];
+            int offset = 0;
+            for (Worker worker : workers) {
+                System.arraycopy(worker.latencies, 0, latencies, offset, worker.requests);
+                offset += worker.requests;
+            }
+            Arrays.sort(latencies);
+            return new Result(latencies, denied, errors);
+        }
+
+        int requests() {
+            return latencies.length;
+        }
+
+        double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -3,14 +3,33 @@ package me.zort.authorization.lib;
 import com.google.gson.JsonObject;
 import lombok.Getter;
 import lombok.Setter;
+import me.zort.authorization.lib.cache.DecayingBloomFilter;
+import me.zort.authorization.lib.cache.ExpiringCache;
+import me.zort.authorization.lib.cache.SecondLevelCache;
+import me.zort.authorization.lib.invalidation.InvalidationEvent;
+import me.zort.authorization.lib.invalidation.InvalidationStream;
+import me.zort.authorization.lib.jwt.JsonWebToken;
+import me.zort.authorization.lib.metrics.AuthorizationMetrics;
+import me.zort.authorization.lib.metrics.InstrumentedHttpProcessor;
+import me.zort.authorization.lib.model.TokenVerification;
 import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.model.VersionedUserDetails;
 import me.zort.authorization.lib.okhttp.OkHttpProcessor;
+import me.zort.authorization.lib.permission.PermissionIndex;
 import me.zort.authorization.lib.strategy.AuthorizationStrategyV1;
+import me.zort.authorization.lib.strategy.CoalescingAuthorizationStrategy;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Objects;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Authorization client that can be used to authorize users and fetch their details
@@ -25,11 +44,34 @@ import java.util.function.Supplier;
  *
  * @author ZorTik
  */
-public final class AuthorizationClient {
+public final class AuthorizationClient implements AutoCloseable {
+
+    private static final long REFRESH_RETRY_MILLIS = 5000;
+    private static final long SHARED_REFRESH_AHEAD_MILLIS = 30_000;
+    private static final double REJECTION_CACHE_FALSE_POSITIVE_PROBABILITY = 1e-6;
+    // Shared by all clients, refreshes themselves are non-blocking, so one thread is enough.
+    private static final ScheduledExecutorService REFRESH_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ketchup-session-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final HttpProcessor processor;
+    @Getter
+    private final AuthorizationMetrics metrics;
+    private final @Nullable ExpiringCache<String, Verification> verificationCache;
+    private final @Nullable SecondLevelCache secondLevelCache;
+    private final @Nullable DecayingBloomFilter rejectionCache;
+    private final boolean rejectMalformedTokens;
+    private final boolean localPermissionEvaluation;
+    private final long refreshAheadMillis;
+    private final AtomicReference<CompletableFuture<Session>> sharedTrustedSession = new AtomicReference<>();
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+    // Incremented by every invalidation, verifications fetched across one are not cached.
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+    private final @Nullable InvalidationStream.Subscription invalidationSubscription;
     @Setter
-    private AuthorizationStrategy strategy = new AuthorizationStrategyV1();
+    private AuthorizationStrategy strategy;
 
     /**
      * Initializes a new authorization client with the specified base URL and HTTP processor.
@@ -41,11 +83,37 @@ public final class AuthorizationClient {
             @NotNull String baseUrl,
             @NotNull HttpProcessor httpProcessor
     ) {
-        Objects.requireNonNull(baseUrl, "Base URL cannot be null");
-        Objects.requireNonNull(httpProcessor, "HTTP processor cannot be null");
+        this(new Builder().url(baseUrl).processor(httpProcessor));
+    }
 
-        this.processor = httpProcessor;
-        httpProcessor.setBaseUrl(baseUrl);
+    private AuthorizationClient(@NotNull Builder builder) {
+        Objects.requireNonNull(builder.baseUrl, "Base URL cannot be null");
+        Objects.requireNonNull(builder.processor, "HTTP processor cannot be null");
+        Objects.requireNonNull(builder.strategy, "Strategy cannot be null");
+        Objects.requireNonNull(builder.metrics, "Metrics cannot be null");
+
+        this.metrics = builder.metrics;
+        // Without metrics, requests are not wrapped at all.
+        this.processor = metrics != AuthorizationMetrics.NOOP
+                ? new InstrumentedHttpProcessor(builder.processor, metrics)
+                : builder.processor;
+        this.strategy = builder.coalesceRequests
+                ? new CoalescingAuthorizationStrategy(builder.strategy)
+                : builder.strategy;
+        this.localPermissionEvaluation = builder.localPermissionEvaluation;
+        this.refreshAheadMillis = builder.refreshAhead != null ? builder.refreshAhead.toMillis() : -1;
+        this.verificationCache = builder.verificationCacheSize > 0
+                ? new ExpiringCache<>(builder.verificationCacheSize, builder.verificationCacheTtl, builder.staleWhileRevalidate)
+                : null;
+        this.secondLevelCache = builder.secondLevelCache;
+        this.rejectionCache = builder.rejectionCacheSize > 0
+                ? new DecayingBloomFilter(builder.rejectionCacheSize, REJECTION_CACHE_FALSE_POSITIVE_PROBABILITY, builder.rejectionCacheTtl)
+                : null;
+        this.rejectMalformedTokens = builder.rejectMalformedTokens;
+        this.processor.setBaseUrl(builder.baseUrl);
+        this.invalidationSubscription = builder.invalidationStream != null
+                ? builder.invalidationStream.subscribe(builder.baseUrl, this::invalidate)
+                : null;
     }
 
     /**
@@ -59,6 +127,67 @@ public final class AuthorizationClient {
         return authorize((JsonObject) null).trusted();
     }
 
+    /**
+     * Returns the trusted (administrator) session shared by all callers of this client.
+     * The session authenticates once, on the first call, and then keeps its token fresh
+     * in the background, so subsequent calls return immediately. If the session ever
+     * loses its authorization, next call authenticates again.
+     * <p>
+     * The shared session must not be closed, calling {@link Session#close()} has no effect.
+     *
+     * @return Shared trusted session
+     * @throws UnauthorizedException When the trusted authorization failed
+     */
+    public @NotNull AuthorizationClient.Session trustedSession() throws UnauthorizedException {
+        try {
+            return trustedSessionAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UnauthorizedException cause) {
+                throw cause;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #trustedSession()}.
+     *
+     * @return Future of the shared trusted session
+     */
+    public @NotNull CompletableFuture<AuthorizationClient.Session> trustedSessionAsync() {
+        while (true) {
+            CompletableFuture<Session> current = sharedTrustedSession.get();
+            if (current != null && !current.isCompletedExceptionally()
+                    && (!current.isDone() || current.join().authorized())) {
+                return current.copy();
+            }
+            CompletableFuture<Session> created = new CompletableFuture<>();
+            if (!sharedTrustedSession.compareAndSet(current, created)) {
+                continue;
+            }
+            authorizeAsync().whenComplete((session, error) -> {
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else if (!session.authorized()) {
+                    created.completeExceptionally(new UnauthorizedException("Trusted authorization failed"));
+                } else {
+                    created.complete(session.shared());
+                }
+            });
+            return created.copy();
+        }
+    }
+
+    /**
+     * Returns a valid bearer token of the shared trusted session, see {@link #trustedSession()}.
+     *
+     * @return Trusted bearer token
+     * @throws UnauthorizedException When the trusted authorization failed
+     */
+    public @NotNull String trustedToken() throws UnauthorizedException {
+        return trustedSession().getValidToken();
+    }
+
     /**
      * Initializes new authorization session using username-password credentials.
      *
@@ -67,14 +196,7 @@ public final class AuthorizationClient {
      * @return New authorization session
      */
     public @NotNull AuthorizationClient.Session authorize(@NotNull String username, @NotNull String password) {
-        Objects.requireNonNull(username, "Username cannot be null");
-        Objects.requireNonNull(password, "Password cannot be null");
-
-        JsonObject principal = new JsonObject();
-        principal.addProperty("username", username);
-        principal.addProperty("password", password);
-
-        return authorize(principal);
+        return authorize(credentials(username, password));
     }
 
     /**
@@ -84,7 +206,7 @@ public final class AuthorizationClient {
      * @return New authorization session
      */
     public @NotNull AuthorizationClient.Session authorize(@Nullable JsonObject principal) {
-        return new Session(strategy, principal, strategy.authorize(processor, principal));
+        return new Session(strategy, principal, strategy.authorize(processor, principal), null, null);
     }
 
     /**
@@ -116,17 +238,527 @@ public final class AuthorizationClient {
 
         // Token wrapper without expiration that can't be refreshed
         AuthorizationStrategy.Token tokenInstance = new AuthorizationStrategy.Token(token, refreshToken, -1);
-        if (strategy.verifyToken(processor, token)) {
-            return new Session(strategy, null, tokenInstance);
+        if (isVerified(token)) {
+            return new Session(strategy, null, tokenInstance, null, null);
+        } else {
+            return new Session(strategy, null, null, null, null);
+        }
+    }
+
+    /**
+     * Verifies the specified token and fetches details of its owner using
+     * a single request where the strategy supports it. Fetched details are
+     * available using {@link Session#getDetails()}.
+     * If the token is not valid, session will be initialized without a token
+     * instance, so {@link Session#authorized()} will return false.
+     *
+     * @param token Token to verify
+     * @return New authorization session
+     */
+    public @NotNull AuthorizationClient.Session verifyWithDetails(@NotNull String token) {
+        Objects.requireNonNull(token, "Token cannot be null");
+
+        Verification verification = fetchVerifiedDetails(token);
+        if (verification != null) {
+            return new Session(strategy, null, new AuthorizationStrategy.Token(token, null, -1),
+                    verification.details(), verification.permissions());
+        } else {
+            return new Session(strategy, null, null, null, null);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #authorize()}.
+     *
+     * @return Future of the new authorization session
+     */
+    public @NotNull CompletableFuture<AuthorizationClient.Session> authorizeAsync() {
+        return authorizeAsync((JsonObject) null).thenApply(Session::trusted);
+    }
+
+    /**
+     * Asynchronous variant of {@link #authorize(String, String)}.
+     *
+     * @param username Username
+     * @param password Password
+     * @return Future of the new authorization session
+     */
+    public @NotNull CompletableFuture<AuthorizationClient.Session> authorizeAsync(@NotNull String username, @NotNull String password) {
+        return authorizeAsync(credentials(username, password));
+    }
+
+    /**
+     * Asynchronous variant of {@link #authorize(JsonObject)}.
+     *
+     * @param principal Principal to use
+     * @return Future of the new authorization session
+     */
+    public @NotNull CompletableFuture<AuthorizationClient.Session> authorizeAsync(@Nullable JsonObject principal) {
+        return strategy.authorizeAsync(processor, principal)
+                .thenApply(token -> new Session(strategy, principal, token, null, null));
+    }
+
+    /**
+     * Asynchronous variant of {@link #verify(String)}.
+     *
+     * @param token Token to verify
+     * @return Future of the new authorization session
+     */
+    public @NotNull CompletableFuture<AuthorizationClient.Session> verifyAsync(@NotNull String token) {
+        return verifyAsync(token, null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #verify(String, String)}.
+     *
+     * @param token Token to verify
+     * @param refreshToken Refresh token to use
+     * @return Future of the new authorization session
+     */
+    public @NotNull CompletableFuture<AuthorizationClient.Session> verifyAsync(@NotNull String token, @Nullable String refreshToken) {
+        Objects.requireNonNull(token, "Token cannot be null");
+
+        AuthorizationStrategy.Token tokenInstance = new AuthorizationStrategy.Token(token, refreshToken, -1);
+        return isVerifiedAsync(token).thenApply(verified -> verified
+                ? new Session(strategy, null, tokenInstance, null, null)
+                : new Session(strategy, null, null, null, null));
+    }
+
+    /**
+     * Asynchronous variant of {@link #verifyWithDetails(String)}.
+     *
+     * @param token Token to verify
+     * @return Future of the new authorization session
+     */
+    public @NotNull CompletableFuture<AuthorizationClient.Session> verifyWithDetailsAsync(@NotNull String token) {
+        Objects.requireNonNull(token, "Token cannot be null");
+
+        return fetchVerifiedDetailsAsync(token).thenApply(verification -> verification != null
+                ? new Session(strategy, null, new AuthorizationStrategy.Token(token, null, -1),
+                        verification.details(), verification.permissions())
+                : new Session(strategy, null, null, null, null));
+    }
+
+    /**
+     * Verifies all provided tokens, for example stored tokens re-validated by a batch job.
+     * <p>
+     * Tokens are read from provided stream lazily in batches of {@code batchSize}, and at most
+     * {@code maxInFlightBatches} batches are being verified at once. Tokens found in verification
+     * caches are answered locally, the rest of each batch is verified by the strategy together,
+     * in a single request where the strategy supports it (see
+     * {@link AuthorizationStrategy#verifyTokensAsync(HttpProcessor, Collection)}).
+     * Concurrency is bounded by the processor as well, OkHttp sends at most 5 requests
+     * to a host at once unless its dispatcher is configured otherwise.
+     * <p>
+     * Results are returned in order of provided tokens. Further tokens are only read as the
+     * results are consumed, so a slow consumer slows down reading of the source as well.
+     * A batch that can't be verified, for example because the server is unavailable, doesn't
+     * end the stream, its tokens are reported by {@link TokenVerification#failed()} instead.
+     * Closing the returned stream closes provided stream.
+     *
+     * @param tokens Tokens to verify
+     * @param batchSize Maximum number of tokens verified together
+     * @param maxInFlightBatches Maximum number of batches being verified at once
+     * @return Lazy stream of the results
+     */
+    public @NotNull Stream<TokenVerification> verifyAll(@NotNull Stream<String> tokens, int batchSize, int maxInFlightBatches) {
+        return bulkVerification(tokens, batchSize, maxInFlightBatches, false);
+    }
+
+    /**
+     * Verifies all provided tokens and fetches details of their owners the same way
+     * as {@link #verifyAll(Stream, int, int)}. Details are available using
+     * {@link TokenVerification#details()}.
+     *
+     * @param tokens Tokens to verify
+     * @param batchSize Maximum number of tokens verified together
+     * @param maxInFlightBatches Maximum number of batches being verified at once
+     * @return Lazy stream of the results
+     */
+    public @NotNull Stream<TokenVerification> verifyAllWithDetails(@NotNull Stream<String> tokens, int batchSize, int maxInFlightBatches) {
+        return bulkVerification(tokens, batchSize, maxInFlightBatches, true);
+    }
+
+    private Stream<TokenVerification> bulkVerification(Stream<String> tokens, int batchSize, int maxInFlightBatches, boolean withDetails) {
+        Objects.requireNonNull(tokens, "Tokens cannot be null");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        if (maxInFlightBatches <= 0) {
+            throw new IllegalArgumentException("Maximum in-flight batches must be positive");
+        }
+        BulkVerification verification = new BulkVerification(tokens.iterator(), batchSize, maxInFlightBatches, withDetails);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(verification, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(tokens::close);
+    }
+
+    private static @NotNull JsonObject credentials(@NotNull String username, @NotNull String password) {
+        Objects.requireNonNull(username, "Username cannot be null");
+        Objects.requireNonNull(password, "Password cannot be null");
+
+        JsonObject principal = new JsonObject();
+        principal.addProperty("username", username);
+        principal.addProperty("password", password);
+        return principal;
+    }
+
+    private boolean isVerified(String token) {
+        if (isMalformed(token)) {
+            return false;
+        }
+        if (cachedVerification(token, false) != null) {
+            return true;
+        }
+        if (isRecentlyRejected(token)) {
+            return false;
+        }
+        long generation = invalidationGeneration.get();
+        boolean verified = strategy.verifyToken(processor, token);
+        if (verified) {
+            cacheVerification(token, verification(null), generation);
         } else {
-            return new Session(strategy, null, null);
+            cacheRejection(token);
+        }
+        return verified;
+    }
+
+    private @Nullable Verification fetchVerifiedDetails(String token) {
+        if (isMalformed(token)) {
+            return null;
+        }
+        Verification cached = cachedVerification(token, true);
+        if (cached != null) {
+            return cached;
+        }
+        if (isRecentlyRejected(token)) {
+            return null;
+        }
+        long generation = invalidationGeneration.get();
+        VersionedUserDetails details = strategy.verifyWithDetails(processor, token, null);
+        if (details == null) {
+            cacheRejection(token);
+            return null;
+        }
+        Verification verification = verification(details.details(), details.etag());
+        cacheVerification(token, verification, generation);
+        return verification;
+    }
+
+    private CompletableFuture<Boolean> isVerifiedAsync(String token) {
+        if (isMalformed(token)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (cachedVerification(token, false) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        if (isRecentlyRejected(token)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        long generation = invalidationGeneration.get();
+        return strategy.verifyTokenAsync(processor, token).thenApply(verified -> {
+            if (verified) {
+                cacheVerification(token, verification(null), generation);
+            } else {
+                cacheRejection(token);
+            }
+            return verified;
+        });
+    }
+
+    private CompletableFuture<@Nullable Verification> fetchVerifiedDetailsAsync(String token) {
+        if (isMalformed(token)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Verification cached = cachedVerification(token, true);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (isRecentlyRejected(token)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long generation = invalidationGeneration.get();
+        return strategy.verifyWithDetailsAsync(processor, token, null).thenApply(details -> {
+            if (details == null) {
+                cacheRejection(token);
+                return null;
+            }
+            Verification verification = verification(details.details(), details.etag());
+            cacheVerification(token, verification, generation);
+            return verification;
+        });
+    }
+
+    private CompletableFuture<List<TokenVerification>> verifyBatch(List<String> tokens, boolean withDetails) {
+        TokenVerification[] results = new TokenVerification[tokens.size()];
+        Set<String> remaining = new LinkedHashSet<>();
+        for (int i = 0; i < results.length; i++) {
+            String token = tokens.get(i);
+            results[i] = localVerification(token, withDetails);
+            if (results[i] == null) {
+                remaining.add(token);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(results));
+        }
+        long generation = invalidationGeneration.get();
+        CompletableFuture<Map<String, TokenVerification>> verified;
+        try {
+            verified = withDetails
+                    ? strategy.verifyTokensWithDetailsAsync(processor, remaining)
+                            .thenApply(details -> cacheDetails(remaining, details, generation))
+                    : strategy.verifyTokensAsync(processor, remaining)
+                            .thenApply(states -> cacheStates(remaining, states, generation));
+        } catch (RuntimeException e) {
+            verified = CompletableFuture.failedFuture(e);
+        }
+        return verified.handle((verifications, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    String token = tokens.get(i);
+                    results[i] = cause != null ? TokenVerification.failed(token, cause) : verifications.get(token);
+                }
+            }
+            return Arrays.asList(results);
+        });
+    }
+
+    private @Nullable TokenVerification localVerification(String token, boolean withDetails) {
+        if (isMalformed(token)) {
+            return TokenVerification.invalid(token);
+        }
+        Verification cached = cachedVerification(token, withDetails);
+        if (cached != null) {
+            return TokenVerification.valid(token, cached.details());
+        }
+        if (isRecentlyRejected(token)) {
+            return TokenVerification.invalid(token);
+        }
+        return null;
+    }
+
+    // Tokens missing in the results are treated as rejected.
+    private Map<String, TokenVerification> cacheStates(Set<String> tokens, Map<String, Boolean> states, long generation) {
+        Map<String, TokenVerification> verifications = new HashMap<>();
+        for (String token : tokens) {
+            verifications.put(token, cacheBatchResult(token, Boolean.TRUE.equals(states.get(token)), null, generation));
+        }
+        return verifications;
+    }
+
+    private Map<String, TokenVerification> cacheDetails(Set<String> tokens, Map<String, @Nullable UserDetails> details, long generation) {
+        Map<String, TokenVerification> verifications = new HashMap<>();
+        for (String token : tokens) {
+            UserDetails userDetails = details.get(token);
+            verifications.put(token, cacheBatchResult(token, userDetails != null, userDetails, generation));
+        }
+        return verifications;
+    }
+
+    private TokenVerification cacheBatchResult(String token, boolean valid, @Nullable UserDetails details, long generation) {
+        if (!valid) {
+            cacheRejection(token);
+            return TokenVerification.invalid(token);
+        }
+        cacheVerification(token, verification(details), generation);
+        return TokenVerification.valid(token, details);
+    }
+
+    private boolean isMalformed(String token) {
+        return rejectMalformedTokens && !JsonWebToken.isWellFormed(token);
+    }
+
+    private boolean isRecentlyRejected(String token) {
+        if (rejectionCache == null) {
+            return false;
+        }
+        boolean hit = rejectionCache.mightContain(token);
+        metrics.cacheAccess(AuthorizationMetrics.REJECTION_CACHE, hit);
+        return hit;
+    }
+
+    private void cacheRejection(String token) {
+        if (rejectionCache != null) {
+            rejectionCache.put(token);
+        }
+    }
+
+    private @Nullable Verification cachedVerification(String token, boolean requireDetails) {
+        if (verificationCache == null) {
+            return secondLevelVerification(token);
+        }
+        ExpiringCache.Entry<Verification> entry = verificationCache.getEntry(token);
+        Verification cached = entry != null ? entry.value() : null;
+        boolean hit = cached != null && (!requireDetails || cached.details() != null);
+        metrics.cacheAccess(AuthorizationMetrics.VERIFICATION_CACHE, hit);
+        if (!hit) {
+            return secondLevelVerification(token);
+        }
+        if (entry.isStale()) {
+            revalidate(token, cached);
+        }
+        return cached;
+    }
+
+    private @Nullable Verification secondLevelVerification(String token) {
+        if (secondLevelCache == null) {
+            return null;
+        }
+        UserDetails details = secondLevelCache.get(token);
+        metrics.cacheAccess(AuthorizationMetrics.SECOND_LEVEL_CACHE, details != null);
+        if (details == null) {
+            return null;
+        }
+        Verification verification = verification(details);
+        if (verificationCache != null) {
+            // Already in the second level, so only promoted to memory.
+            verificationCache.put(token, verification, expiresAt(token));
+        }
+        return verification;
+    }
+
+    private void revalidate(String token, Verification stale) {
+        if (!revalidating.add(token)) {
+            return;
+        }
+        long generation = invalidationGeneration.get();
+        CompletableFuture<@Nullable Verification> revalidation;
+        try {
+            revalidation = stale.details() != null
+                    ? strategy.verifyWithDetailsAsync(processor, token, stale.versionedDetails())
+                            .thenApply(details -> revalidated(stale, details))
+                    : strategy.verifyTokenAsync(processor, token)
+                            .thenApply(verified -> verified ? verification(null) : null);
+        } catch (RuntimeException e) {
+            revalidating.remove(token);
+            return;
+        }
+        revalidation.whenComplete((verification, error) -> {
+            revalidating.remove(token);
+            if (error != null) {
+                // Server is unavailable, the stale entry keeps being served until it expires.
+                return;
+            }
+            if (verification != null) {
+                cacheVerification(token, verification, generation);
+            } else {
+                invalidateVerification(token);
+                cacheRejection(token);
+            }
+        });
+    }
+
+    private @Nullable Verification revalidated(Verification stale, @Nullable VersionedUserDetails details) {
+        if (details == null) {
+            return null;
+        }
+        // Unchanged details keep their compiled permission index.
+        return details.details() == stale.details() ? stale : verification(details.details(), details.etag());
+    }
+
+    private @NotNull Verification verification(@Nullable UserDetails details) {
+        return verification(details, null);
+    }
+
+    private @NotNull Verification verification(@Nullable UserDetails details, @Nullable String etag) {
+        // Index is compiled once per fetched details and shared by all sessions using them.
+        PermissionIndex permissions = localPermissionEvaluation && details != null && details.permissionsIncluded()
+                ? PermissionIndex.compile(details.permissions())
+                : null;
+        return new Verification(details, permissions, etag);
+    }
+
+    private void cacheVerification(String token, Verification verification, long generation) {
+        if (verificationCache == null && secondLevelCache == null) {
+            return;
+        }
+        if (invalidationGeneration.get() != generation) {
+            // Invalidated while being fetched, the result may predate the invalidation.
+            return;
+        }
+        // Never trust a cached verification for longer than the token itself is valid.
+        long expiresAt = expiresAt(token);
+        if (verificationCache != null) {
+            verificationCache.put(token, verification, expiresAt);
+        }
+        // The second level holds details only, bare verifications are cheap enough to repeat.
+        if (secondLevelCache != null && verification.details() != null) {
+            secondLevelCache.put(token, verification.details(), expiresAt);
+        }
+        if (invalidationGeneration.get() != generation) {
+            // Invalidated between the check and the put, which may have missed this entry.
+            invalidateVerification(token);
+        }
+    }
+
+    private void invalidateVerification(String token) {
+        if (verificationCache != null) {
+            verificationCache.invalidate(token);
+        }
+        if (secondLevelCache != null) {
+            secondLevelCache.invalidate(token);
+        }
+    }
+
+    private static long expiresAt(String token) {
+        JsonWebToken decoded = JsonWebToken.decode(token);
+        return decoded != null ? decoded.expiresAt() : -1;
+    }
+
+    /**
+     * Evicts cached verifications affected by provided event. Called by the
+     * {@link Builder#invalidationStream(InvalidationStream) invalidation stream},
+     * but events received through other channels can be applied as well.
+     * <p>
+     * Verifications being fetched while the event is applied are not cached.
+     *
+     * @param event Event to apply
+     */
+    public void invalidate(@NotNull InvalidationEvent event) {
+        Objects.requireNonNull(event, "Event cannot be null");
+
+        invalidationGeneration.incrementAndGet();
+        switch (event.type()) {
+            case TOKENS_REVOKED -> event.values().forEach(token -> {
+                invalidateVerification(token);
+                cacheRejection(token);
+            });
+            case USERS_CHANGED -> {
+                if (verificationCache != null) {
+                    // Bare verifications don't depend on user details, so they stay.
+                    verificationCache.invalidateIf((token, verification) -> verification.details() != null
+                            && event.values().contains(verification.details().uuid()));
+                }
+                if (secondLevelCache != null) {
+                    secondLevelCache.invalidateUsers(event.values());
+                }
+            }
+            case ALL -> {
+                if (verificationCache != null) {
+                    verificationCache.invalidateAll();
+                }
+                if (secondLevelCache != null) {
+                    secondLevelCache.invalidateAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the invalidation stream, if any. Sessions stay usable.
+     */
+    @Override
+    public void close() {
+        if (invalidationSubscription != null) {
+            invalidationSubscription.close();
         }
     }
 
     public @NotNull AuthorizationClient.Session refresh(@NotNull String refreshToken) {
         Objects.requireNonNull(refreshToken, "Refresh token cannot be null");
 
-        Session session = new Session(strategy, null, new AuthorizationStrategy.Token(null, refreshToken, -1));
+        Session session = new Session(strategy, null, new AuthorizationStrategy.Token(null, refreshToken, -1), null, null);
         session.refresh();
         return session;
     }
@@ -134,20 +766,43 @@ public final class AuthorizationClient {
     /**
      * Authorization session wrapper, authorized or non-authorized.
      * Unauthorized session will return false in {@link Session#authorized()}.
+     * <p>
+     * Sessions are thread-safe. Token reads never block and at most one refresh
+     * is in flight at a time, concurrent callers share its outcome. If the client
+     * was built with {@link Builder#refreshAhead(Duration)}, refreshable sessions
+     * refresh themselves in the background before their token expires until
+     * they are {@link #close() closed} or no longer referenced.
      */
-    public final class Session {
+    public final class Session implements AutoCloseable {
         private final AuthorizationStrategy strategy;
         private final JsonObject principal;
         @Getter
-        private AuthorizationStrategy.Token token;
-        private boolean trusted = false;
+        private volatile AuthorizationStrategy.Token token;
+        /**
+         * User details obtained when the session was verified using
+         * {@link AuthorizationClient#verifyWithDetails(String)}, otherwise null.
+         */
+        @Getter
+        private final @Nullable UserDetails details;
+        private final @Nullable PermissionIndex permissions;
+        private final AtomicReference<CompletableFuture<Void>> refreshInFlight = new AtomicReference<>();
+        private volatile boolean trusted = false;
+        private volatile boolean closed = false;
+        private volatile boolean shared = false;
+        private volatile long refreshAheadMillis = AuthorizationClient.this.refreshAheadMillis;
+        private volatile ScheduledFuture<?> scheduledRefresh;
 
         private Session(AuthorizationStrategy strategy,
                         @Nullable JsonObject principal,
-                        @Nullable AuthorizationStrategy.Token token) {
+                        @Nullable AuthorizationStrategy.Token token,
+                        @Nullable UserDetails details,
+                        @Nullable PermissionIndex permissions) {
             this.strategy = strategy;
             this.principal = principal;
             this.token = token;
+            this.details = details;
+            this.permissions = permissions;
+            scheduleRefresh();
         }
 
         /**
@@ -155,22 +810,98 @@ public final class AuthorizationClient {
          * Please note that you can use this method only if you provided either
          * principal or refresh token when initializing this session. Otherwise,
          * this method will throw an exception.
+         * <p>
+         * If another refresh is already in flight, this method waits for it instead.
          */
         public void refresh() {
-            boolean refreshed = false;
+            CompletableFuture<Void> created = new CompletableFuture<>();
+            CompletableFuture<Void> existing = refreshInFlight.compareAndExchange(null, created);
+            if (existing != null) {
+                try {
+                    existing.join();
+                    return;
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+            try {
+                doRefresh();
+                metrics.refreshCompleted(authorized());
+                refreshInFlight.compareAndSet(created, null);
+                scheduleRefresh();
+                created.complete(null);
+            } catch (RuntimeException e) {
+                metrics.refreshCompleted(false);
+                refreshInFlight.compareAndSet(created, null);
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        private void doRefresh() {
+            AuthorizationStrategy.Token token = this.token;
             if (token != null && token.refreshToken() != null) {
                 token = strategy.refresh(processor, token.refreshToken());
-                refreshed = true;
-            }
-            if (token != null && refreshed) {
-                return;
+                this.token = token;
+                if (token != null) {
+                    return;
+                }
             }
             if (principal == null && !trusted) {
                 // There is an option to not specify principal, in that case session was initialized
                 // using token only.
                 throw new RuntimeException("Cannot refresh, session was not initialized with principal or full token");
             }
-            token = strategy.authorize(processor, principal);
+            this.token = strategy.authorize(processor, principal);
+        }
+
+        /**
+         * Asynchronous variant of {@link #refresh()}.
+         *
+         * @return Future completed when the session is refreshed
+         */
+        public @NotNull CompletableFuture<Void> refreshAsync() {
+            CompletableFuture<Void> created = new CompletableFuture<>();
+            CompletableFuture<Void> existing = refreshInFlight.compareAndExchange(null, created);
+            if (existing != null) {
+                return existing.copy();
+            }
+            CompletableFuture<Void> refresh;
+            try {
+                refresh = doRefreshAsync();
+            } catch (RuntimeException e) {
+                refresh = CompletableFuture.failedFuture(e);
+            }
+            refresh.whenComplete((ignored, error) -> {
+                metrics.refreshCompleted(error == null && authorized());
+                refreshInFlight.compareAndSet(created, null);
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    scheduleRefresh();
+                    created.complete(null);
+                }
+            });
+            return created.copy();
+        }
+
+        private CompletableFuture<Void> doRefreshAsync() {
+            AuthorizationStrategy.Token token = this.token;
+            if (token != null && token.refreshToken() != null) {
+                return strategy.refreshAsync(processor, token.refreshToken()).thenCompose(refreshed -> {
+                    this.token = refreshed;
+                    return refreshed != null ? CompletableFuture.completedFuture(null) : reauthorizeAsync();
+                });
+            }
+            return reauthorizeAsync();
+        }
+
+        private CompletableFuture<Void> reauthorizeAsync() {
+            if (principal == null && !trusted) {
+                return CompletableFuture.failedFuture(
+                        new RuntimeException("Cannot refresh, session was not initialized with principal or full token"));
+            }
+            return strategy.authorizeAsync(processor, principal).thenAccept(authorized -> token = authorized);
         }
 
         /**
@@ -187,20 +918,160 @@ public final class AuthorizationClient {
          * Fetches the state of provided permission node.
          * In other words, this method will return true if the user has the permission
          * node, otherwise false.
+         * <p>
+         * If local permission evaluation is enabled and this session holds details with
+         * permissions, the state is evaluated in memory without contacting the server.
          *
          * @param node Permission node to check
          * @return True if the user has the permission node, otherwise false
          * @throws UnauthorizedException When the session is not authorized
          */
         public boolean fetchNodeState(String node) throws UnauthorizedException {
+            if (permissions != null && authorized()) {
+                return permissions.isGranted(node);
+            }
             return Boolean.TRUE.equals(authorizedFetch(() -> strategy.fetchNodeState(processor, token, node)));
         }
 
+        /**
+         * Fetches states of all provided permission nodes at once.
+         * Nodes are evaluated locally when possible (see {@link #fetchNodeState(String)}),
+         * otherwise they are resolved by the strategy in a single step.
+         *
+         * @param nodes Permission nodes to check
+         * @return Node states mapped by node, in iteration order of provided nodes
+         * @throws UnauthorizedException When the session is not authorized
+         */
+        public @NotNull Map<String, Boolean> fetchNodeStates(Collection<String> nodes) throws UnauthorizedException {
+            if (permissions != null && authorized()) {
+                Map<String, Boolean> states = new LinkedHashMap<>();
+                for (String node : nodes) {
+                    states.put(node, permissions.isGranted(node));
+                }
+                return states;
+            }
+            return authorizedFetch(() -> strategy.fetchNodeStates(processor, token, nodes));
+        }
+
+        /**
+         * Asynchronous variant of {@link #fetchUserDetails()}.
+         * The future completes exceptionally with {@link UnauthorizedException}
+         * when the session is not authorized.
+         *
+         * @return Future of the user details
+         */
+        public @NotNull CompletableFuture<UserDetails> fetchUserDetailsAsync() {
+            return authorizedFetchAsync(() -> strategy.fetchUserDetailsAsync(processor, token));
+        }
+
+        /**
+         * Asynchronous variant of {@link #fetchNodeState(String)}.
+         * The future completes exceptionally with {@link UnauthorizedException}
+         * when the session is not authorized.
+         *
+         * @param node Permission node to check
+         * @return Future of the node state
+         */
+        public @NotNull CompletableFuture<Boolean> fetchNodeStateAsync(String node) {
+            if (permissions != null && authorized()) {
+                return CompletableFuture.completedFuture(permissions.isGranted(node));
+            }
+            return authorizedFetchAsync(() -> strategy.fetchNodeStateAsync(processor, token, node));
+        }
+
+        /**
+         * Asynchronous variant of {@link #fetchNodeStates(Collection)}.
+         * The future completes exceptionally with {@link UnauthorizedException}
+         * when the session is not authorized.
+         *
+         * @param nodes Permission nodes to check
+         * @return Future of the node states mapped by node
+         */
+        public @NotNull CompletableFuture<Map<String, Boolean>> fetchNodeStatesAsync(Collection<String> nodes) {
+            if (permissions != null && authorized()) {
+                Map<String, Boolean> states = new LinkedHashMap<>();
+                for (String node : nodes) {
+                    states.put(node, permissions.isGranted(node));
+                }
+                return CompletableFuture.completedFuture(states);
+            }
+            return authorizedFetchAsync(() -> strategy.fetchNodeStatesAsync(processor, token, nodes));
+        }
+
         @NotNull Session trusted() {
             trusted = true;
+            scheduleRefresh();
             return this;
         }
 
+        @NotNull Session shared() {
+            shared = true;
+            if (refreshAheadMillis < 0) {
+                refreshAheadMillis = SHARED_REFRESH_AHEAD_MILLIS;
+            }
+            scheduleRefresh();
+            return this;
+        }
+
+        /**
+         * Stops background refreshing of this session.
+         * The session itself stays usable.
+         */
+        @Override
+        public void close() {
+            if (shared) {
+                return;
+            }
+            closed = true;
+            ScheduledFuture<?> scheduled = scheduledRefresh;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        private void scheduleRefresh() {
+            AuthorizationStrategy.Token token = this.token;
+            if (refreshAheadMillis < 0 || closed || token == null || token.expiresAt() <= 0 || !canRefresh()) {
+                return;
+            }
+            long untilExpiry = token.expiresAt() - System.currentTimeMillis();
+            if (untilExpiry <= 0) {
+                return;
+            }
+            // Tokens living shorter than the refresh window must not end up in a refresh loop.
+            long delay = Math.max(untilExpiry - refreshAheadMillis, Math.min(REFRESH_RETRY_MILLIS, untilExpiry / 2));
+            schedule(delay);
+        }
+
+        private void schedule(long delayMillis) {
+            ScheduledFuture<?> previous = scheduledRefresh;
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            // The scheduler must not keep sessions alive, discarded ones stop refreshing once collected.
+            WeakReference<Session> session = new WeakReference<>(this);
+            scheduledRefresh = REFRESH_SCHEDULER.schedule(() -> {
+                Session current = session.get();
+                if (current != null) {
+                    current.refreshInBackground();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        private void refreshInBackground() {
+            if (closed) {
+                return;
+            }
+            refreshAsync().exceptionally(error -> {
+                // Keep trying while the current token is still usable.
+                AuthorizationStrategy.Token current = this.token;
+                if (!closed && current != null && System.currentTimeMillis() < current.expiresAt()) {
+                    schedule(REFRESH_RETRY_MILLIS);
+                }
+                return null;
+            });
+        }
+
         // There is no nullable result since all unexpected states result in an exception.
         private <T> @NotNull T authorizedFetch(Supplier<@Nullable T> supplier) throws UnauthorizedException {
             if (!authorized()) {
@@ -218,6 +1089,26 @@ public final class AuthorizationClient {
             }
         }
 
+        private <T> @NotNull CompletableFuture<T> authorizedFetchAsync(Supplier<CompletableFuture<@Nullable T>> supplier) {
+            if (!authorized()) {
+                return CompletableFuture.failedFuture(new UnauthorizedException("Not authorized"));
+            }
+            return supplier.get().thenCompose(tResult -> {
+                if (tResult == null && System.currentTimeMillis() >= token.expiresAt()) {
+                    if (!canRefresh()) {
+                        return CompletableFuture.failedFuture(
+                                new UnauthorizedException("Session expired, please obtain another token"));
+                    }
+                    return refreshAsync().thenCompose(ignored -> authorizedFetchAsync(supplier));
+                } else if (tResult == null) {
+                    return CompletableFuture.failedFuture(
+                            new IllegalStateException("Token should be valid, but response was not present"));
+                } else {
+                    return CompletableFuture.completedFuture(tResult);
+                }
+            });
+        }
+
         public String getValidToken() throws UnauthorizedException {
             if (!authorized()) {
                 throw new UnauthorizedException("Not authorized");
@@ -232,13 +1123,18 @@ public final class AuthorizationClient {
         }
 
         private void requireCanRefresh() throws UnauthorizedException {
-            if (principal == null && !trusted && token.refreshToken() == null) {
-                // Principal is null in only case when this result was initialized
-                // with token only, so there is no way to refresh the session.
+            if (!canRefresh()) {
                 throw new UnauthorizedException("Session expired, please obtain another token");
             }
         }
 
+        private boolean canRefresh() {
+            // Principal is null in only case when this result was initialized
+            // with token only, so there is no way to refresh the session.
+            AuthorizationStrategy.Token token = this.token;
+            return principal != null || trusted || (token != null && token.refreshToken() != null);
+        }
+
         /**
          * Returns true if the session is authorized, otherwise false.
          *
@@ -249,6 +1145,66 @@ public final class AuthorizationClient {
         }
     }
 
+    /**
+     * Results of a bulk verification. Keeps a window of batches being verified,
+     * further tokens are read only as results of the oldest batch are consumed.
+     */
+    private final class BulkVerification implements Iterator<TokenVerification> {
+        private final Iterator<String> tokens;
+        private final int batchSize;
+        private final int maxInFlightBatches;
+        private final boolean withDetails;
+        private final Deque<CompletableFuture<List<TokenVerification>>> inFlight = new ArrayDeque<>();
+        private Iterator<TokenVerification> completed = Collections.emptyIterator();
+
+        private BulkVerification(Iterator<String> tokens, int batchSize, int maxInFlightBatches, boolean withDetails) {
+            this.tokens = tokens;
+            this.batchSize = batchSize;
+            this.maxInFlightBatches = maxInFlightBatches;
+            this.withDetails = withDetails;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!completed.hasNext()) {
+                fill();
+                CompletableFuture<List<TokenVerification>> oldest = inFlight.poll();
+                if (oldest == null) {
+                    return false;
+                }
+                // Batches always complete normally, failures are reported per token.
+                completed = oldest.join().iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public TokenVerification next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return completed.next();
+        }
+
+        private void fill() {
+            while (inFlight.size() < maxInFlightBatches && tokens.hasNext()) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (batch.size() < batchSize && tokens.hasNext()) {
+                    batch.add(Objects.requireNonNull(tokens.next(), "Token cannot be null"));
+                }
+                inFlight.add(verifyBatch(batch, withDetails));
+            }
+        }
+    }
+
+    // Details are null when the token was verified without fetching them.
+    private record Verification(@Nullable UserDetails details, @Nullable PermissionIndex permissions, @Nullable String etag) {
+
+        @Nullable VersionedUserDetails versionedDetails() {
+            return details != null ? new VersionedUserDetails(details, etag) : null;
+        }
+    }
+
     public static class UnauthorizedException extends Exception {
         public UnauthorizedException(String message) {
             super(message);
@@ -258,6 +1214,19 @@ public final class AuthorizationClient {
     public static class Builder {
         private String baseUrl = null;
         private HttpProcessor processor = new OkHttpProcessor();
+        private AuthorizationStrategy strategy = new AuthorizationStrategyV1();
+        private int verificationCacheSize = 0;
+        private Duration verificationCacheTtl = Duration.ZERO;
+        private boolean localPermissionEvaluation = false;
+        private boolean coalesceRequests = false;
+        private Duration refreshAhead = null;
+        private Duration staleWhileRevalidate = Duration.ZERO;
+        private AuthorizationMetrics metrics = AuthorizationMetrics.NOOP;
+        private SecondLevelCache secondLevelCache = null;
+        private InvalidationStream invalidationStream = null;
+        private int rejectionCacheSize = 0;
+        private Duration rejectionCacheTtl = Duration.ZERO;
+        private boolean rejectMalformedTokens = false;
 
         public @NotNull Builder url(String baseUrl) {
             this.baseUrl = baseUrl;
@@ -269,10 +1238,203 @@ public final class AuthorizationClient {
             return this;
         }
 
+        /**
+         * Sets the strategy used to communicate with the authorization server,
+         * for example {@link me.zort.authorization.lib.strategy.OfflineAuthorizationStrategy}
+         * to verify tokens locally.
+         *
+         * @param strategy Strategy to use
+         * @return This builder
+         */
+        public @NotNull Builder strategy(AuthorizationStrategy strategy) {
+            this.strategy = strategy;
+            return this;
+        }
+
+        /**
+         * Enables caching of successful token verifications made by
+         * {@link AuthorizationClient#verify(String)}, so repeated verifications
+         * of the same token don't reach the authorization server.
+         * <p>
+         * Each verification is remembered for at most provided TTL and never
+         * longer than the token's own expiration ({@code exp} claim).
+         *
+         * @param maximumSize Maximum number of remembered tokens
+         * @param ttl Maximum time a verification is remembered
+         * @return This builder
+         */
+        public @NotNull Builder verificationCache(int maximumSize, @NotNull Duration ttl) {
+            Objects.requireNonNull(ttl, "TTL cannot be null");
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("Maximum size must be positive");
+            }
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("TTL must be positive");
+            }
+            this.verificationCacheSize = maximumSize;
+            this.verificationCacheTtl = ttl;
+            return this;
+        }
+
+        /**
+         * Keeps serving cached verifications for provided time after their TTL passes,
+         * while the token is verified again in the background. Verifications the server
+         * rejects are evicted, verifications that can't be revalidated because the server
+         * is unavailable keep being served until the stale period ends. Entries are never
+         * served past the token's own expiration.
+         * <p>
+         * Takes effect only together with {@link #verificationCache(int, Duration)}.
+         *
+         * @param staleTtl How long after TTL a verification may still be served
+         * @return This builder
+         */
+        public @NotNull Builder staleWhileRevalidate(@NotNull Duration staleTtl) {
+            Objects.requireNonNull(staleTtl, "Stale TTL cannot be null");
+            if (staleTtl.isNegative()) {
+                throw new IllegalArgumentException("Stale TTL cannot be negative");
+            }
+            this.staleWhileRevalidate = staleTtl;
+            return this;
+        }
+
+        /**
+         * Enables remembering tokens the server rejected, so repeated verifications of
+         * invalid, expired or forged tokens, for example during a credential stuffing
+         * burst, are rejected locally instead of reaching the server. Tokens revoked
+         * through {@link #invalidationStream(InvalidationStream)} are remembered as well.
+         * <p>
+         * Rejections are kept in a {@link DecayingBloomFilter} of fixed size, remembered
+         * for half to the whole of provided TTL. Like every Bloom filter, it reports
+         * a token never rejected as rejected with a small probability (one in a million),
+         * successful verifications are looked up in the verification cache first.
+         * Only definite rejections (401 and 403 responses) are remembered, never other
+         * error statuses such as 429 or server errors.
+         *
+         * @param expectedRejections Number of rejections per half of the TTL the cache is sized for
+         * @param ttl Maximum time a rejection is remembered
+         * @return This builder
+         */
+        public @NotNull Builder rejectionCache(int expectedRejections, @NotNull Duration ttl) {
+            Objects.requireNonNull(ttl, "TTL cannot be null");
+            if (expectedRejections <= 0) {
+                throw new IllegalArgumentException("Expected rejections must be positive");
+            }
+            if (ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("TTL must be positive");
+            }
+            this.rejectionCacheSize = expectedRejections;
+            this.rejectionCacheTtl = ttl;
+            return this;
+        }
+
+        /**
+         * Rejects tokens that are not structurally valid JWTs without contacting
+         * the server, see {@link JsonWebToken#isWellFormed(String)}. Enable only when
+         * the server issues JWTs, which the ketchup-authorization-server does.
+         *
+         * @param rejectMalformedTokens True to reject malformed tokens locally
+         * @return This builder
+         */
+        public @NotNull Builder rejectMalformedTokens(boolean rejectMalformedTokens) {
+            this.rejectMalformedTokens = rejectMalformedTokens;
+            return this;
+        }
+
+        /**
+         * Sets a cache consulted after the in-memory verification cache misses and
+         * before contacting the authorization server. Verifications with details are
+         * stored in both. A second level cache can outlive the client or be shared with
+         * other processes, see {@link me.zort.authorization.lib.cache.MappedFileSecondLevelCache}.
+         *
+         * @param secondLevelCache Cache to use
+         * @return This builder
+         */
+        public @NotNull Builder secondLevelCache(@NotNull SecondLevelCache secondLevelCache) {
+            Objects.requireNonNull(secondLevelCache, "Second level cache cannot be null");
+            this.secondLevelCache = secondLevelCache;
+            return this;
+        }
+
+        /**
+         * Subscribes the client to invalidations pushed by the server, so revoked tokens
+         * and changed users are evicted from the verification caches right away and
+         * cache TTLs can be long. The subscription is stopped by {@link AuthorizationClient#close()}.
+         *
+         * @param invalidationStream Stream to subscribe to, for example
+         *                           {@link me.zort.authorization.lib.invalidation.ServerSentEventsInvalidationStream}
+         * @return This builder
+         */
+        public @NotNull Builder invalidationStream(@NotNull InvalidationStream invalidationStream) {
+            Objects.requireNonNull(invalidationStream, "Invalidation stream cannot be null");
+            this.invalidationStream = invalidationStream;
+            return this;
+        }
+
+        /**
+         * Enables evaluating permission nodes in memory from the permissions included
+         * in fetched user details, see {@link PermissionIndex} for supported syntax.
+         * Sessions obtained using {@link AuthorizationClient#verifyWithDetails(String)}
+         * then answer {@link Session#fetchNodeState(String)} without contacting the server.
+         *
+         * @param localPermissionEvaluation True to evaluate permissions locally
+         * @return This builder
+         */
+        public @NotNull Builder localPermissionEvaluation(boolean localPermissionEvaluation) {
+            this.localPermissionEvaluation = localPermissionEvaluation;
+            return this;
+        }
+
+        /**
+         * Enables coalescing of concurrent identical calls, see {@link CoalescingAuthorizationStrategy}.
+         * When many threads verify the same token at once, only one request reaches
+         * the authorization server and all of them share its result.
+         *
+         * @param coalesceRequests True to coalesce concurrent identical calls
+         * @return This builder
+         */
+        public @NotNull Builder coalesceRequests(boolean coalesceRequests) {
+            this.coalesceRequests = coalesceRequests;
+            return this;
+        }
+
+        /**
+         * Enables proactive session refresh. Sessions that can be refreshed (authorized
+         * with a principal, trusted, or holding a refresh token) refresh themselves on a
+         * shared background scheduler provided time before their token expires, so callers
+         * don't pay for a synchronous refresh after expiry. Sessions stop refreshing once
+         * they are closed or no longer referenced.
+         *
+         * @param refreshAhead How long before token expiry the refresh starts
+         * @return This builder
+         */
+        public @NotNull Builder refreshAhead(@NotNull Duration refreshAhead) {
+            Objects.requireNonNull(refreshAhead, "Refresh ahead duration cannot be null");
+            if (refreshAhead.isNegative()) {
+                throw new IllegalArgumentException("Refresh ahead duration cannot be negative");
+            }
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        /**
+         * Sets the receiver of client measurements: request latency and status,
+         * session refreshes and cache hits. Filters of the spring module report
+         * their timing here as well. By default, nothing is measured.
+         *
+         * @param metrics Metrics to record into, for example
+         *                {@link me.zort.authorization.lib.metrics.MicrometerAuthorizationMetrics}
+         * @return This builder
+         */
+        public @NotNull Builder metrics(@NotNull AuthorizationMetrics metrics) {
+            Objects.requireNonNull(metrics, "Metrics cannot be null");
+            this.metrics = metrics;
+            return this;
+        }
+
         public @NotNull AuthorizationClient build() {
             Objects.requireNonNull(baseUrl, "Base URL cannot be null");
             Objects.requireNonNull(processor, "Processor cannot be null");
-            return new AuthorizationClient(baseUrl, processor);
+            return new AuthorizationClient(this);
         }
 
     }
@@ -2,9 +2,17 @@ package me.zort.authorization.lib;
 
 import com.google.gson.JsonObject;
 import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.model.VersionedUserDetails;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 public interface AuthorizationStrategy {
 
     @Nullable Token authorize(HttpProcessor processor, @Nullable JsonObject principal);
@@ -13,6 +21,147 @@ public interface AuthorizationStrategy {
     boolean fetchNodeState(HttpProcessor processor, Token token, String node);
     boolean verifyToken(HttpProcessor processor, String token);
 
+    /**
+     * Fetches states of all provided permission nodes.
+     * Strategies should override this method to resolve the nodes in a single
+     * batched request, or at least concurrently.
+     *
+     * @param processor HTTP processor to use
+     * @param token Token of the user
+     * @param nodes Permission nodes to check
+     * @return Node states mapped by node, in iteration order of provided nodes
+     */
+    default @NotNull Map<String, Boolean> fetchNodeStates(HttpProcessor processor, Token token, Collection<String> nodes) {
+        Map<String, Boolean> states = new LinkedHashMap<>();
+        for (String node : nodes) {
+            states.put(node, fetchNodeState(processor, token, node));
+        }
+        return states;
+    }
+
+    /**
+     * Verifies provided token and fetches details of its owner, including permissions.
+     * Strategies that can do both in a single request should override this method.
+     *
+     * @param processor HTTP processor to use
+     * @param token Token to verify
+     * @return User details, or null if the token is not valid
+     */
+    default @Nullable UserDetails verifyWithDetails(HttpProcessor processor, String token) {
+        if (!verifyToken(processor, token)) {
+            return null;
+        }
+        return fetchUserDetails(processor, new Token(token, null, -1));
+    }
+
+    /**
+     * Conditional variant of {@link #verifyWithDetails(HttpProcessor, String)} revalidating
+     * previously fetched details. When the server confirms they didn't change, provided
+     * details are returned without being transferred again.
+     * <p>
+     * Default implementation always fetches the details.
+     *
+     * @param processor HTTP processor to use
+     * @param token Token to verify
+     * @param current Locally held details of the token's owner (optional)
+     * @return Current user details, or null if the token is not valid
+     */
+    default @Nullable VersionedUserDetails verifyWithDetails(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        UserDetails details = verifyWithDetails(processor, token);
+        return details != null ? new VersionedUserDetails(details, null) : null;
+    }
+
+    // Asynchronous variants. Default implementations run the blocking variant in the
+    // calling thread, strategies built on HttpProcessor#performAsync should override them.
+
+    default @NotNull CompletableFuture<@Nullable Token> authorizeAsync(HttpProcessor processor, @Nullable JsonObject principal) {
+        return completed(() -> authorize(processor, principal));
+    }
+
+    default @NotNull CompletableFuture<@Nullable Token> refreshAsync(HttpProcessor processor, @NotNull String refreshToken) {
+        return completed(() -> refresh(processor, refreshToken));
+    }
+
+    default @NotNull CompletableFuture<@Nullable UserDetails> fetchUserDetailsAsync(HttpProcessor processor, Token token) {
+        return completed(() -> fetchUserDetails(processor, token));
+    }
+
+    default @NotNull CompletableFuture<Boolean> fetchNodeStateAsync(HttpProcessor processor, Token token, String node) {
+        return completed(() -> fetchNodeState(processor, token, node));
+    }
+
+    default @NotNull CompletableFuture<Map<String, Boolean>> fetchNodeStatesAsync(HttpProcessor processor, Token token, Collection<String> nodes) {
+        return completed(() -> fetchNodeStates(processor, token, nodes));
+    }
+
+    default @NotNull CompletableFuture<Boolean> verifyTokenAsync(HttpProcessor processor, String token) {
+        return completed(() -> verifyToken(processor, token));
+    }
+
+    default @NotNull CompletableFuture<@Nullable UserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token) {
+        return completed(() -> verifyWithDetails(processor, token));
+    }
+
+    default @NotNull CompletableFuture<@Nullable VersionedUserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        return verifyWithDetailsAsync(processor, token)
+                .thenApply(details -> details != null ? new VersionedUserDetails(details, null) : null);
+    }
+
+    /**
+     * Verifies all provided tokens, used by bulk verification of the client.
+     * Strategies backed by a server with a batch endpoint should override this
+     * method to verify the tokens in a single request.
+     * <p>
+     * Default implementation verifies the tokens concurrently.
+     *
+     * @param processor HTTP processor to use
+     * @param tokens Distinct tokens to verify
+     * @return Future of the verification results mapped by token
+     */
+    default @NotNull CompletableFuture<Map<String, Boolean>> verifyTokensAsync(HttpProcessor processor, Collection<String> tokens) {
+        return all(tokens, token -> verifyTokenAsync(processor, token));
+    }
+
+    /**
+     * Verifies all provided tokens and fetches details of their owners, used by
+     * bulk verification of the client. Strategies backed by a server with a batch
+     * endpoint should override this method to fetch them in a single request.
+     * <p>
+     * Default implementation verifies the tokens concurrently.
+     *
+     * @param processor HTTP processor to use
+     * @param tokens Distinct tokens to verify
+     * @return Future of the user details mapped by token, null for tokens that are not valid
+     */
+    default @NotNull CompletableFuture<Map<String, @Nullable UserDetails>> verifyTokensWithDetailsAsync(HttpProcessor processor, Collection<String> tokens) {
+        return all(tokens, token -> verifyWithDetailsAsync(processor, token));
+    }
+
+    private static <T> CompletableFuture<Map<String, T>> all(Collection<String> tokens, Function<String, CompletableFuture<T>> call) {
+        Map<String, CompletableFuture<T>> pending = new LinkedHashMap<>();
+        try {
+            for (String token : tokens) {
+                pending.computeIfAbsent(token, call);
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<String, T> results = new LinkedHashMap<>();
+                    pending.forEach((token, result) -> results.put(token, result.join()));
+                    return results;
+                });
+    }
+
+    private static <T> CompletableFuture<T> completed(Supplier<T> supplier) {
+        try {
+            return CompletableFuture.completedFuture(supplier.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     record Token(String token, String refreshToken, long expiresAt) { }
 
 }
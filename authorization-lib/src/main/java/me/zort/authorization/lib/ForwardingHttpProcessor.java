@@ -0,0 +1,63 @@
+package me.zort.authorization.lib;
+
+import com.google.gson.JsonObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP processor forwarding all requests to another processor.
+ * Base for decorators that need to observe or alter requests without
+ * knowing how they are performed. The base URL is assigned to the delegate
+ * as well, so the delegate must not be used by another client.
+ *
+ * @author ZorTik
+ */
+public abstract class ForwardingHttpProcessor extends HttpProcessor {
+
+    protected final HttpProcessor delegate;
+
+    protected ForwardingHttpProcessor(@NotNull HttpProcessor delegate) {
+        Objects.requireNonNull(delegate, "Delegate processor cannot be null");
+        this.delegate = delegate;
+    }
+
+    @Override
+    public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException {
+        return delegate.perform(relativeUrl, method, headers, body);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable JsonObject> performAsync(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+        return delegate.performAsync(relativeUrl, method, headers, body);
+    }
+
+    @Override
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        return delegate.perform(relativeUrl, method, headers, body, reader);
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@Nullable T> performAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+        return delegate.performAsync(relativeUrl, method, headers, body, reader);
+    }
+
+    @Override
+    public <T> @NotNull ConditionalResponse<T> performConditional(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        return delegate.performConditional(relativeUrl, method, headers, body, etag, reader);
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@NotNull ConditionalResponse<T>> performConditionalAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) {
+        return delegate.performConditionalAsync(relativeUrl, method, headers, body, etag, reader);
+    }
+
+    @Override
+    protected void setBaseUrl(String baseUrl) {
+        super.setBaseUrl(baseUrl);
+        delegate.setBaseUrl(baseUrl);
+    }
+}
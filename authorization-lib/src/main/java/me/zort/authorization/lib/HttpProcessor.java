@@ -1,10 +1,18 @@
 package me.zort.authorization.lib;
 
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Getter
 public abstract class HttpProcessor {
@@ -30,6 +38,114 @@ public abstract class HttpProcessor {
     @Nullable
     public abstract JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException;
 
+    /**
+     * Performs an HTTP request the same way as {@link #perform(String, String, Map, JsonObject)},
+     * but without blocking the calling thread. The returned future completes exceptionally
+     * with {@link BadStatusException} if the status code is not 200.
+     * <p>
+     * Default implementation performs the request synchronously in the calling thread,
+     * processors backed by a non-blocking client should override it.
+     *
+     * @param relativeUrl Relative URL to the base URL
+     * @param method HTTP method to use
+     * @param body JSON body to send (optional)
+     * @return Future of the response body
+     */
+    public @NotNull CompletableFuture<@Nullable JsonObject> performAsync(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+        try {
+            return CompletableFuture.completedFuture(perform(relativeUrl, method, headers, body));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Performs an HTTP request with already encoded JSON body and decodes the response
+     * by streaming it through provided reader, without building an intermediate JSON tree.
+     * <p>
+     * Default implementation falls back to {@link #perform(String, String, Map, JsonObject)},
+     * processors should override it to read directly from the response stream.
+     *
+     * @param relativeUrl Relative URL to the base URL
+     * @param method HTTP method to use
+     * @param body UTF-8 encoded JSON body to send (optional)
+     * @param reader Reader decoding the response body
+     * @return Decoded response body, or null if there is no body
+     * @throws BadStatusException When status code is not 200
+     */
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        JsonObject jsonBody = body != null
+                ? JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject()
+                : null;
+        JsonObject response = perform(relativeUrl, method, headers, jsonBody);
+        if (response == null) {
+            return null;
+        }
+        try {
+            return reader.read(new JsonReader(new StringReader(response.toString())));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #perform(String, String, Map, byte[], ResponseReader)}.
+     * <p>
+     * Default implementation performs the request synchronously in the calling thread.
+     *
+     * @param relativeUrl Relative URL to the base URL
+     * @param method HTTP method to use
+     * @param body UTF-8 encoded JSON body to send (optional)
+     * @param reader Reader decoding the response body
+     * @return Future of the decoded response body
+     */
+    public <T> @NotNull CompletableFuture<@Nullable T> performAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+        try {
+            return CompletableFuture.completedFuture(perform(relativeUrl, method, headers, body, reader));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Performs a conditional HTTP request the same way as {@link #perform(String, String, Map, byte[], ResponseReader)}.
+     * When an entity tag of a previously received response is provided, it is sent
+     * as {@code If-None-Match} and a {@code 304 Not Modified} response is reported
+     * by {@link ConditionalResponse#notModified()} instead of failing. Entity tag
+     * of the response, if any, is returned along with the decoded body.
+     * <p>
+     * Default implementation ignores the entity tag and always performs a full request,
+     * processors should override it to support revalidation.
+     *
+     * @param relativeUrl Relative URL to the base URL
+     * @param method HTTP method to use
+     * @param body UTF-8 encoded JSON body to send (optional)
+     * @param etag Entity tag of the locally held response (optional)
+     * @param reader Reader decoding the response body
+     * @return Decoded response body and its entity tag
+     * @throws BadStatusException When status code is neither 200 nor 304
+     */
+    public <T> @NotNull ConditionalResponse<T> performConditional(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        return ConditionalResponse.modified(perform(relativeUrl, method, headers, body, reader), null);
+    }
+
+    /**
+     * Asynchronous variant of {@link #performConditional(String, String, Map, byte[], String, ResponseReader)}.
+     * <p>
+     * Default implementation ignores the entity tag and always performs a full request.
+     *
+     * @param relativeUrl Relative URL to the base URL
+     * @param method HTTP method to use
+     * @param body UTF-8 encoded JSON body to send (optional)
+     * @param etag Entity tag of the locally held response (optional)
+     * @param reader Reader decoding the response body
+     * @return Future of the decoded response body and its entity tag
+     */
+    public <T> @NotNull CompletableFuture<@NotNull ConditionalResponse<T>> performConditionalAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) {
+        return performAsync(relativeUrl, method, headers, body, reader)
+                .thenApply(response -> ConditionalResponse.modified(response, null));
+    }
+
     protected void setBaseUrl(String baseUrl) {
         if (this.baseUrl != null) {
             throw new RuntimeException("This HTTP processor has already been assigned.");
@@ -37,9 +153,42 @@ public abstract class HttpProcessor {
         this.baseUrl = baseUrl;
     }
 
+    /**
+     * Decodes a JSON response body from a stream.
+     *
+     * @param <T> Decoded type
+     */
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+        T read(JsonReader reader) throws IOException;
+    }
+
+    /**
+     * Response of a conditional request.
+     *
+     * @param body Decoded response body, null if not modified or there is no body
+     * @param etag Entity tag of the response (optional)
+     * @param notModified Whether the server answered that the locally held response is still current
+     * @param <T> Decoded type
+     */
+    public record ConditionalResponse<T>(@Nullable T body, @Nullable String etag, boolean notModified) {
+
+        public static <T> @NotNull ConditionalResponse<T> modified(@Nullable T body, @Nullable String etag) {
+            return new ConditionalResponse<>(body, etag, false);
+        }
+
+        public static <T> @NotNull ConditionalResponse<T> notModified(@Nullable String etag) {
+            return new ConditionalResponse<>(null, etag, true);
+        }
+    }
+
+    @Getter
     public static class BadStatusException extends RuntimeException {
+        private final int code;
+
         public BadStatusException(int code) {
             super("Bad status code: " + code);
+            this.code = code;
         }
     }
 
@@ -0,0 +1,191 @@
+package me.zort.authorization.lib.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter whose members are forgotten after a time to live.
+ * <p>
+ * Members are added to the current of two generations, membership is checked in both.
+ * Every half of the TTL the older generation is dropped, so each member is remembered
+ * for at least half of the TTL and at most the whole TTL. When more members than the
+ * capacity are added within half of the TTL, generations rotate early instead, so memory
+ * stays fixed and the false positive probability never exceeds the configured one, at
+ * the cost of forgetting members sooner. Like every Bloom filter, it may report members
+ * that were never added.
+ * <p>
+ * All operations are lock-free except for rotating generations.
+ *
+ * @author ZorTik
+ */
+public final class DecayingBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final int bits;
+    private final int hashes;
+    private final int capacity;
+    private final long halfTtlMillis;
+    // Random per filter, so colliding keys can't be precomputed.
+    private final long seed = ThreadLocalRandom.current().nextLong();
+    private volatile Generations generations;
+
+    /**
+     * Initializes a new filter.
+     *
+     * @param capacity Number of members added per half of the TTL the filter is sized for
+     * @param falsePositiveProbability Maximum probability of reporting a member that was not added
+     * @param ttl Time after which members are forgotten
+     */
+    public DecayingBloomFilter(int capacity, double falsePositiveProbability, @NotNull Duration ttl) {
+        Objects.requireNonNull(ttl, "TTL cannot be null");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+        if (ttl.toMillis() < 2) {
+            throw new IllegalArgumentException("TTL is too short");
+        }
+        // Both generations are checked, so each of them gets half of the probability.
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveProbability / 2) / (LN2 * LN2));
+        if (bits > Integer.MAX_VALUE - 63) {
+            throw new IllegalArgumentException("Filter would be too large");
+        }
+        this.bits = (int) Math.max(64, bits);
+        this.hashes = Math.max(1, (int) Math.round((double) this.bits / capacity * LN2));
+        this.capacity = capacity;
+        this.halfTtlMillis = ttl.toMillis() / 2;
+        this.generations = new Generations(newBits(), newBits(), System.currentTimeMillis() + halfTtlMillis);
+    }
+
+    /**
+     * Adds provided key to the filter.
+     *
+     * @param key Key to add
+     */
+    public void put(@NotNull String key) {
+        Generations generations = current();
+        long hash1 = hash(key, seed);
+        long hash2 = mix(hash1 ^ ~seed) | 1;
+        boolean added = false;
+        for (int i = 0; i < hashes; i++) {
+            added |= set(generations.current, index(hash1 + i * hash2));
+        }
+        // Saturated generations would raise the false positive rate, so they are rotated early.
+        if (added && generations.size.incrementAndGet() >= capacity) {
+            rotate(generations, true);
+        }
+    }
+
+    /**
+     * Checks whether provided key may have been added within the TTL.
+     *
+     * @param key Key to check
+     * @return False if the key was certainly not added within the last half of the TTL,
+     * true if it probably was
+     */
+    public boolean mightContain(@NotNull String key) {
+        Generations generations = current();
+        long hash1 = hash(key, seed);
+        long hash2 = mix(hash1 ^ ~seed) | 1;
+        return contains(generations.current, hash1, hash2) || contains(generations.previous, hash1, hash2);
+    }
+
+    /**
+     * Removes all members.
+     */
+    public synchronized void clear() {
+        generations = new Generations(newBits(), newBits(), System.currentTimeMillis() + halfTtlMillis);
+    }
+
+    private Generations current() {
+        Generations generations = this.generations;
+        if (System.currentTimeMillis() >= generations.rotatesAt) {
+            rotate(generations, false);
+            return this.generations;
+        }
+        return generations;
+    }
+
+    private synchronized void rotate(Generations expected, boolean saturated) {
+        if (generations != expected) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // Generations older than the whole TTL are dropped entirely.
+        AtomicLongArray previous = saturated || now < expected.rotatesAt + halfTtlMillis ? expected.current : newBits();
+        generations = new Generations(newBits(), previous, now + halfTtlMillis);
+    }
+
+    private boolean contains(AtomicLongArray array, long hash1, long hash2) {
+        for (int i = 0; i < hashes; i++) {
+            int index = index(hash1 + i * hash2);
+            if ((array.get(index >>> 6) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean set(AtomicLongArray array, int index) {
+        long mask = 1L << index;
+        while (true) {
+            long word = array.get(index >>> 6);
+            if ((word & mask) != 0) {
+                return false;
+            }
+            if (array.compareAndSet(index >>> 6, word, word | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private int index(long hash) {
+        // Maps the upper half of the hash to [0, bits) by multiplication instead of division.
+        return (int) (((hash >>> 32) * bits) >>> 32);
+    }
+
+    private AtomicLongArray newBits() {
+        return new AtomicLongArray((bits + 63) >>> 6);
+    }
+
+    private static long hash(String key, long seed) {
+        // Four characters per step keep the dependency chain of multiplications short.
+        long hash = seed ^ key.length();
+        int length = key.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long block = key.charAt(i) | (long) key.charAt(i + 1) << 16
+                    | (long) key.charAt(i + 2) << 32 | (long) key.charAt(i + 3) << 48;
+            hash = Long.rotateLeft(hash ^ block * 0x87C37B91114253D5L, 31) * 0x4CF5AD432745937FL;
+        }
+        for (; i < length; i++) {
+            hash = Long.rotateLeft(hash ^ key.charAt(i) * 0x87C37B91114253D5L, 31) * 0x4CF5AD432745937FL;
+        }
+        return mix(hash);
+    }
+
+    // Finalizer of MurmurHash3, spreads every input bit over the whole hash.
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private record Generations(AtomicLongArray current, AtomicLongArray previous, long rotatesAt, AtomicInteger size) {
+        private Generations(AtomicLongArray current, AtomicLongArray previous, long rotatesAt) {
+            this(current, previous, rotatesAt, new AtomicInteger());
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package me.zort.authorization.lib.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+
+/**
+ * Bounded concurrent cache with per-entry expiration.
+ * <p>
+ * Reads are a single lock-free map lookup. Every entry lives at most for the
+ * configured time to live, or less if an earlier expiration is provided when
+ * putting it. When the cache grows over its maximum size, entries are evicted
+ * in the order their keys were first inserted. Eviction doesn't track recency:
+ * reading an entry or replacing its value doesn't move it back in the order.
+ * Entries removed by invalidation or expiration keep counting against the maximum
+ * size until their turn to be evicted comes, so the cache may briefly hold less.
+ * <p>
+ * Optionally, entries past their time to live are kept as stale for an additional
+ * period, during which they are available through {@link #getEntry(Object)} only.
+ * This allows serving a stale value while a fresh one is being obtained.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ * @author ZorTik
+ */
+public final class ExpiringCache<K, V> {
+
+    private final ConcurrentHashMap<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Position<K>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maximumSize;
+    private final long ttlMillis;
+    private final long staleMillis;
+
+    /**
+     * Initializes a new cache.
+     *
+     * @param maximumSize Maximum number of entries held at once
+     * @param ttl Maximum time an entry stays in the cache
+     */
+    public ExpiringCache(int maximumSize, @NotNull Duration ttl) {
+        this(maximumSize, ttl, Duration.ZERO);
+    }
+
+    /**
+     * Initializes a new cache keeping expired entries as stale.
+     *
+     * @param maximumSize Maximum number of entries held at once
+     * @param ttl Time an entry stays fresh
+     * @param staleTtl Additional time an entry stays available as stale
+     */
+    public ExpiringCache(int maximumSize, @NotNull Duration ttl, @NotNull Duration staleTtl) {
+        Objects.requireNonNull(ttl, "TTL cannot be null");
+        Objects.requireNonNull(staleTtl, "Stale TTL cannot be null");
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        if (staleTtl.isNegative()) {
+            throw new IllegalArgumentException("Stale TTL cannot be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.ttlMillis = ttl.toMillis();
+        this.staleMillis = staleTtl.toMillis();
+    }
+
+    /**
+     * Returns the value mapped to provided key, or null if there is no
+     * such value or it has already expired.
+     *
+     * @param key Key to look up
+     * @return Cached value or null
+     */
+    public @Nullable V get(@NotNull K key) {
+        Entry<V> entry = getEntry(key);
+        return entry != null && !entry.isStale() ? entry.value() : null;
+    }
+
+    /**
+     * Returns the entry mapped to provided key, either fresh or stale,
+     * or null if there is no such entry or it has already expired.
+     *
+     * @param key Key to look up
+     * @return Cached entry or null
+     */
+    public @Nullable Entry<V> getEntry(@NotNull K key) {
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= node.expiresAt()) {
+            entries.remove(key, node);
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Puts a value to the cache.
+     * The entry will expire after the configured TTL, or at provided expiration
+     * time if it comes sooner. The stale period never extends past provided expiration.
+     *
+     * @param key Key
+     * @param value Value
+     * @param expiresAt Epoch millis when the value stops being valid, or -1 if unknown
+     */
+    public void put(@NotNull K key, @NotNull V value, long expiresAt) {
+        long now = System.currentTimeMillis();
+        long freshUntil = now + ttlMillis;
+        long effectiveExpiresAt = freshUntil + staleMillis;
+        if (expiresAt >= 0) {
+            freshUntil = Math.min(freshUntil, expiresAt);
+            effectiveExpiresAt = Math.min(effectiveExpiresAt, expiresAt);
+        }
+        if (effectiveExpiresAt <= now) {
+            return;
+        }
+        long finalFreshUntil = freshUntil;
+        long finalExpiresAt = effectiveExpiresAt;
+        Position<K> position = new Position<>(key);
+        // A replaced value keeps the position of the previous one, so it counts once.
+        Node<K, V> node = entries.compute(key, (k, previous) ->
+                new Node<>(value, finalFreshUntil, finalExpiresAt, previous != null ? previous.position() : position));
+        if (node.position() == position) {
+            insertionOrder.add(position);
+            queued.incrementAndGet();
+            evictOverflow();
+        }
+    }
+
+    /**
+     * Removes the value mapped to provided key.
+     *
+     * @param key Key to remove
+     */
+    public void invalidate(@NotNull K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all entries matching provided predicate.
+     * Visits every entry, so it's meant for rare bulk invalidations.
+     *
+     * @param predicate Predicate of keys and values to remove
+     */
+    public void invalidateIf(@NotNull BiPredicate<? super K, ? super V> predicate) {
+        Objects.requireNonNull(predicate, "Predicate cannot be null");
+        entries.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value()));
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of entries currently held, including ones
+     * that are expired but were not cleaned up yet.
+     *
+     * @return Cache size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictOverflow() {
+        // The queue also holds positions of entries removed in the meantime,
+        // so bounding the queue bounds the map as well.
+        while (queued.get() > maximumSize) {
+            Position<K> eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            entries.computeIfPresent(eldest.key(), (key, node) -> node.position() == eldest ? null : node);
+        }
+    }
+
+    /**
+     * Cached value together with its freshness.
+     *
+     * @param <V> Value type
+     */
+    public interface Entry<V> {
+        @NotNull V value();
+
+        /**
+         * Returns whether the entry is past its time to live, but still within its stale period.
+         *
+         * @return True if the entry is stale
+         */
+        boolean isStale();
+    }
+
+    // Compared by identity, a key inserted again after removal gets a new position.
+    private static final class Position<K> {
+        private final K key;
+
+        private Position(K key) {
+            this.key = key;
+        }
+
+        private K key() {
+            return key;
+        }
+    }
+
+    private record Node<K, V>(V value, long freshUntil, long expiresAt, Position<K> position) implements Entry<V> {
+        @Override
+        public boolean isStale() {
+            return System.currentTimeMillis() >= freshUntil;
+        }
+    }
+
+}
@@ -0,0 +1,493 @@
+package me.zort.authorization.lib.cache;
+
+import me.zort.authorization.lib.model.UserDetails;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link SecondLevelCache} stored in a memory-mapped file outside the heap.
+ * All processes on a host opening the same file share its entries, so a token
+ * verified by one of them is verified for all of them.
+ * <p>
+ * The file is a fixed table of slots grouped into buckets of two. Tokens are
+ * identified by their SHA-256 hash, so the file never contains tokens themselves.
+ * Each slot holds one entry, when a bucket is full the entry expiring sooner is
+ * replaced. Details that don't fit into a slot are not cached.
+ * <p>
+ * Slots are guarded by a sequence lock, readers never block and retry or miss
+ * when they observe a concurrent write. Writers that find a slot being written
+ * skip caching instead of waiting, invalidations wait until the slot is cleared.
+ * The lock records the process ID of its writer, so a slot left locked by a process
+ * that died mid-write is taken over by the next writer. Processes sharing the file
+ * must therefore run in the same PID namespace.
+ * <p>
+ * Entries of the file are trusted as verified tokens, so whoever can write to it can
+ * authenticate forged tokens. The file is created readable and writable by its owner
+ * only, and an existing file is opened only when it is owned by the current user, is
+ * not a symbolic link and, on file systems with POSIX permissions, grants no access to
+ * the group or others. Processes sharing the file must therefore run as the same user.
+ * Shared directories such as {@code /dev/shm} are writable by everyone, a file planted
+ * there by another user makes opening fail rather than being used.
+ * <pre>
+ *     SecondLevelCache cache = MappedFileSecondLevelCache.open(
+ *             Path.of("/dev/shm/ketchup-verifications"), 65536, 1024, Duration.ofMinutes(5));
+ * </pre>
+ *
+ * @author ZorTik
+ */
+public final class MappedFileSecondLevelCache implements SecondLevelCache, AutoCloseable {
+
+    private static final int MAGIC = 0x4B414332; // "KAC2"
+    private static final int HEADER_SIZE = 64;
+    // Owner process ID in the upper half, sequence in the lower half.
+    private static final int LOCK_OFFSET = 0;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int EXPIRES_AT_OFFSET = 16;
+    private static final int KEY_OFFSET = 24;
+    private static final int KEY_SIZE = 32;
+    private static final int PAYLOAD_OFFSET = KEY_OFFSET + KEY_SIZE;
+    private static final int MIN_SLOT_SIZE = 128;
+    private static final int READ_ATTEMPTS = 3;
+    private static final long NOT_LOCKED = -1;
+    private static final int OWNER = (int) ProcessHandle.current().pid();
+    private static final VarHandle LOCK = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    // Files this process has open, mapped to the number of instances.
+    private static final Map<Path, Integer> OPEN_FILES = new HashMap<>();
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int buckets;
+    private final int slotSize;
+    private final long ttlMillis;
+    private volatile boolean closed = false;
+
+    private MappedFileSecondLevelCache(Path file, FileChannel channel, MappedByteBuffer buffer, int slotCount, int slotSize, Duration ttl) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.buckets = slotCount / 2;
+        this.slotSize = slotSize;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Opens the cache file, creating it if it doesn't exist yet. All processes
+     * sharing the file must open it with the same slot count and slot size.
+     *
+     * @param file Cache file, preferably on a memory-backed file system such as {@code /dev/shm}
+     * @param slotCount Number of entries the file holds, rounded up to an even number
+     * @param slotSize Size of one entry in bytes, a multiple of 8 and at least 128
+     * @param ttl Maximum time an entry stays valid
+     * @return Opened cache
+     * @throws IOException When the file can't be opened, is not private to the current user
+     * or was created with a different layout
+     */
+    public static @NotNull MappedFileSecondLevelCache open(@NotNull Path file, int slotCount, int slotSize, @NotNull Duration ttl) throws IOException {
+        Objects.requireNonNull(file, "File cannot be null");
+        Objects.requireNonNull(ttl, "TTL cannot be null");
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("Slot count must be positive");
+        }
+        if (slotSize < MIN_SLOT_SIZE || slotSize % 8 != 0) {
+            throw new IllegalArgumentException("Slot size must be a multiple of 8 and at least " + MIN_SLOT_SIZE);
+        }
+        slotCount += slotCount & 1;
+        long size = HEADER_SIZE + (long) slotCount * slotSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cache file cannot be larger than 2GB");
+        }
+        boolean posix = file.getFileSystem().supportedFileAttributeViews().contains("posix");
+        FileChannel channel = posix
+                ? FileChannel.open(file, Set.of(StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS), PosixFilePermissions.asFileAttribute(OWNER_ONLY))
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, LinkOption.NOFOLLOW_LINKS);
+        try {
+            checkAccess(file, posix);
+            Path realFile = file.toRealPath();
+            // Other processes may be opening the same file at the same time.
+            try (FileLock ignored = channel.lock()) {
+                if (channel.size() == 0) {
+                    writeHeader(channel, slotCount, slotSize, size);
+                } else {
+                    checkHeader(channel, slotCount, slotSize, size);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                MappedFileSecondLevelCache cache = new MappedFileSecondLevelCache(realFile, channel, buffer, slotCount, slotSize, ttl);
+                synchronized (OPEN_FILES) {
+                    if (OPEN_FILES.merge(realFile, 1, Integer::sum) == 1) {
+                        cache.recoverOwnWrites();
+                    }
+                }
+                return cache;
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void checkAccess(Path file, boolean posix) throws IOException {
+        UserPrincipal owner = Files.getOwner(file, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal user = file.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(user)) {
+            throw new AccessDeniedException(file.toString(), null, "Cache file is not owned by the current user");
+        }
+        if (posix && !OWNER_ONLY.containsAll(Files.getPosixFilePermissions(file, LinkOption.NOFOLLOW_LINKS))) {
+            throw new AccessDeniedException(file.toString(), null, "Cache file is accessible by other users");
+        }
+    }
+
+    @Override
+    public @Nullable UserDetails get(@NotNull String token) {
+        if (closed) {
+            return null;
+        }
+        byte[] key = key(token);
+        int bucket = bucket(key);
+        for (int i = 0; i < 2; i++) {
+            byte[] payload = read(slotOffset(bucket, i), key);
+            if (payload != null) {
+                return UserDetailsCodec.decode(payload);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void put(@NotNull String token, @NotNull UserDetails details, long expiresAt) {
+        long now = System.currentTimeMillis();
+        long effectiveExpiresAt = now + ttlMillis;
+        if (expiresAt >= 0) {
+            effectiveExpiresAt = Math.min(effectiveExpiresAt, expiresAt);
+        }
+        if (closed || effectiveExpiresAt <= now) {
+            return;
+        }
+        byte[] payload = UserDetailsCodec.encode(details);
+        if (payload == null || payload.length > slotSize - PAYLOAD_OFFSET) {
+            return;
+        }
+        byte[] key = key(token);
+        int bucket = bucket(key);
+        write(victim(bucket, key, now), key, effectiveExpiresAt, payload);
+    }
+
+    @Override
+    public void invalidate(@NotNull String token) {
+        if (closed) {
+            return;
+        }
+        byte[] key = key(token);
+        int bucket = bucket(key);
+        for (int i = 0; i < 2; i++) {
+            int offset = slotOffset(bucket, i);
+            long lock = lock(offset, true);
+            if (lock == NOT_LOCKED) {
+                return;
+            }
+            try {
+                if (keyEquals(offset, key)) {
+                    buffer.putLong(offset + EXPIRES_AT_OFFSET, 0);
+                }
+            } finally {
+                unlock(offset, lock);
+            }
+        }
+    }
+
+    /**
+     * Removes all tokens of provided users. Every slot is decoded,
+     * so it's meant for rare bulk invalidations.
+     *
+     * @param uuids UUIDs of the users
+     */
+    @Override
+    public void invalidateUsers(@NotNull Set<String> uuids) {
+        if (closed || uuids.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            for (int i = 0; i < 2; i++) {
+                int offset = slotOffset(bucket, i);
+                if (!isLocked(offset) && buffer.getLong(offset + EXPIRES_AT_OFFSET) <= now) {
+                    continue;
+                }
+                long lock = lock(offset, true);
+                if (lock == NOT_LOCKED) {
+                    return;
+                }
+                try {
+                    UserDetails details = buffer.getLong(offset + EXPIRES_AT_OFFSET) > now ? decode(offset) : null;
+                    if (details != null && details.uuid() != null && uuids.contains(details.uuid())) {
+                        buffer.putLong(offset + EXPIRES_AT_OFFSET, 0);
+                    }
+                } finally {
+                    unlock(offset, lock);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        if (closed) {
+            return;
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            for (int i = 0; i < 2; i++) {
+                int offset = slotOffset(bucket, i);
+                if (isLocked(offset) || buffer.getLong(offset + EXPIRES_AT_OFFSET) > 0) {
+                    clear(offset);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the file. Entries written so far stay in it for other processes.
+     *
+     * @throws IOException When the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        synchronized (OPEN_FILES) {
+            OPEN_FILES.computeIfPresent(file, (path, count) -> count > 1 ? count - 1 : null);
+        }
+        channel.close();
+    }
+
+    private byte @Nullable [] read(int offset, byte[] key) {
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            long lock = (long) LOCK.getAcquire(buffer, offset + LOCK_OFFSET);
+            if ((lock & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (!keyEquals(offset, key) || buffer.getLong(offset + EXPIRES_AT_OFFSET) <= System.currentTimeMillis()) {
+                return null;
+            }
+            int length = buffer.getInt(offset + LENGTH_OFFSET);
+            if (length < 0 || length > slotSize - PAYLOAD_OFFSET) {
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + PAYLOAD_OFFSET, payload);
+            // Reads above must not be reordered after the sequence check.
+            VarHandle.acquireFence();
+            if ((long) LOCK.getVolatile(buffer, offset + LOCK_OFFSET) == lock) {
+                return payload;
+            }
+        }
+        return null;
+    }
+
+    private void write(int offset, byte[] key, long expiresAt, byte[] payload) {
+        // Slot is being written by someone else, caching is best effort.
+        long lock = lock(offset, false);
+        if (lock == NOT_LOCKED) {
+            return;
+        }
+        try {
+            buffer.putLong(offset + EXPIRES_AT_OFFSET, expiresAt);
+            buffer.put(offset + KEY_OFFSET, key);
+            buffer.putInt(offset + LENGTH_OFFSET, payload.length);
+            buffer.put(offset + PAYLOAD_OFFSET, payload);
+        } finally {
+            unlock(offset, lock);
+        }
+    }
+
+    private void clear(int offset) {
+        long lock = lock(offset, true);
+        if (lock == NOT_LOCKED) {
+            return;
+        }
+        try {
+            buffer.putLong(offset + EXPIRES_AT_OFFSET, 0);
+        } finally {
+            unlock(offset, lock);
+        }
+    }
+
+    /**
+     * Locks the slot for writing, taking it over if its writer's process is gone.
+     *
+     * @param offset Slot offset
+     * @param wait Whether to wait for a live writer instead of giving up
+     * @return Lock word to pass to {@link #unlock(int, long)}, or {@link #NOT_LOCKED}
+     * if the slot is being written and not waiting, or the cache was closed
+     */
+    private long lock(int offset, boolean wait) {
+        for (int attempt = 0; !closed; attempt++) {
+            long current = (long) LOCK.getVolatile(buffer, offset + LOCK_OFFSET);
+            int sequence = (int) current;
+            long locked;
+            if ((sequence & 1) == 0) {
+                locked = lockWord(sequence + 1);
+            } else if (!isAlive((int) (current >>> 32))) {
+                // Process died mid-write, the slot is unlocked by the next writer.
+                locked = lockWord(sequence + 2);
+            } else if (wait) {
+                backOff(attempt);
+                continue;
+            } else {
+                return NOT_LOCKED;
+            }
+            if (LOCK.compareAndSet(buffer, offset + LOCK_OFFSET, current, locked)) {
+                return locked;
+            }
+        }
+        return NOT_LOCKED;
+    }
+
+    private void unlock(int offset, long lock) {
+        LOCK.setRelease(buffer, offset + LOCK_OFFSET, lockWord((int) lock + 1));
+    }
+
+    private boolean isLocked(int offset) {
+        return ((long) LOCK.getVolatile(buffer, offset + LOCK_OFFSET) & 1) != 0;
+    }
+
+    // Writes of a previous process with the same ID, which no thread of this one can be doing yet.
+    private void recoverOwnWrites() {
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            for (int i = 0; i < 2; i++) {
+                int offset = slotOffset(bucket, i);
+                long current = (long) LOCK.getVolatile(buffer, offset + LOCK_OFFSET);
+                if ((current & 1) != 0 && (int) (current >>> 32) == OWNER) {
+                    buffer.putLong(offset + EXPIRES_AT_OFFSET, 0);
+                    LOCK.setRelease(buffer, offset + LOCK_OFFSET, lockWord((int) current + 1));
+                }
+            }
+        }
+    }
+
+    private @Nullable UserDetails decode(int offset) {
+        int length = buffer.getInt(offset + LENGTH_OFFSET);
+        if (length < 0 || length > slotSize - PAYLOAD_OFFSET) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + PAYLOAD_OFFSET, payload);
+        return UserDetailsCodec.decode(payload);
+    }
+
+    private static long lockWord(int sequence) {
+        return ((long) OWNER << 32) | (sequence & 0xFFFFFFFFL);
+    }
+
+    private static boolean isAlive(int owner) {
+        return owner == OWNER || ProcessHandle.of(owner).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    private static void backOff(int attempt) {
+        if (attempt < 64) {
+            Thread.onSpinWait();
+        } else if (attempt < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    private int victim(int bucket, byte[] key, long now) {
+        int first = slotOffset(bucket, 0);
+        int second = slotOffset(bucket, 1);
+        if (keyEquals(first, key)) {
+            return first;
+        }
+        if (keyEquals(second, key)) {
+            return second;
+        }
+        long firstExpiresAt = buffer.getLong(first + EXPIRES_AT_OFFSET);
+        long secondExpiresAt = buffer.getLong(second + EXPIRES_AT_OFFSET);
+        if (firstExpiresAt <= now) {
+            return first;
+        }
+        return secondExpiresAt <= firstExpiresAt ? second : first;
+    }
+
+    private boolean keyEquals(int offset, byte[] key) {
+        for (int i = 0; i < KEY_SIZE; i++) {
+            if (buffer.get(offset + KEY_OFFSET + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slotOffset(int bucket, int index) {
+        return HEADER_SIZE + (bucket * 2 + index) * slotSize;
+    }
+
+    private int bucket(byte[] key) {
+        long hash = ByteBuffer.wrap(key).getLong();
+        return (int) Long.remainderUnsigned(hash, buckets);
+    }
+
+    private static byte[] key(String token) {
+        return SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeHeader(FileChannel channel, int slotCount, int slotSize, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(slotCount).putInt(slotSize).flip();
+        channel.write(header, 0);
+        // Extends the file, new slots are zeroed, which is an empty expired entry.
+        channel.write(ByteBuffer.allocate(1), size - 1);
+    }
+
+    private static void checkHeader(FileChannel channel, int slotCount, int slotSize, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < 12 || header.getInt() != MAGIC) {
+            throw new IOException("File is not a second level cache");
+        }
+        if (header.getInt() != slotCount || header.getInt() != slotSize || channel.size() < size) {
+            throw new IOException("Cache file was created with a different slot count or slot size");
+        }
+    }
+}
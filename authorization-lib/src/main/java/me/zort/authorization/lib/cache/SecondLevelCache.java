@@ -0,0 +1,60 @@
+package me.zort.authorization.lib.cache;
+
+import me.zort.authorization.lib.model.UserDetails;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+
+/**
+ * Cache of verified tokens and their user details, consulted by
+ * {@link me.zort.authorization.lib.AuthorizationClient} after its in-memory
+ * verification cache and before the authorization server.
+ * <p>
+ * Unlike the in-memory cache, implementations may live outside the heap or be
+ * shared by multiple processes, see {@link MappedFileSecondLevelCache}.
+ * Implementations must be thread-safe and should not throw, a cache that is
+ * unavailable behaves as if it was empty.
+ *
+ * @author ZorTik
+ */
+public interface SecondLevelCache {
+
+    /**
+     * Returns details of provided verified token, or null if the token
+     * is not cached or its entry expired.
+     *
+     * @param token Token
+     * @return Cached details or null
+     */
+    @Nullable UserDetails get(@NotNull String token);
+
+    /**
+     * Remembers provided token as verified.
+     *
+     * @param token Token
+     * @param details User details of the token
+     * @param expiresAt Epoch millis when the token stops being valid, or -1 if unknown
+     */
+    void put(@NotNull String token, @NotNull UserDetails details, long expiresAt);
+
+    /**
+     * Removes provided token from the cache.
+     *
+     * @param token Token
+     */
+    void invalidate(@NotNull String token);
+
+    /**
+     * Removes all tokens of provided users from the cache.
+     *
+     * @param uuids UUIDs of the users
+     */
+    void invalidateUsers(@NotNull Set<String> uuids);
+
+    /**
+     * Removes all tokens from the cache.
+     */
+    void invalidateAll();
+
+}
@@ -0,0 +1,173 @@
+package me.zort.authorization.lib.cache;
+
+import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.permission.PermissionDictionary;
+import me.zort.authorization.lib.permission.PermissionSet;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary form of {@link UserDetails}.
+ * <p>
+ * Layout: format version byte, flags byte (permissions included and presence of
+ * each nullable string), the present strings and finally the permission count
+ * followed by permissions. Lengths and counts are unsigned varints, strings are UTF-8.
+ */
+final class UserDetailsCodec {
+
+    private static final byte VERSION = 1;
+    private static final int PERMISSIONS_INCLUDED = 1;
+    private static final int HAS_UUID = 1 << 1;
+    private static final int HAS_PRIMARY_GROUP = 1 << 2;
+    private static final int HAS_USERNAME = 1 << 3;
+
+    private UserDetailsCodec() {
+    }
+
+    /**
+     * Encodes provided details.
+     *
+     * @param details Details to encode
+     * @return Encoded details, or null if they can't be encoded
+     */
+    static byte @Nullable [] encode(UserDetails details) {
+        List<String> permissions = details.permissions() != null ? details.permissions() : List.of();
+        Writer writer = new Writer(64 + permissions.size() * 24);
+        int flags = (details.permissionsIncluded() ? PERMISSIONS_INCLUDED : 0)
+                | (details.uuid() != null ? HAS_UUID : 0)
+                | (details.primaryGroup() != null ? HAS_PRIMARY_GROUP : 0)
+                | (details.username() != null ? HAS_USERNAME : 0);
+        writer.writeByte(VERSION);
+        writer.writeByte(flags);
+        writer.writeString(details.uuid());
+        writer.writeString(details.primaryGroup());
+        writer.writeString(details.username());
+        writer.writeVarInt(permissions.size());
+        for (String permission : permissions) {
+            if (permission == null) {
+                return null;
+            }
+            writer.writeString(permission);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes details encoded by {@link #encode(UserDetails)}.
+     *
+     * @param data Encoded details
+     * @return Decoded details, or null if the data is of unknown version or corrupted
+     */
+    static @Nullable UserDetails decode(byte[] data) {
+        try {
+            Reader reader = new Reader(data);
+            if (reader.readByte() != VERSION) {
+                return null;
+            }
+            int flags = reader.readByte();
+            String uuid = (flags & HAS_UUID) != 0 ? reader.readString() : null;
+            String primaryGroup = (flags & HAS_PRIMARY_GROUP) != 0 ? reader.readString() : null;
+            String username = (flags & HAS_USERNAME) != 0 ? reader.readString() : null;
+            int count = reader.readCount();
+            PermissionSet.Builder permissions = new PermissionSet.Builder(PermissionDictionary.shared(), count);
+            for (int i = 0; i < count; i++) {
+                permissions.add(reader.readString());
+            }
+            return new UserDetails((flags & PERMISSIONS_INCLUDED) != 0,
+                    permissions.build(), uuid, primaryGroup, username);
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int size;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeString(@Nullable String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data) {
+            this.data = data;
+        }
+
+        private int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IndexOutOfBoundsException("Malformed varint");
+        }
+
+        private int readCount() {
+            int count = readVarInt();
+            // Every element takes at least one byte, which bounds counts of corrupted data.
+            if (count < 0 || count > data.length - position) {
+                throw new IndexOutOfBoundsException("Count out of bounds");
+            }
+            return count;
+        }
+
+        private String readString() {
+            int length = readVarInt();
+            if (length < 0 || length > data.length - position) {
+                throw new IndexOutOfBoundsException("String out of bounds");
+            }
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package me.zort.authorization.lib.circuit;
+
+import com.google.gson.JsonObject;
+import me.zort.authorization.lib.ForwardingHttpProcessor;
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * HTTP processor that stops calling an unhealthy authorization server.
+ * <p>
+ * After provided number of consecutive failures (errors without a response or
+ * 5xx statuses), the circuit opens and all requests fail immediately with
+ * {@link CircuitOpenException}, without occupying threads or connections. Once the
+ * open duration passes, a single trial request is let through. Its success closes
+ * the circuit, its failure keeps it open for another open duration.
+ * <p>
+ * Responses with 4xx statuses mean the server is healthy and never open the circuit.
+ *
+ * @author ZorTik
+ */
+public class CircuitBreakerHttpProcessor extends ForwardingHttpProcessor {
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile long openedAt = -1;
+
+    public CircuitBreakerHttpProcessor(@NotNull HttpProcessor delegate) {
+        this(delegate, 5, Duration.ofSeconds(10));
+    }
+
+    /**
+     * Initializes a new circuit breaker.
+     *
+     * @param delegate Processor performing the requests
+     * @param failureThreshold Number of consecutive failures that opens the circuit
+     * @param openDuration How long the circuit stays open before a trial request
+     */
+    public CircuitBreakerHttpProcessor(@NotNull HttpProcessor delegate, int failureThreshold, @NotNull Duration openDuration) {
+        super(delegate);
+        Objects.requireNonNull(openDuration, "Open duration cannot be null");
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        if (openDuration.isNegative() || openDuration.isZero()) {
+            throw new IllegalArgumentException("Open duration must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+    }
+
+    @Override
+    public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException {
+        return guard(() -> super.perform(relativeUrl, method, headers, body));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable JsonObject> performAsync(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+        return guardAsync(() -> super.performAsync(relativeUrl, method, headers, body));
+    }
+
+    @Override
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        return guard(() -> super.perform(relativeUrl, method, headers, body, reader));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@Nullable T> performAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+        return guardAsync(() -> super.performAsync(relativeUrl, method, headers, body, reader));
+    }
+
+    @Override
+    public <T> @NotNull ConditionalResponse<T> performConditional(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        return guard(() -> super.performConditional(relativeUrl, method, headers, body, etag, reader));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@NotNull ConditionalResponse<T>> performConditionalAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) {
+        return guardAsync(() -> super.performConditionalAsync(relativeUrl, method, headers, body, etag, reader));
+    }
+
+    /**
+     * Returns whether the circuit is currently open, in other words whether
+     * requests are being rejected without reaching the server.
+     *
+     * @return True if the circuit is open
+     */
+    public boolean isOpen() {
+        return openedAt >= 0;
+    }
+
+    private <T> T guard(Supplier<T> request) {
+        boolean trial = acquire();
+        T response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            release(trial, e);
+            throw e;
+        }
+        release(trial, null);
+        return response;
+    }
+
+    private <T> CompletableFuture<T> guardAsync(Supplier<CompletableFuture<T>> request) {
+        boolean trial;
+        try {
+            trial = acquire();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            release(trial, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, error) -> release(trial, error));
+        return future;
+    }
+
+    /**
+     * Lets a request through, or throws if the circuit is open.
+     *
+     * @return True if the request is the trial of a half-open circuit
+     */
+    private boolean acquire() {
+        long opened = openedAt;
+        if (opened < 0) {
+            return false;
+        }
+        if (System.currentTimeMillis() - opened < openMillis || !trialInFlight.compareAndSet(false, true)) {
+            throw new CircuitOpenException();
+        }
+        return true;
+    }
+
+    private void release(boolean trial, @Nullable Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof CancellationException) {
+            // Says nothing about the server.
+            if (trial) {
+                trialInFlight.set(false);
+            }
+            return;
+        }
+        if (!isFailure(error)) {
+            consecutiveFailures.set(0);
+            openedAt = -1;
+        } else if (trial || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.currentTimeMillis();
+        }
+        if (trial) {
+            trialInFlight.set(false);
+        }
+    }
+
+    private static boolean isFailure(@Nullable Throwable error) {
+        if (error == null) {
+            return false;
+        }
+        return !(error instanceof BadStatusException badStatus) || badStatus.getCode() >= 500;
+    }
+
+    public static class CircuitOpenException extends RuntimeException {
+        public CircuitOpenException() {
+            super("Authorization server circuit is open");
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package me.zort.authorization.lib.flight;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent calls with the same key.
+ * While a call is in flight, every other caller with an equal key waits for
+ * and receives the result of that call instead of starting its own. Results
+ * are not remembered once the call completes.
+ *
+ * @param <K> Key type
+ * @param <V> Result type
+ * @author ZorTik
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs provided blocking call, or waits for a call with the same key
+     * that is already in flight.
+     *
+     * @param key Call key
+     * @param call Call to run if there is none in flight
+     * @return Call result
+     */
+    public V call(@NotNull K key, @NotNull Supplier<V> call) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            V result = call.get();
+            created.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Errors as well, waiting callers must never be left hanging.
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    /**
+     * Starts provided asynchronous call, or joins a call with the same key
+     * that is already in flight.
+     *
+     * @param key Call key
+     * @param call Call to start if there is none in flight
+     * @return Future of the call result
+     */
+    public @NotNull CompletableFuture<V> callAsync(@NotNull K key, @NotNull Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            // Copy, so one caller cancelling its future doesn't affect the others.
+            return existing.copy();
+        }
+        try {
+            call.get().whenComplete((result, error) -> {
+                inFlight.remove(key, created);
+                if (error != null) {
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(result);
+                }
+            });
+        } catch (Throwable e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created.copy();
+    }
+
+    /**
+     * Returns the number of calls currently in flight.
+     *
+     * @return Number of calls in flight
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+}
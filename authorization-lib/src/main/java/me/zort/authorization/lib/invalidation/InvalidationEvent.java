@@ -0,0 +1,68 @@
+package me.zort.authorization.lib.invalidation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Notification that cached authorization state is no longer valid.
+ *
+ * @param type What the values identify
+ * @param values Revoked tokens or UUIDs of changed users, empty for {@link Type#ALL}
+ * @author ZorTik
+ */
+public record InvalidationEvent(@NotNull Type type, @NotNull Set<String> values) {
+
+    private static final InvalidationEvent ALL = new InvalidationEvent(Type.ALL, Set.of());
+
+    public InvalidationEvent {
+        Objects.requireNonNull(type, "Type cannot be null");
+        values = Set.copyOf(Objects.requireNonNull(values, "Values cannot be null"));
+    }
+
+    /**
+     * Creates an event revoking provided tokens.
+     *
+     * @param tokens Revoked tokens
+     * @return Event
+     */
+    public static @NotNull InvalidationEvent tokensRevoked(@NotNull Set<String> tokens) {
+        return new InvalidationEvent(Type.TOKENS_REVOKED, tokens);
+    }
+
+    /**
+     * Creates an event notifying about changed details or permissions of provided users.
+     *
+     * @param uuids UUIDs of changed users
+     * @return Event
+     */
+    public static @NotNull InvalidationEvent usersChanged(@NotNull Set<String> uuids) {
+        return new InvalidationEvent(Type.USERS_CHANGED, uuids);
+    }
+
+    /**
+     * Returns an event invalidating everything, used when it's unknown what has changed.
+     *
+     * @return Event
+     */
+    public static @NotNull InvalidationEvent all() {
+        return ALL;
+    }
+
+    public enum Type {
+        /**
+         * Tokens are no longer valid, their verifications are evicted.
+         */
+        TOKENS_REVOKED,
+        /**
+         * Details of users changed, cached details of their tokens are evicted.
+         */
+        USERS_CHANGED,
+        /**
+         * All cached state is evicted.
+         */
+        ALL
+    }
+
+}
@@ -0,0 +1,36 @@
+package me.zort.authorization.lib.invalidation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * Channel pushing {@link InvalidationEvent}s from the authorization server,
+ * so cached verifications can be evicted as soon as they change instead
+ * of waiting for their TTL.
+ * <p>
+ * Implementations must reconnect on their own and deliver {@link InvalidationEvent#all()}
+ * whenever events may have been missed, for example after a lost connection.
+ *
+ * @see ServerSentEventsInvalidationStream
+ * @author ZorTik
+ */
+@FunctionalInterface
+public interface InvalidationStream {
+
+    /**
+     * Starts delivering events to provided listener.
+     *
+     * @param baseUrl Base URL of the authorization server
+     * @param listener Listener of events, called sequentially
+     * @return Subscription, closing it stops the delivery
+     */
+    @NotNull Subscription subscribe(@NotNull String baseUrl, @NotNull Consumer<InvalidationEvent> listener);
+
+    @FunctionalInterface
+    interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+}
@@ -0,0 +1,303 @@
+package me.zort.authorization.lib.invalidation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationStream} reading server-sent events (text/event-stream) from
+ * the authorization server. Each subscription holds one long-lived connection
+ * served by its own daemon thread, lost connections are reestablished with
+ * exponential backoff, sending {@code Last-Event-ID} of the last received event.
+ * <p>
+ * Recognized events carry one value per {@code data} line, so a single event
+ * can invalidate many entries at once:
+ * <pre>
+ *     event: tokens-revoked
+ *     data: eyJhbGciOi...
+ *     data: eyJhbGciOi...
+ *
+ *     event: users-changed
+ *     data: 5f0c3e1a-...
+ *
+ *     event: reset
+ * </pre>
+ * Other events are ignored. Since events published while disconnected are lost,
+ * {@link InvalidationEvent#all()} is delivered whenever a connection is established,
+ * including the first one, as verifications may have been cached while the server
+ * was unreachable or before the connection was made.
+ *
+ * @author ZorTik
+ */
+public final class ServerSentEventsInvalidationStream implements InvalidationStream {
+
+    public static final String TOKENS_REVOKED_EVENT = "tokens-revoked";
+    public static final String USERS_CHANGED_EVENT = "users-changed";
+    public static final String RESET_EVENT = "reset";
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 30_000;
+
+    private final String relativeUrl;
+    private final HttpClient client;
+    private final Map<String, String> headers;
+    private final long reconnectDelayMillis;
+
+    /**
+     * Initializes a stream reading events from provided path.
+     *
+     * @param relativeUrl Path of the event stream, relative to the server base URL
+     */
+    public ServerSentEventsInvalidationStream(@NotNull String relativeUrl) {
+        this(new Builder().url(relativeUrl));
+    }
+
+    private ServerSentEventsInvalidationStream(Builder builder) {
+        Objects.requireNonNull(builder.relativeUrl, "URL cannot be null");
+        this.relativeUrl = builder.relativeUrl;
+        this.client = builder.client != null ? builder.client : HttpClient.newHttpClient();
+        this.headers = Map.copyOf(builder.headers);
+        this.reconnectDelayMillis = builder.reconnectDelay.toMillis();
+    }
+
+    @Override
+    public @NotNull Subscription subscribe(@NotNull String baseUrl, @NotNull Consumer<InvalidationEvent> listener) {
+        Objects.requireNonNull(baseUrl, "Base URL cannot be null");
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        Connection connection = new Connection(URI.create(baseUrl + relativeUrl), listener);
+        connection.thread.start();
+        return connection;
+    }
+
+    private final class Connection implements Subscription, Runnable {
+        private final URI uri;
+        private final Consumer<InvalidationEvent> listener;
+        private final Thread thread;
+        private volatile boolean closed = false;
+        private volatile InputStream stream;
+        private @Nullable String lastEventId = null;
+        private long retryMillis = reconnectDelayMillis;
+
+        private Connection(URI uri, Consumer<InvalidationEvent> listener) {
+            this.uri = uri;
+            this.listener = listener;
+            this.thread = new Thread(this, "ketchup-invalidation-stream");
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long delay = retryMillis;
+            while (!closed) {
+                try {
+                    if (connect()) {
+                        delay = retryMillis;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Reconnected below, the thread must outlive any single connection.
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                delay = Math.min(delay * 2, Math.max(MAX_RECONNECT_DELAY_MILLIS, retryMillis));
+            }
+        }
+
+        // Returns whether the connection was established.
+        private boolean connect() throws IOException, InterruptedException {
+            HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                    .header("Accept", "text/event-stream")
+                    .header("Cache-Control", "no-cache");
+            headers.forEach(request::header);
+            if (lastEventId != null) {
+                request.header("Last-Event-ID", lastEventId);
+            }
+            HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    return false;
+                }
+                stream = body;
+                if (closed) {
+                    return true;
+                }
+                dispatch(InvalidationEvent.all());
+                read(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+                return true;
+            } finally {
+                stream = null;
+            }
+        }
+
+        private void read(BufferedReader reader) throws IOException {
+            String event = null;
+            Set<String> values = new HashSet<>();
+            String line;
+            while (!closed && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    InvalidationEvent parsed = parse(event, values);
+                    if (parsed != null) {
+                        dispatch(parsed);
+                    }
+                    event = null;
+                    values = new HashSet<>();
+                    continue;
+                }
+                if (line.charAt(0) == ':') {
+                    continue; // Comment, usually a keep-alive.
+                }
+                int colon = line.indexOf(':');
+                String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : line.substring(line.startsWith(" ", colon + 1) ? colon + 2 : colon + 1);
+                switch (field) {
+                    case "event" -> event = value;
+                    case "data" -> {
+                        if (!value.isEmpty()) {
+                            values.add(value);
+                        }
+                    }
+                    case "id" -> {
+                        if (value.indexOf('\0') < 0) {
+                            lastEventId = value;
+                        }
+                    }
+                    case "retry" -> {
+                        // Fields not consisting of ASCII digits only are ignored by the specification.
+                        if (!value.isEmpty() && value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                            try {
+                                // Never retry faster than configured, so a server can't make clients spin.
+                                retryMillis = Math.max(reconnectDelayMillis, Long.parseLong(value));
+                            } catch (NumberFormatException ignored) {
+                                // Out of range.
+                            }
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private @Nullable InvalidationEvent parse(@Nullable String event, Set<String> values) {
+            if (event == null) {
+                return null;
+            }
+            return switch (event) {
+                case TOKENS_REVOKED_EVENT -> values.isEmpty() ? null : InvalidationEvent.tokensRevoked(values);
+                case USERS_CHANGED_EVENT -> values.isEmpty() ? null : InvalidationEvent.usersChanged(values);
+                case RESET_EVENT -> InvalidationEvent.all();
+                default -> null;
+            };
+        }
+
+        private void dispatch(InvalidationEvent event) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                // A failing listener must not stop the stream.
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            InputStream stream = this.stream;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                    // Closing only unblocks the reading thread.
+                }
+            }
+            thread.interrupt();
+        }
+    }
+
+    public static class Builder {
+        private String relativeUrl = null;
+        private HttpClient client = null;
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private Duration reconnectDelay = Duration.ofSeconds(1);
+
+        /**
+         * Sets the path of the event stream, relative to the server base URL.
+         *
+         * @param relativeUrl Event stream path
+         * @return This builder
+         */
+        public @NotNull Builder url(@NotNull String relativeUrl) {
+            Objects.requireNonNull(relativeUrl, "URL cannot be null");
+            this.relativeUrl = relativeUrl;
+            return this;
+        }
+
+        /**
+         * Sets the client opening the connection, a new default client is used otherwise.
+         *
+         * @param client Client to use
+         * @return This builder
+         */
+        public @NotNull Builder client(@NotNull HttpClient client) {
+            Objects.requireNonNull(client, "Client cannot be null");
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Adds a header sent when connecting, for example to authenticate the subscriber.
+         *
+         * @param name Header name
+         * @param value Header value
+         * @return This builder
+         */
+        public @NotNull Builder header(@NotNull String name, @NotNull String value) {
+            Objects.requireNonNull(name, "Header name cannot be null");
+            Objects.requireNonNull(value, "Header value cannot be null");
+            this.headers.put(name, value);
+            return this;
+        }
+
+        /**
+         * Sets the initial delay before reconnecting, doubled after each failed attempt
+         * up to 30 seconds. Defaults to one second, the server may raise it using
+         * the {@code retry} field.
+         *
+         * @param reconnectDelay Initial reconnect delay
+         * @return This builder
+         */
+        public @NotNull Builder reconnectDelay(@NotNull Duration reconnectDelay) {
+            Objects.requireNonNull(reconnectDelay, "Reconnect delay cannot be null");
+            if (reconnectDelay.isNegative() || reconnectDelay.isZero()) {
+                throw new IllegalArgumentException("Reconnect delay must be positive");
+            }
+            this.reconnectDelay = reconnectDelay;
+            return this;
+        }
+
+        public @NotNull ServerSentEventsInvalidationStream build() {
+            return new ServerSentEventsInvalidationStream(this);
+        }
+    }
+
+}
@@ -0,0 +1,333 @@
+package me.zort.authorization.lib.jdk;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * {@link HttpProcessor} backed by the JDK's {@link HttpClient}.
+ * Prefers HTTP/2, so concurrent requests to the authorization server are multiplexed
+ * over a single connection, with HTTP/1.1 used as a fallback when the server doesn't
+ * support it.
+ * <pre>
+ *     HttpProcessor processor = new JdkHttpProcessor.Builder()
+ *             .connectTimeout(Duration.ofSeconds(2))
+ *             .requestTimeout(Duration.ofSeconds(5))
+ *             .virtualThreads()
+ *             .build();
+ * </pre>
+ *
+ * @author ZorTik
+ */
+public class JdkHttpProcessor extends HttpProcessor implements AutoCloseable {
+
+    private final HttpClient client;
+    private final @Nullable Duration requestTimeout;
+    private final @Nullable ExecutorService ownedExecutor;
+
+    public JdkHttpProcessor() {
+        this(new Builder());
+    }
+
+    /**
+     * Creates a processor using provided, already configured client.
+     *
+     * @param client Client to send requests with
+     * @param requestTimeout Deadline for each request to complete (optional)
+     */
+    public JdkHttpProcessor(@NotNull HttpClient client, @Nullable Duration requestTimeout) {
+        Objects.requireNonNull(client, "Client cannot be null");
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+        this.ownedExecutor = null;
+    }
+
+    private JdkHttpProcessor(Builder builder) {
+        HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                .version(builder.version)
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (builder.connectTimeout != null) {
+            clientBuilder.connectTimeout(builder.connectTimeout);
+        }
+        if (builder.virtualThreads) {
+            this.ownedExecutor = newVirtualThreadExecutor();
+            clientBuilder.executor(ownedExecutor);
+        } else {
+            this.ownedExecutor = null;
+            if (builder.executor != null) {
+                clientBuilder.executor(builder.executor);
+            }
+        }
+        this.client = clientBuilder.build();
+        this.requestTimeout = builder.requestTimeout;
+    }
+
+    @Override
+    public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException {
+        return perform(relativeUrl, method, headers, encode(body), JdkHttpProcessor::readTree);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable JsonObject> performAsync(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+        return performAsync(relativeUrl, method, headers, encode(body), JdkHttpProcessor::readTree);
+    }
+
+    @Override
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        HttpResponse<InputStream> response = send(buildRequest(relativeUrl, method, headers, null, body));
+        try {
+            return readResponse(response, response.body(), reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@Nullable T> performAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+        HttpRequest request;
+        try {
+            request = buildRequest(relativeUrl, method, headers, null, body);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // Responses are small, buffering them keeps the client's threads from blocking on the stream.
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            try {
+                return readResponse(response, new ByteArrayInputStream(response.body()), reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public <T> @NotNull ConditionalResponse<T> performConditional(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        HttpResponse<InputStream> response = send(buildRequest(relativeUrl, method, headers, etag, body));
+        try {
+            return readConditionalResponse(response, response.body(), reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@NotNull ConditionalResponse<T>> performConditionalAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) {
+        HttpRequest request;
+        try {
+            request = buildRequest(relativeUrl, method, headers, etag, body);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            try {
+                return readConditionalResponse(response, new ByteArrayInputStream(response.body()), reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Shuts down the virtual thread executor if this processor created one.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private HttpRequest buildRequest(String relativeUrl, String method, Map<String, String> headers, @Nullable String etag, byte @Nullable [] body) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(URI.create(getBaseUrl() + relativeUrl));
+        requestBuilder.setHeader("Content-Type", "application/json");
+        // Unlike OkHttp, the JDK client doesn't negotiate compression by itself.
+        requestBuilder.setHeader("Accept-Encoding", "gzip");
+        if (requestTimeout != null) {
+            requestBuilder.timeout(requestTimeout);
+        }
+        // Replacing, so headers supplied by the caller are never sent twice.
+        if (headers != null) {
+            headers.forEach(requestBuilder::setHeader);
+        }
+        if (etag != null) {
+            requestBuilder.setHeader("If-None-Match", etag);
+        }
+        // Same semantics as OkHttpProcessor, requests without a body are sent as GET.
+        if (body != null) {
+            requestBuilder.method(method.toUpperCase(), HttpRequest.BodyPublishers.ofByteArray(body));
+        }
+        return requestBuilder.build();
+    }
+
+    private static <T> @Nullable T readResponse(HttpResponse<?> response, InputStream body, ResponseReader<T> reader) throws IOException {
+        try (InputStream stream = body) {
+            if (response.statusCode() != 200) {
+                throw new BadStatusException(response.statusCode());
+            }
+            return reader.read(new JsonReader(new InputStreamReader(decode(response, stream), StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static <T> ConditionalResponse<T> readConditionalResponse(HttpResponse<?> response, InputStream body, ResponseReader<T> reader) throws IOException {
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        if (response.statusCode() == 304) {
+            body.close();
+            return ConditionalResponse.notModified(etag);
+        }
+        return ConditionalResponse.modified(readResponse(response, body, reader), etag);
+    }
+
+    private static InputStream decode(HttpResponse<?> response, InputStream body) throws IOException {
+        if (response.headers().firstValue("Content-Encoding")
+                .filter("gzip"::equalsIgnoreCase)
+                .isPresent()) {
+            return new GZIPInputStream(body);
+        }
+        return body;
+    }
+
+    private static byte @Nullable [] encode(@Nullable JsonObject body) {
+        return body != null ? body.toString().getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static JsonObject readTree(JsonReader reader) {
+        return JsonParser.parseReader(reader).getAsJsonObject();
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) virtualThreadExecutorFactory().invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+
+    private static Method virtualThreadExecutorFactory() {
+        // Looked up reflectively, so the library keeps running on Java 17.
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or newer", e);
+        }
+    }
+
+    public static class Builder {
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = null;
+        private Duration requestTimeout = null;
+        private Executor executor = null;
+        private boolean virtualThreads = false;
+
+        /**
+         * Sets the preferred HTTP version, defaults to {@link HttpClient.Version#HTTP_2}.
+         *
+         * @param version Preferred version
+         * @return This builder
+         */
+        public @NotNull Builder version(@NotNull HttpClient.Version version) {
+            Objects.requireNonNull(version, "Version cannot be null");
+            this.version = version;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for a connection to be established.
+         *
+         * @param connectTimeout Connect timeout
+         * @return This builder
+         */
+        public @NotNull Builder connectTimeout(@NotNull Duration connectTimeout) {
+            this.connectTimeout = requirePositive(connectTimeout, "Connect timeout");
+            return this;
+        }
+
+        /**
+         * Sets the maximum time to wait for a response, after which the request
+         * fails with {@link java.net.http.HttpTimeoutException}.
+         *
+         * @param requestTimeout Request timeout
+         * @return This builder
+         */
+        public @NotNull Builder requestTimeout(@NotNull Duration requestTimeout) {
+            this.requestTimeout = requirePositive(requestTimeout, "Request timeout");
+            return this;
+        }
+
+        /**
+         * Sets the executor running the client's asynchronous tasks
+         * and dependent completion stages.
+         *
+         * @param executor Executor to use
+         * @return This builder
+         */
+        public @NotNull Builder executor(@NotNull Executor executor) {
+            Objects.requireNonNull(executor, "Executor cannot be null");
+            this.executor = executor;
+            this.virtualThreads = false;
+            return this;
+        }
+
+        /**
+         * Runs the client's tasks on a new virtual thread per task executor,
+         * which is shut down by {@link JdkHttpProcessor#close()}.
+         * Requires Java 21 or newer at runtime.
+         *
+         * @return This builder
+         * @throws UnsupportedOperationException When running on Java older than 21
+         */
+        public @NotNull Builder virtualThreads() {
+            virtualThreadExecutorFactory();
+            this.virtualThreads = true;
+            this.executor = null;
+            return this;
+        }
+
+        public @NotNull JdkHttpProcessor build() {
+            return new JdkHttpProcessor(this);
+        }
+
+        private static Duration requirePositive(Duration duration, String name) {
+            Objects.requireNonNull(duration, name + " cannot be null");
+            if (duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + " must be positive");
+            }
+            return duration;
+        }
+    }
+
+}
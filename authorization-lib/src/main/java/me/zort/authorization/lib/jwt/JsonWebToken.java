@@ -0,0 +1,167 @@
+package me.zort.authorization.lib.jwt;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Decoded, <b>unverified</b> view of a compact serialized JWT.
+ * Nothing in this record proves that the token is genuine, it only exposes
+ * what the token claims about itself.
+ *
+ * @param header Decoded JOSE header
+ * @param payload Decoded claims
+ * @param signingInput Encoded header and payload the signature was computed over
+ * @param signature Raw signature bytes
+ * @author ZorTik
+ */
+public record JsonWebToken(
+        @NotNull JsonObject header,
+        @NotNull JsonObject payload,
+        @NotNull String signingInput,
+        byte @NotNull [] signature
+) {
+
+    // Far above any real token, requests can't carry much longer headers anyway.
+    private static final int MAX_TOKEN_LENGTH = 16 * 1024;
+    // Bitmap of ASCII characters of the base64url alphabet, indexed by character.
+    private static final long[] BASE64_URL_ALPHABET = new long[2];
+
+    static {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            char c = alphabet.charAt(i);
+            BASE64_URL_ALPHABET[c >>> 6] |= 1L << c;
+        }
+    }
+
+    /**
+     * Decodes provided token without verifying its signature.
+     *
+     * @param token Compact serialized JWT
+     * @return Decoded token, or null if the token is not a well-formed JWT
+     */
+    public static @Nullable JsonWebToken decode(@NotNull String token) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+        try {
+            JsonObject header = decodeSegment(token.substring(0, firstDot));
+            JsonObject payload = decodeSegment(token.substring(firstDot + 1, secondDot));
+            if (header == null || payload == null) {
+                return null;
+            }
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(secondDot + 1));
+            return new JsonWebToken(header, payload, token.substring(0, secondDot), signature);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether provided token has the structure of a compact serialized JWT,
+     * without decoding it: three non-empty base64url segments of valid lengths, with
+     * the header and payload encoding JSON objects. Cheap enough to reject garbage
+     * before any other work is done with it.
+     *
+     * @param token Token to check
+     * @return True if the token may be a JWT, false if it certainly isn't one
+     */
+    public static boolean isWellFormed(@NotNull String token) {
+        int length = token.length();
+        if (length > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        int segments = 0;
+        int segmentStart = 0;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? token.charAt(i) : '.';
+            if (c == '.') {
+                int segmentLength = i - segmentStart;
+                // A segment is never empty and one base64 character can't encode a byte on its own.
+                if (segmentLength == 0 || segmentLength % 4 == 1 || ++segments > 3) {
+                    return false;
+                }
+                // Header and payload are JSON objects, '{' always encodes to 'e'.
+                if (segments < 3 && token.charAt(segmentStart) != 'e') {
+                    return false;
+                }
+                segmentStart = i + 1;
+            } else if (!isBase64Url(c)) {
+                return false;
+            }
+        }
+        return segments == 3;
+    }
+
+    /**
+     * Returns the expiration time of this token in epoch millis,
+     * or -1 if the token does not contain the {@code exp} claim.
+     *
+     * @return Expiration time
+     */
+    public long expiresAt() {
+        JsonElement exp = payload.get("exp");
+        if (exp == null || !exp.isJsonPrimitive() || !exp.getAsJsonPrimitive().isNumber()) {
+            return -1;
+        }
+        return exp.getAsLong() * 1000L;
+    }
+
+    /**
+     * Returns the signing algorithm declared in the header ({@code alg}),
+     * or null if not present.
+     *
+     * @return Algorithm name
+     */
+    public @Nullable String algorithm() {
+        return stringHeader("alg");
+    }
+
+    /**
+     * Returns the ID of the key the token was signed with ({@code kid}),
+     * or null if not present.
+     *
+     * @return Key ID
+     */
+    public @Nullable String keyId() {
+        return stringHeader("kid");
+    }
+
+    /**
+     * Returns the time before which this token must not be accepted in epoch
+     * millis, or -1 if the token does not contain the {@code nbf} claim.
+     *
+     * @return Not-before time
+     */
+    public long notBefore() {
+        JsonElement nbf = payload.get("nbf");
+        if (nbf == null || !nbf.isJsonPrimitive() || !nbf.getAsJsonPrimitive().isNumber()) {
+            return -1;
+        }
+        return nbf.getAsLong() * 1000L;
+    }
+
+    private static boolean isBase64Url(char c) {
+        return c < 128 && (BASE64_URL_ALPHABET[c >>> 6] & (1L << c)) != 0;
+    }
+
+    private @Nullable String stringHeader(String name) {
+        JsonElement element = header.get(name);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    private static @Nullable JsonObject decodeSegment(String segment) {
+        byte[] json = Base64.getUrlDecoder().decode(segment);
+        JsonElement element = JsonParser.parseString(new String(json, StandardCharsets.UTF_8));
+        return element.isJsonObject() ? element.getAsJsonObject() : null;
+    }
+
+}
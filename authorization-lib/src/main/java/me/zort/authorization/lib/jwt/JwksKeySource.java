@@ -0,0 +1,90 @@
+package me.zort.authorization.lib.jwt;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import lombok.RequiredArgsConstructor;
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.*;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Key source reading a JWK set (RFC 7517) from the authorization server.
+ * Only RSA and EC signing keys are taken into account, other keys are skipped.
+ *
+ * @author ZorTik
+ */
+@RequiredArgsConstructor
+final class JwksKeySource implements KeySource {
+
+    private final String relativeUrl;
+
+    @Override
+    public @NotNull Map<String, PublicKey> load(HttpProcessor processor) throws GeneralSecurityException {
+        JsonObject response = processor.perform(relativeUrl, "GET", Collections.emptyMap(), null);
+        if (response == null || !response.has("keys")) {
+            throw new IllegalStateException("Response does not contain a JWK set");
+        }
+        Map<String, PublicKey> keys = new HashMap<>();
+        for (JsonElement element : response.getAsJsonArray("keys")) {
+            JsonObject jwk = element.getAsJsonObject();
+            if (jwk.has("use") && !"sig".equals(jwk.get("use").getAsString())) {
+                continue;
+            }
+            PublicKey key = parseKey(jwk);
+            if (key != null) {
+                keys.put(jwk.has("kid") ? jwk.get("kid").getAsString() : "", key);
+            }
+        }
+        return keys;
+    }
+
+    private static @Nullable PublicKey parseKey(JsonObject jwk) throws GeneralSecurityException {
+        String type = jwk.has("kty") ? jwk.get("kty").getAsString() : "";
+        switch (type) {
+            case "RSA" -> {
+                RSAPublicKeySpec spec = new RSAPublicKeySpec(
+                        unsigned(jwk.get("n").getAsString()),
+                        unsigned(jwk.get("e").getAsString())
+                );
+                return KeyFactory.getInstance("RSA").generatePublic(spec);
+            }
+            case "EC" -> {
+                String curve = switch (jwk.get("crv").getAsString()) {
+                    case "P-256" -> "secp256r1";
+                    case "P-384" -> "secp384r1";
+                    case "P-521" -> "secp521r1";
+                    default -> null;
+                };
+                if (curve == null) {
+                    return null;
+                }
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec(curve));
+                ECPublicKeySpec spec = new ECPublicKeySpec(
+                        new ECPoint(unsigned(jwk.get("x").getAsString()), unsigned(jwk.get("y").getAsString())),
+                        parameters.getParameterSpec(ECParameterSpec.class)
+                );
+                return KeyFactory.getInstance("EC").generatePublic(spec);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private static BigInteger unsigned(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+
+}
@@ -0,0 +1,216 @@
+package me.zort.authorization.lib.jwt;
+
+import com.google.gson.JsonElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Verifies JWT signatures and time claims locally against a set of public keys.
+ * Supported algorithms are RS256, RS384, RS512, ES256, ES384 and ES512.
+ *
+ * @author ZorTik
+ */
+public final class JwtVerifier {
+
+    private final long clockSkewMillis;
+    private final @Nullable String issuer;
+    private final @Nullable String audience;
+    private final boolean requireExpiration;
+    private volatile Map<String, PublicKey> keys = Map.of();
+
+    /**
+     * Initializes a new verifier rejecting tokens without the {@code exp} claim.
+     *
+     * @param clockSkew Tolerance applied to {@code exp} and {@code nbf} claims
+     * @param issuer Required {@code iss} claim, or null to accept any issuer
+     * @param audience Required {@code aud} claim, or null to accept any audience
+     */
+    public JwtVerifier(@NotNull Duration clockSkew, @Nullable String issuer, @Nullable String audience) {
+        this(clockSkew, issuer, audience, true);
+    }
+
+    /**
+     * Initializes a new verifier.
+     *
+     * @param clockSkew Tolerance applied to {@code exp} and {@code nbf} claims
+     * @param issuer Required {@code iss} claim, or null to accept any issuer
+     * @param audience Required {@code aud} claim, or null to accept any audience
+     * @param requireExpiration False to accept tokens without the {@code exp} claim,
+     *                          which then stay valid for as long as their key is trusted
+     */
+    public JwtVerifier(@NotNull Duration clockSkew, @Nullable String issuer, @Nullable String audience, boolean requireExpiration) {
+        Objects.requireNonNull(clockSkew, "Clock skew cannot be null");
+        this.clockSkewMillis = clockSkew.toMillis();
+        this.issuer = issuer;
+        this.audience = audience;
+        this.requireExpiration = requireExpiration;
+    }
+
+    /**
+     * Replaces the set of keys tokens are verified against.
+     *
+     * @param keys Keys mapped by their key ID
+     */
+    public void setKeys(@NotNull Map<String, PublicKey> keys) {
+        this.keys = Map.copyOf(keys);
+    }
+
+    /**
+     * Checks signature and claims of provided token.
+     *
+     * @param token Decoded token
+     * @return Verification result
+     */
+    public @NotNull Result verify(@NotNull JsonWebToken token) {
+        String keyId = token.keyId();
+        PublicKey key = keys.get(keyId != null ? keyId : "");
+        if (key == null) {
+            return Result.UNKNOWN_KEY;
+        }
+        if (!verifySignature(token, key) || !verifyClaims(token)) {
+            return Result.INVALID;
+        }
+        return Result.VALID;
+    }
+
+    private boolean verifyClaims(JsonWebToken token) {
+        long now = System.currentTimeMillis();
+        long expiresAt = token.expiresAt();
+        if (expiresAt < 0 && requireExpiration) {
+            return false;
+        }
+        if (expiresAt >= 0 && now - clockSkewMillis >= expiresAt) {
+            return false;
+        }
+        long notBefore = token.notBefore();
+        if (notBefore >= 0 && now + clockSkewMillis < notBefore) {
+            return false;
+        }
+        if (issuer != null && !issuer.equals(stringClaim(token, "iss"))) {
+            return false;
+        }
+        return audience == null || hasAudience(token);
+    }
+
+    private boolean hasAudience(JsonWebToken token) {
+        JsonElement aud = token.payload().get("aud");
+        if (aud == null || aud.isJsonNull()) {
+            return false;
+        }
+        if (aud.isJsonArray()) {
+            for (JsonElement element : aud.getAsJsonArray()) {
+                if (element.isJsonPrimitive() && audience.equals(element.getAsString())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return aud.isJsonPrimitive() && audience.equals(aud.getAsString());
+    }
+
+    private static boolean verifySignature(JsonWebToken token, PublicKey key) {
+        String algorithm = token.algorithm();
+        if (algorithm == null) {
+            return false;
+        }
+        try {
+            byte[] signature = token.signature();
+            String jcaName;
+            switch (algorithm) {
+                case "RS256", "RS384", "RS512" -> {
+                    if (!(key instanceof RSAPublicKey)) {
+                        return false;
+                    }
+                    jcaName = "SHA" + algorithm.substring(2) + "withRSA";
+                }
+                case "ES256", "ES384", "ES512" -> {
+                    if (!(key instanceof ECPublicKey)) {
+                        return false;
+                    }
+                    jcaName = "SHA" + algorithm.substring(2) + "withECDSA";
+                    signature = concatToDer(signature);
+                    if (signature == null) {
+                        return false;
+                    }
+                }
+                default -> {
+                    // Symmetric and "none" algorithms can never be verified with a public key.
+                    return false;
+                }
+            }
+            Signature verifier = Signature.getInstance(jcaName);
+            verifier.initVerify(key);
+            verifier.update(token.signingInput().getBytes(StandardCharsets.US_ASCII));
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    // JWS encodes ECDSA signatures as R || S, while JCA expects an ASN.1 DER sequence.
+    private static byte @Nullable [] concatToDer(byte[] signature) {
+        if (signature.length == 0 || signature.length % 2 != 0) {
+            return null;
+        }
+        int half = signature.length / 2;
+        byte[] r = derInteger(signature, 0, half);
+        byte[] s = derInteger(signature, half, half);
+        int contentLength = r.length + s.length;
+        ByteArrayOutputStream der = new ByteArrayOutputStream(contentLength + 3);
+        der.write(0x30);
+        if (contentLength >= 128) {
+            der.write(0x81);
+        }
+        der.write(contentLength);
+        der.writeBytes(r);
+        der.writeBytes(s);
+        return der.toByteArray();
+    }
+
+    private static byte[] derInteger(byte[] source, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end - 1 && source[start] == 0) {
+            start++;
+        }
+        boolean padded = (source[start] & 0x80) != 0;
+        int valueLength = end - start + (padded ? 1 : 0);
+        byte[] integer = new byte[valueLength + 2];
+        integer[0] = 0x02;
+        integer[1] = (byte) valueLength;
+        System.arraycopy(source, start, integer, 2 + (padded ? 1 : 0), end - start);
+        return integer;
+    }
+
+    private static @Nullable String stringClaim(JsonWebToken token, String name) {
+        JsonElement element = token.payload().get(name);
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    public enum Result {
+        /**
+         * Signature and claims are valid.
+         */
+        VALID,
+        /**
+         * Signature or claims are not valid.
+         */
+        INVALID,
+        /**
+         * Token was signed with a key that is not known to this verifier.
+         */
+        UNKNOWN_KEY
+    }
+
+}
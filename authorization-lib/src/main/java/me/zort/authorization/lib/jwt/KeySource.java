@@ -0,0 +1,54 @@
+package me.zort.authorization.lib.jwt;
+
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
+
+import java.security.PublicKey;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Source of public keys used to verify token signatures locally.
+ * Keys are mapped by their key ID ({@code kid}). A key registered under
+ * an empty ID is used for tokens that don't declare any key ID.
+ *
+ * @author ZorTik
+ */
+@FunctionalInterface
+public interface KeySource {
+
+    /**
+     * Loads current set of public keys.
+     *
+     * @param processor HTTP processor assigned to the authorization client
+     * @return Keys mapped by their key ID
+     * @throws Exception When the keys could not be loaded
+     */
+    @NotNull Map<String, PublicKey> load(HttpProcessor processor) throws Exception;
+
+    /**
+     * Creates a source that always provides single static key.
+     *
+     * @param keyId Key ID, or empty string for tokens without {@code kid}
+     * @param key Public key
+     * @return Key source
+     */
+    static @NotNull KeySource of(@NotNull String keyId, @NotNull PublicKey key) {
+        Objects.requireNonNull(keyId, "Key ID cannot be null");
+        Objects.requireNonNull(key, "Key cannot be null");
+        Map<String, PublicKey> keys = Map.of(keyId, key);
+        return processor -> keys;
+    }
+
+    /**
+     * Creates a source that loads a JWK set from provided path
+     * on the authorization server.
+     *
+     * @param relativeUrl Path to the JWK set, relative to the server base URL
+     * @return Key source
+     */
+    static @NotNull KeySource jwks(@NotNull String relativeUrl) {
+        return new JwksKeySource(relativeUrl);
+    }
+
+}
@@ -0,0 +1,80 @@
+package me.zort.authorization.lib.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives measurements of the authorization client.
+ * All methods are no-op by default, so implementations override only what they
+ * need. Methods are called on the threads performing the measured work and must
+ * not block.
+ * <p>
+ * When no metrics are configured, {@link #NOOP} is used and the client doesn't
+ * take any measurements at all.
+ *
+ * @see MicrometerAuthorizationMetrics
+ * @author ZorTik
+ */
+public interface AuthorizationMetrics {
+
+    AuthorizationMetrics NOOP = new AuthorizationMetrics() { };
+
+    /**
+     * Status reported for requests that failed without a response, for example on I/O errors.
+     */
+    int STATUS_FAILED = -1;
+
+    /**
+     * Name of the cache holding successful token verifications.
+     */
+    String VERIFICATION_CACHE = "verification";
+
+    /**
+     * Name of the second level cache, see {@link me.zort.authorization.lib.cache.SecondLevelCache}.
+     */
+    String SECOND_LEVEL_CACHE = "second-level";
+
+    /**
+     * Name of the cache of rejected tokens, a hit means the token was rejected locally.
+     */
+    String REJECTION_CACHE = "rejection";
+
+    /**
+     * Called when a request to the authorization server completes.
+     *
+     * @param method HTTP method
+     * @param endpoint Relative URL of the request, without query
+     * @param status Response status code, or {@link #STATUS_FAILED}
+     * @param durationNanos Duration of the request
+     */
+    default void requestCompleted(@NotNull String method, @NotNull String endpoint, int status, long durationNanos) {
+    }
+
+    /**
+     * Called when a session refresh completes.
+     *
+     * @param success Whether the session is authorized after the refresh
+     */
+    default void refreshCompleted(boolean success) {
+    }
+
+    /**
+     * Called on every lookup of a client side cache.
+     *
+     * @param cache Name of the cache, for example {@link #VERIFICATION_CACHE}
+     * @param hit Whether the lookup found a usable entry
+     */
+    default void cacheAccess(@NotNull String cache, boolean hit) {
+    }
+
+    /**
+     * Called when an authorization filter finishes authenticating a request,
+     * before the rest of the filter chain runs.
+     *
+     * @param filter Name of the filter
+     * @param authenticated Whether the request was authenticated
+     * @param durationNanos Time spent in the filter
+     */
+    default void filterCompleted(@NotNull String filter, boolean authenticated, long durationNanos) {
+    }
+
+}
@@ -0,0 +1,106 @@
+package me.zort.authorization.lib.metrics;
+
+import com.google.gson.JsonObject;
+import me.zort.authorization.lib.ForwardingHttpProcessor;
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * HTTP processor reporting latency and status of every request
+ * to {@link AuthorizationMetrics}.
+ *
+ * @author ZorTik
+ */
+public class InstrumentedHttpProcessor extends ForwardingHttpProcessor {
+
+    private final AuthorizationMetrics metrics;
+
+    public InstrumentedHttpProcessor(@NotNull HttpProcessor delegate, @NotNull AuthorizationMetrics metrics) {
+        super(delegate);
+        Objects.requireNonNull(metrics, "Metrics cannot be null");
+        this.metrics = metrics;
+    }
+
+    @Override
+    public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException {
+        return measure(relativeUrl, method, () -> super.perform(relativeUrl, method, headers, body));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable JsonObject> performAsync(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+        return measureAsync(relativeUrl, method, () -> super.performAsync(relativeUrl, method, headers, body));
+    }
+
+    @Override
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        return measure(relativeUrl, method, () -> super.perform(relativeUrl, method, headers, body, reader));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@Nullable T> performAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+        return measureAsync(relativeUrl, method, () -> super.performAsync(relativeUrl, method, headers, body, reader));
+    }
+
+    @Override
+    public <T> @NotNull ConditionalResponse<T> performConditional(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        return measure(relativeUrl, method, () -> super.performConditional(relativeUrl, method, headers, body, etag, reader));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@NotNull ConditionalResponse<T>> performConditionalAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) {
+        return measureAsync(relativeUrl, method, () -> super.performConditionalAsync(relativeUrl, method, headers, body, etag, reader));
+    }
+
+    private <T> T measure(String relativeUrl, String method, Supplier<T> request) {
+        long start = System.nanoTime();
+        int status = 200;
+        try {
+            T response = request.get();
+            status = responseStatus(response);
+            return response;
+        } catch (RuntimeException e) {
+            status = status(e);
+            throw e;
+        } finally {
+            metrics.requestCompleted(method, endpoint(relativeUrl), status, System.nanoTime() - start);
+        }
+    }
+
+    private <T> CompletableFuture<T> measureAsync(String relativeUrl, String method, Supplier<CompletableFuture<T>> request) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            metrics.requestCompleted(method, endpoint(relativeUrl), status(e), System.nanoTime() - start);
+            throw e;
+        }
+        // Original future is returned, so cancelling it still reaches the delegate.
+        future.whenComplete((response, error) -> metrics.requestCompleted(
+                method, endpoint(relativeUrl), error != null ? status(error) : responseStatus(response), System.nanoTime() - start));
+        return future;
+    }
+
+    private static int responseStatus(@Nullable Object response) {
+        return response instanceof ConditionalResponse<?> conditional && conditional.notModified() ? 304 : 200;
+    }
+
+    private static int status(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof BadStatusException badStatus ? badStatus.getCode() : AuthorizationMetrics.STATUS_FAILED;
+    }
+
+    private static String endpoint(String relativeUrl) {
+        int query = relativeUrl.indexOf('?');
+        return query >= 0 ? relativeUrl.substring(0, query) : relativeUrl;
+    }
+}
@@ -0,0 +1,85 @@
+package me.zort.authorization.lib.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AuthorizationMetrics} recording into a Micrometer {@link MeterRegistry}.
+ * Micrometer is an optional dependency, it must be present on the classpath to use this class.
+ * <p>
+ * Recorded meters (with the default prefix):
+ * <ul>
+ *     <li>{@code ketchup.authorization.requests} - timer with percentile histogram,
+ *     tagged by {@code method}, {@code endpoint} and {@code status}. Its count per status
+ *     tag serves as the status code counter.</li>
+ *     <li>{@code ketchup.authorization.refreshes} - counter tagged by {@code result}.</li>
+ *     <li>{@code ketchup.authorization.cache} - counter tagged by {@code cache} and {@code result}
+ *     ({@code hit} or {@code miss}).</li>
+ *     <li>{@code ketchup.authorization.filter} - timer tagged by {@code filter} and {@code result}.</li>
+ * </ul>
+ *
+ * @author ZorTik
+ */
+public class MicrometerAuthorizationMetrics implements AuthorizationMetrics {
+
+    private final MeterRegistry registry;
+    private final String prefix;
+
+    public MicrometerAuthorizationMetrics(@NotNull MeterRegistry registry) {
+        this(registry, "ketchup.authorization");
+    }
+
+    public MicrometerAuthorizationMetrics(@NotNull MeterRegistry registry, @NotNull String prefix) {
+        Objects.requireNonNull(registry, "Registry cannot be null");
+        Objects.requireNonNull(prefix, "Prefix cannot be null");
+        this.registry = registry;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void requestCompleted(@NotNull String method, @NotNull String endpoint, int status, long durationNanos) {
+        Timer.builder(prefix + ".requests")
+                .description("Requests to the authorization server")
+                .tag("method", method)
+                .tag("endpoint", endpoint)
+                .tag("status", status == STATUS_FAILED ? "failed" : Integer.toString(status))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void refreshCompleted(boolean success) {
+        Counter.builder(prefix + ".refreshes")
+                .description("Session refreshes")
+                .tag("result", success ? "success" : "failure")
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void cacheAccess(@NotNull String cache, boolean hit) {
+        Counter.builder(prefix + ".cache")
+                .description("Client side cache lookups")
+                .tag("cache", cache)
+                .tag("result", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void filterCompleted(@NotNull String filter, boolean authenticated, long durationNanos) {
+        Timer.builder(prefix + ".filter")
+                .description("Time spent authenticating requests in authorization filters")
+                .tag("filter", filter)
+                .tag("result", authenticated ? "authenticated" : "anonymous")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,37 @@
+package me.zort.authorization.lib.model;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Result of verifying a single token in bulk, see
+ * {@link me.zort.authorization.lib.AuthorizationClient#verifyAll(java.util.stream.Stream, int, int)}.
+ *
+ * @param token Verified token
+ * @param valid Whether the token is valid
+ * @param details Details of the token's owner, if requested and the token is valid
+ * @param error Failure that prevented verifying the token, in which case it is not valid
+ */
+public record TokenVerification(@NotNull String token, boolean valid, @Nullable UserDetails details, @Nullable Throwable error) {
+
+    public static @NotNull TokenVerification valid(@NotNull String token, @Nullable UserDetails details) {
+        return new TokenVerification(token, true, details, null);
+    }
+
+    public static @NotNull TokenVerification invalid(@NotNull String token) {
+        return new TokenVerification(token, false, null, null);
+    }
+
+    public static @NotNull TokenVerification failed(@NotNull String token, @NotNull Throwable error) {
+        return new TokenVerification(token, false, null, error);
+    }
+
+    /**
+     * Returns whether the token could not be verified, as opposed to being rejected.
+     *
+     * @return True if verification failed
+     */
+    public boolean failed() {
+        return error != null;
+    }
+}
@@ -1,5 +1,26 @@
 package me.zort.authorization.lib.model;
 
+import me.zort.authorization.lib.permission.PermissionSet;
+
 import java.util.List;
 
-public record UserDetails(boolean permissionsIncluded, List<String> permissions, String uuid, String primaryGroup, String username) { }
+/**
+ * Details of a user as provided by the authorization server.
+ * Permissions fetched by the library are a {@link PermissionSet}, so node
+ * strings are shared by all cached details.
+ */
+public record UserDetails(boolean permissionsIncluded, List<String> permissions, String uuid, String primaryGroup, String username) {
+
+    /**
+     * Returns whether the user's permissions contain provided node exactly.
+     * Wildcards and negations are not evaluated, see
+     * {@link me.zort.authorization.lib.permission.PermissionIndex} for that.
+     *
+     * @param node Permission node
+     * @return True if the node is contained in the permissions
+     */
+    public boolean hasPermission(String node) {
+        return permissions != null && permissions.contains(node);
+    }
+
+}
@@ -0,0 +1,14 @@
+package me.zort.authorization.lib.model;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * User details along with the entity tag the authorization server
+ * sent them with, which allows revalidating them without transferring
+ * them again while they stay unchanged.
+ *
+ * @param details User details
+ * @param etag Entity tag of the details, or null if the server didn't send one
+ */
+public record VersionedUserDetails(@NotNull UserDetails details, @Nullable String etag) { }
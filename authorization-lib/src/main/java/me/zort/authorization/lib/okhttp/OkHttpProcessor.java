@@ -2,26 +2,162 @@ package me.zort.authorization.lib.okhttp;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import com.squareup.okhttp.*;
-import lombok.RequiredArgsConstructor;
 import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
 
-@RequiredArgsConstructor
 public class OkHttpProcessor extends HttpProcessor {
 
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final MediaType JSON_UTF8 = MediaType.parse("application/json; charset=utf-8");
+    // Only cancels calls that ran out of time, so one thread is enough for all processors.
+    private static final ScheduledExecutorService DEADLINE_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ketchup-call-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final OkHttpClient client;
-    private final JsonParser parser = new JsonParser();
+    private final long deadlineMillis;
 
     public OkHttpProcessor() {
         this(new OkHttpClient());
     }
 
+    public OkHttpProcessor(@NotNull OkHttpClient client) {
+        Objects.requireNonNull(client, "Client cannot be null");
+        this.client = client;
+        this.deadlineMillis = 0;
+    }
+
+    /**
+     * Initializes a processor with a deadline for each call.
+     * Unlike the client's connect and read timeouts, which bound each socket operation
+     * separately, the deadline bounds the whole call including reading the response.
+     * Calls exceeding it are cancelled and fail with {@link SocketTimeoutException}.
+     *
+     * @param client Client to perform calls with
+     * @param deadline Maximum duration of a call
+     */
+    public OkHttpProcessor(@NotNull OkHttpClient client, @NotNull Duration deadline) {
+        Objects.requireNonNull(client, "Client cannot be null");
+        Objects.requireNonNull(deadline, "Deadline cannot be null");
+        if (deadline.isNegative() || deadline.isZero()) {
+            throw new IllegalArgumentException("Deadline must be positive");
+        }
+        this.client = client;
+        this.deadlineMillis = deadline.toMillis();
+    }
+
     @Override
     public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException {
+        RequestBody requestBody = body != null ? RequestBody.create(JSON, body.toString()) : null;
+        return execute(buildRequest(relativeUrl, method, headers, null, requestBody), response -> readResponse(response, this::readTree));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable JsonObject> performAsync(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+        RequestBody requestBody = body != null ? RequestBody.create(JSON, body.toString()) : null;
+        return enqueue(buildRequest(relativeUrl, method, headers, null, requestBody), response -> readResponse(response, this::readTree));
+    }
+
+    @Override
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        RequestBody requestBody = body != null ? RequestBody.create(JSON_UTF8, body) : null;
+        return execute(buildRequest(relativeUrl, method, headers, null, requestBody), response -> readResponse(response, reader));
+    }
+
+    @Override
+    public <T> @NotNull ConditionalResponse<T> performConditional(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        RequestBody requestBody = body != null ? RequestBody.create(JSON_UTF8, body) : null;
+        return execute(buildRequest(relativeUrl, method, headers, etag, requestBody), response -> readConditionalResponse(response, reader));
+    }
+
+    private <T> T execute(Request request, ResponseHandler<T> handler) {
+        Call call = client.newCall(request);
+        ScheduledFuture<?> deadline = scheduleDeadline(call);
+        try {
+            return handler.handle(call.execute());
+        } catch (IOException e) {
+            throw new RuntimeException(deadlineExceeded(call, e));
+        } finally {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@Nullable T> performAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+        RequestBody requestBody = body != null ? RequestBody.create(JSON_UTF8, body) : null;
+        return enqueue(buildRequest(relativeUrl, method, headers, null, requestBody), response -> readResponse(response, reader));
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<@NotNull ConditionalResponse<T>> performConditionalAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @Nullable String etag, @NotNull ResponseReader<T> reader) {
+        RequestBody requestBody = body != null ? RequestBody.create(JSON_UTF8, body) : null;
+        return enqueue(buildRequest(relativeUrl, method, headers, etag, requestBody), response -> readConditionalResponse(response, reader));
+    }
+
+    private <T> CompletableFuture<T> enqueue(Request request, ResponseHandler<T> handler) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Call call = client.newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Request request, IOException e) {
+                future.completeExceptionally(new UncheckedIOException(deadlineExceeded(call, e)));
+            }
+
+            @Override
+            public void onResponse(Response response) {
+                try {
+                    future.complete(handler.handle(response));
+                } catch (IOException e) {
+                    future.completeExceptionally(new UncheckedIOException(deadlineExceeded(call, e)));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        ScheduledFuture<?> deadline = scheduleDeadline(call);
+        // Cancelling the future releases the connection as well.
+        future.whenComplete((response, error) -> {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    private @Nullable ScheduledFuture<?> scheduleDeadline(Call call) {
+        return deadlineMillis > 0
+                ? DEADLINE_SCHEDULER.schedule(call::cancel, deadlineMillis, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    private IOException deadlineExceeded(Call call, IOException cause) {
+        if (deadlineMillis > 0 && call.isCanceled() && !(cause instanceof SocketTimeoutException)) {
+            SocketTimeoutException timeout = new SocketTimeoutException("Call deadline of " + deadlineMillis + "ms exceeded");
+            timeout.initCause(cause);
+            return timeout;
+        }
+        return cause;
+    }
+
+    private Request buildRequest(String relativeUrl, String method, Map<String, String> headers, @Nullable String etag, @Nullable RequestBody body) {
         method = method.toUpperCase();
         String absoluteUrl = getBaseUrl() + relativeUrl;
         Request.Builder requestBuilder = new Request.Builder().url(absoluteUrl);
@@ -29,22 +165,45 @@ public class OkHttpProcessor extends HttpProcessor {
         if (headers != null) {
             headers.forEach(requestBuilder::addHeader);
         }
+        if (etag != null) {
+            requestBuilder.header("If-None-Match", etag);
+        }
         if (body != null) {
-            requestBuilder.method(method, RequestBody.create(MediaType.parse("application/json"), body.toString()));
+            requestBuilder.method(method, body);
         }
-        try {
-            Response response = client.newCall(requestBuilder.build()).execute();
+        return requestBuilder.build();
+    }
+
+    private <T> @Nullable T readResponse(Response response, ResponseReader<T> reader) throws IOException {
+        try (ResponseBody responseBody = response.body()) {
             if (response.code() != 200) {
                 throw new BadStatusException(response.code());
             }
-            try (ResponseBody responseBody = response.body()) {
-                if (responseBody == null) {
-                    return null;
-                }
-                return parser.parse(responseBody.string()).getAsJsonObject();
+            if (responseBody == null) {
+                return null;
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            // Decode straight from the socket, the body is never materialized as a String.
+            // JSON is always UTF-8 (RFC 8259), so the declared charset is not consulted.
+            // OkHttp asks for gzip on its own and inflates the source transparently.
+            return reader.read(new JsonReader(new Utf8SourceReader(responseBody.source())));
         }
     }
+
+    private <T> ConditionalResponse<T> readConditionalResponse(Response response, ResponseReader<T> reader) throws IOException {
+        String etag = response.header("ETag");
+        if (response.code() == 304) {
+            response.body().close();
+            return ConditionalResponse.notModified(etag);
+        }
+        return ConditionalResponse.modified(readResponse(response, reader), etag);
+    }
+
+    private JsonObject readTree(JsonReader reader) {
+        return JsonParser.parseReader(reader).getAsJsonObject();
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
 }
@@ -0,0 +1,56 @@
+package me.zort.authorization.lib.okhttp;
+
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader decoding UTF-8 directly from an okio source.
+ * Unlike {@link java.io.InputStreamReader}, it doesn't allocate its own
+ * decoding buffer, which dominates the cost of reading small responses.
+ */
+final class Utf8SourceReader extends Reader {
+
+    private final BufferedSource source;
+    private int pendingLowSurrogate = -1;
+
+    Utf8SourceReader(BufferedSource source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int read = 0;
+        if (pendingLowSurrogate != -1) {
+            cbuf[off + read++] = (char) pendingLowSurrogate;
+            pendingLowSurrogate = -1;
+        }
+        while (read < len) {
+            // Only block for more input when nothing could be returned yet.
+            if (read > 0 ? source.buffer().size() == 0 : source.exhausted()) {
+                break;
+            }
+            int codePoint = source.readUtf8CodePoint();
+            if (Character.isBmpCodePoint(codePoint)) {
+                cbuf[off + read++] = (char) codePoint;
+            } else {
+                cbuf[off + read++] = Character.highSurrogate(codePoint);
+                if (read < len) {
+                    cbuf[off + read++] = Character.lowSurrogate(codePoint);
+                } else {
+                    pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                }
+            }
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,112 @@
+package me.zort.authorization.lib.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe dictionary assigning dense integer IDs to permission nodes.
+ * Every distinct node is stored once, so {@link PermissionSet}s of all users
+ * share the same node strings and hold only their IDs.
+ * <p>
+ * IDs are never reused or removed. The dictionary is bounded, once full, new
+ * nodes are not assigned IDs and sets containing them fall back to plain lists.
+ *
+ * @author ZorTik
+ */
+public final class PermissionDictionary {
+
+    private static final PermissionDictionary SHARED = new PermissionDictionary(1 << 16);
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final int maximumSize;
+    private volatile String[] nodes = new String[64];
+    private int size = 0; // Guarded by this
+
+    /**
+     * Initializes a new dictionary.
+     *
+     * @param maximumSize Maximum number of distinct nodes
+     */
+    public PermissionDictionary(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Returns the dictionary shared by permission sets created by the library,
+     * holding up to 65536 distinct nodes.
+     *
+     * @return Shared dictionary
+     */
+    public static @NotNull PermissionDictionary shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the ID of provided node, assigning a new one if the node is not known yet.
+     *
+     * @param node Permission node
+     * @return Node ID, or -1 if the node is not known and the dictionary is full
+     */
+    public int intern(@NotNull String node) {
+        Objects.requireNonNull(node, "Node cannot be null");
+        Integer id = ids.get(node);
+        return id != null ? id : register(node);
+    }
+
+    /**
+     * Returns the ID of provided node without assigning one.
+     *
+     * @param node Permission node
+     * @return Node ID, or -1 if the node is not known
+     */
+    public int id(@NotNull String node) {
+        Integer id = ids.get(node);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the node with provided ID.
+     *
+     * @param id Node ID obtained from this dictionary
+     * @return Permission node
+     */
+    public @NotNull String node(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * Returns the number of distinct nodes held.
+     *
+     * @return Dictionary size
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    private synchronized int register(String node) {
+        Integer existing = ids.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        if (size >= maximumSize) {
+            return -1;
+        }
+        String[] nodes = this.nodes;
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, Math.min(nodes.length * 2, maximumSize));
+            this.nodes = nodes;
+        }
+        int id = size++;
+        nodes[id] = node;
+        // Published after the node, so whoever sees the ID can resolve it.
+        ids.put(node, id);
+        return id;
+    }
+
+}
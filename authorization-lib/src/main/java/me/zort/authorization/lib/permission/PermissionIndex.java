@@ -0,0 +1,182 @@
+package me.zort.authorization.lib.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Immutable index of user's permission nodes that evaluates node states in memory.
+ * <p>
+ * Nodes are dot-separated paths. A trailing {@code *} segment grants every node
+ * below its parent ({@code admin.*} grants {@code admin.users.delete}, but not
+ * {@code admin} itself) and a lone {@code *} grants everything. Nodes prefixed
+ * with {@code -} are negated and deny instead of granting.
+ * <p>
+ * When several nodes apply, the most specific one wins: an exact node beats
+ * any wildcard and a deeper wildcard beats a shallower one. On a tie, negation wins.
+ * Evaluation walks the compiled trie without allocating.
+ *
+ * @author ZorTik
+ */
+public final class PermissionIndex {
+
+    private static final byte UNSET = 0;
+    private static final byte GRANTED = 1;
+    private static final byte DENIED = -1;
+
+    public static final PermissionIndex EMPTY = new PermissionIndex(new Node(new String[0], new Node[0], UNSET, UNSET));
+
+    private final Node root;
+
+    private PermissionIndex(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compiles provided permission nodes into an index.
+     *
+     * @param permissions Permission nodes
+     * @return Compiled index
+     */
+    public static @NotNull PermissionIndex compile(@NotNull Collection<String> permissions) {
+        Objects.requireNonNull(permissions, "Permissions cannot be null");
+        MutableNode root = new MutableNode();
+        for (String permission : permissions) {
+            if (permission == null || permission.isEmpty()) {
+                continue;
+            }
+            boolean negated = permission.charAt(0) == '-';
+            String node = negated ? permission.substring(1) : permission;
+            if (!node.isEmpty()) {
+                root.insert(node, negated ? DENIED : GRANTED);
+            }
+        }
+        return new PermissionIndex(root.freeze());
+    }
+
+    /**
+     * Evaluates whether provided node is granted.
+     *
+     * @param node Permission node to check
+     * @return True if the node is granted, otherwise false
+     */
+    public boolean isGranted(@NotNull String node) {
+        Node current = root;
+        byte state = UNSET;
+        int start = 0;
+        int length = node.length();
+        while (true) {
+            if (current.wildcardState != UNSET) {
+                // Wildcard covers the remaining segments; deeper wildcards override it.
+                state = current.wildcardState;
+            }
+            int end = node.indexOf('.', start);
+            if (end < 0) {
+                end = length;
+            }
+            Node child = current.child(node, start, end);
+            if (child == null) {
+                break;
+            }
+            if (end == length) {
+                if (child.exactState != UNSET) {
+                    state = child.exactState;
+                }
+                break;
+            }
+            current = child;
+            start = end + 1;
+        }
+        return state == GRANTED;
+    }
+
+    private static final class Node {
+        private final String[] keys;
+        private final Node[] children;
+        private final byte exactState;
+        private final byte wildcardState;
+
+        private Node(String[] keys, Node[] children, byte exactState, byte wildcardState) {
+            this.keys = keys;
+            this.children = children;
+            this.exactState = exactState;
+            this.wildcardState = wildcardState;
+        }
+
+        private Node child(String node, int start, int end) {
+            int low = 0;
+            int high = keys.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compareRegion(keys[middle], node, start, end);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return children[middle];
+                }
+            }
+            return null;
+        }
+
+        // Same ordering as String#compareTo, applied to node.substring(start, end).
+        private static int compareRegion(String key, String node, int start, int end) {
+            int regionLength = end - start;
+            int limit = Math.min(key.length(), regionLength);
+            for (int i = 0; i < limit; i++) {
+                char a = key.charAt(i);
+                char b = node.charAt(start + i);
+                if (a != b) {
+                    return a - b;
+                }
+            }
+            return key.length() - regionLength;
+        }
+    }
+
+    private static final class MutableNode {
+        private final Map<String, MutableNode> children = new TreeMap<>();
+        private byte exactState = UNSET;
+        private byte wildcardState = UNSET;
+
+        private void insert(String node, byte state) {
+            MutableNode current = this;
+            int start = 0;
+            while (true) {
+                int end = node.indexOf('.', start);
+                String segment = end < 0 ? node.substring(start) : node.substring(start, end);
+                if (end < 0 && segment.equals("*")) {
+                    current.wildcardState = merge(current.wildcardState, state);
+                    return;
+                }
+                current = current.children.computeIfAbsent(segment, key -> new MutableNode());
+                if (end < 0) {
+                    current.exactState = merge(current.exactState, state);
+                    return;
+                }
+                start = end + 1;
+            }
+        }
+
+        private Node freeze() {
+            String[] keys = new String[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<String, MutableNode> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                frozen[i] = entry.getValue().freeze();
+                i++;
+            }
+            return new Node(keys, frozen, exactState, wildcardState);
+        }
+
+        private static byte merge(byte current, byte state) {
+            return current == DENIED ? DENIED : state;
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+package me.zort.authorization.lib.permission;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of permission nodes stored as an array of {@link PermissionDictionary}
+ * IDs. Node strings are shared through the dictionary instead of being held by every
+ * user's details, and membership checks are a dictionary lookup followed by a binary
+ * search in a sorted copy of the IDs.
+ * <p>
+ * Nodes keep the order they were provided in, duplicates included, so the list
+ * equals the one sent by the server.
+ *
+ * @author ZorTik
+ */
+public final class PermissionSet extends AbstractList<String> implements RandomAccess {
+
+    private final PermissionDictionary dictionary;
+    // IDs in the order of the nodes.
+    private final int[] ids;
+    // Distinct IDs in ascending order, for lookups. Same array as ids when those are already sorted.
+    private final int[] sorted;
+
+    private PermissionSet(PermissionDictionary dictionary, int[] ids, int[] sorted) {
+        this.dictionary = dictionary;
+        this.ids = ids;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Creates a permission list of provided nodes interned in the shared dictionary.
+     *
+     * @param permissions Permission nodes
+     * @return Permission set, or an unmodifiable copy if the nodes can't be interned
+     * @see #of(Collection, PermissionDictionary)
+     */
+    public static @NotNull List<String> of(@NotNull Collection<String> permissions) {
+        return of(permissions, PermissionDictionary.shared());
+    }
+
+    /**
+     * Creates a permission list of provided nodes interned in provided dictionary.
+     * Nodes can't be interned when one of them is null or the dictionary is full,
+     * in that case an unmodifiable copy of provided nodes is returned instead.
+     *
+     * @param permissions Permission nodes
+     * @param dictionary Dictionary to intern the nodes in
+     * @return Permission set, or an unmodifiable copy if the nodes can't be interned
+     */
+    public static @NotNull List<String> of(@NotNull Collection<String> permissions, @NotNull PermissionDictionary dictionary) {
+        Objects.requireNonNull(permissions, "Permissions cannot be null");
+        if (permissions instanceof PermissionSet set && set.dictionary == dictionary) {
+            return set;
+        }
+        Builder builder = new Builder(dictionary, permissions.size());
+        for (String permission : permissions) {
+            builder.add(permission);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns whether provided node is contained in this set.
+     * Wildcards are not evaluated, see {@link PermissionIndex} for that.
+     *
+     * @param node Permission node
+     * @return True if the node is contained
+     */
+    public boolean has(@NotNull String node) {
+        int id = dictionary.id(node);
+        return id >= 0 && Arrays.binarySearch(sorted, id) >= 0;
+    }
+
+    @Override
+    public String get(int index) {
+        return dictionary.node(ids[index]);
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof String node && has(node);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int id = idOf(o);
+        if (id >= 0) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        int id = idOf(o);
+        if (id >= 0) {
+            for (int i = ids.length - 1; i >= 0; i--) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int idOf(Object o) {
+        if (!(o instanceof String node)) {
+            return -1;
+        }
+        int id = dictionary.id(node);
+        return id >= 0 && Arrays.binarySearch(sorted, id) >= 0 ? id : -1;
+    }
+
+    /**
+     * Collects nodes one by one, so they can be interned while being read
+     * without building an intermediate list.
+     */
+    public static final class Builder {
+        private final PermissionDictionary dictionary;
+        private int[] ids;
+        private int size = 0;
+        private List<String> fallback = null;
+
+        public Builder() {
+            this(PermissionDictionary.shared(), 16);
+        }
+
+        public Builder(@NotNull PermissionDictionary dictionary, int expectedSize) {
+            Objects.requireNonNull(dictionary, "Dictionary cannot be null");
+            this.dictionary = dictionary;
+            this.ids = new int[Math.max(expectedSize, 1)];
+        }
+
+        public @NotNull Builder add(String permission) {
+            if (fallback != null) {
+                fallback.add(permission);
+                return this;
+            }
+            int id = permission != null ? dictionary.intern(permission) : -1;
+            if (id < 0) {
+                fallback = new ArrayList<>(size + 16);
+                for (int i = 0; i < size; i++) {
+                    fallback.add(dictionary.node(ids[i]));
+                }
+                fallback.add(permission);
+                return this;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+            return this;
+        }
+
+        public @NotNull List<String> build() {
+            if (fallback != null) {
+                return Collections.unmodifiableList(fallback);
+            }
+            int[] ordered = Arrays.copyOf(ids, size);
+            if (isStrictlyAscending(ordered)) {
+                return new PermissionSet(dictionary, ordered, ordered);
+            }
+            int[] sorted = ordered.clone();
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            return new PermissionSet(dictionary, ordered, unique == sorted.length ? sorted : Arrays.copyOf(sorted, unique));
+        }
+
+        private static boolean isStrictlyAscending(int[] ids) {
+            for (int i = 1; i < ids.length; i++) {
+                if (ids[i] <= ids[i - 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -1,34 +1,63 @@
 package me.zort.authorization.lib.strategy;
 
-import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import me.zort.authorization.lib.AuthorizationStrategy;
 import me.zort.authorization.lib.HttpProcessor;
 import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.model.VersionedUserDetails;
+import me.zort.authorization.lib.permission.PermissionSet;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AuthorizationStrategyV1 implements AuthorizationStrategy {
 
+    private static final int MAX_CACHED_NODE_BODIES = 1024;
+
+    // Checked nodes come from a small fixed set in practice, so their bodies are encoded once.
+    private static final Map<String, byte[]> NODE_BODIES = new ConcurrentHashMap<>();
+    private static final HttpProcessor.ResponseReader<Token> TOKEN_READER = AuthorizationStrategyV1::readToken;
+    private static final HttpProcessor.ResponseReader<UserDetails> USER_DETAILS_READER = AuthorizationStrategyV1::readUserDetails;
+    private static final HttpProcessor.ResponseReader<Boolean> NODE_STATE_READER = AuthorizationStrategyV1::readNodeState;
+
     @Override
     public @Nullable Token authorize(HttpProcessor processor, @Nullable JsonObject principal) {
         return makeCall(
-                processor, null, "/v1/auth/authenticate", "POST", principal,
-                tokenMapper(), null
+                processor, null, "/v1/auth/authenticate", "POST", principalBody(principal),
+                TOKEN_READER, null
         );
     }
 
     @Override
     public @Nullable Token refresh(HttpProcessor processor, @NotNull String refreshToken) {
-        JsonObject body = new JsonObject();
-        body.addProperty("refreshToken", refreshToken);
         return makeCall(
-                processor, null, "/v1/auth/refresh", "POST", body,
-                tokenMapper(), null
+                processor, null, "/v1/auth/refresh", "POST", encodeField("refreshToken", refreshToken),
+                TOKEN_READER, null
+        );
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable Token> authorizeAsync(HttpProcessor processor, @Nullable JsonObject principal) {
+        return makeCallAsync(
+                processor, null, "/v1/auth/authenticate", "POST", principalBody(principal),
+                TOKEN_READER, null
+        );
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable Token> refreshAsync(HttpProcessor processor, @NotNull String refreshToken) {
+        return makeCallAsync(
+                processor, null, "/v1/auth/refresh", "POST", encodeField("refreshToken", refreshToken),
+                TOKEN_READER, null
         );
     }
 
@@ -37,17 +66,50 @@ public class AuthorizationStrategyV1 implements AuthorizationStrategy {
         return doFetchUserDetails(processor, token, true);
     }
 
+    @Override
+    public @NotNull CompletableFuture<@Nullable UserDetails> fetchUserDetailsAsync(HttpProcessor processor, Token token) {
+        return doFetchUserDetailsAsync(processor, token, true);
+    }
+
     @Override
     public boolean fetchNodeState(HttpProcessor processor, Token token, String node) {
-        JsonObject body = new JsonObject();
-        body.addProperty("node", node);
         return makeCall(
-                processor, token, "/v1/user/checknode", "POST", body,
-                response -> response.get("state").getAsBoolean(),
-                false
+                processor, token, "/v1/user/checknode", "POST", nodeBody(node),
+                NODE_STATE_READER, false
+        );
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> fetchNodeStateAsync(HttpProcessor processor, Token token, String node) {
+        return makeCallAsync(
+                processor, token, "/v1/user/checknode", "POST", nodeBody(node),
+                NODE_STATE_READER, false
         );
     }
 
+    @Override
+    public @NotNull Map<String, Boolean> fetchNodeStates(HttpProcessor processor, Token token, Collection<String> nodes) {
+        if (nodes.size() <= 1) {
+            return AuthorizationStrategy.super.fetchNodeStates(processor, token, nodes);
+        }
+        return join(fetchNodeStatesAsync(processor, token, nodes));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<String, Boolean>> fetchNodeStatesAsync(HttpProcessor processor, Token token, Collection<String> nodes) {
+        // V1 server only exposes single-node checks, so batches are pipelined concurrently.
+        Map<String, CompletableFuture<Boolean>> pending = new LinkedHashMap<>();
+        for (String node : nodes) {
+            pending.computeIfAbsent(node, key -> fetchNodeStateAsync(processor, token, key));
+        }
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<String, Boolean> states = new LinkedHashMap<>();
+                    pending.forEach((node, state) -> states.put(node, state.join()));
+                    return states;
+                });
+    }
+
     @Override
     public boolean verifyToken(HttpProcessor processor, String token) {
         return doFetchUserDetails(processor,
@@ -55,35 +117,216 @@ public class AuthorizationStrategyV1 implements AuthorizationStrategy {
         ) != null;
     }
 
-    private @NotNull Function<JsonObject, Token> tokenMapper() {
-        return response -> new Token(
-                response.get("token").getAsString(),
-                response.get("refreshToken").getAsString(),
-                response.get("expiresAt").getAsLong()
+    @Override
+    public @NotNull CompletableFuture<Boolean> verifyTokenAsync(HttpProcessor processor, String token) {
+        return doFetchUserDetailsAsync(processor,
+                new Token(token, null, System.currentTimeMillis() + 60000), false
+        ).thenApply(Objects::nonNull);
+    }
+
+    @Override
+    public @Nullable UserDetails verifyWithDetails(HttpProcessor processor, String token) {
+        // Details endpoint rejects invalid tokens, so fetching them verifies the token as well.
+        return doFetchUserDetails(processor,
+                new Token(token, null, System.currentTimeMillis() + 60000), true
+        );
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable UserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token) {
+        return doFetchUserDetailsAsync(processor,
+                new Token(token, null, System.currentTimeMillis() + 60000), true
         );
     }
 
+    @Override
+    public @Nullable VersionedUserDetails verifyWithDetails(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        Token tokenInstance = new Token(token, null, System.currentTimeMillis() + 60000);
+        HttpProcessor.ConditionalResponse<UserDetails> response;
+        try {
+            response = processor.performConditional(userDetailsPath(true), "GET", headers(tokenInstance), null,
+                    etag(current), USER_DETAILS_READER);
+        } catch (HttpProcessor.BadStatusException e) {
+            if (!isRejection(e.getCode())) {
+                throw e;
+            }
+            return null;
+        }
+        return versioned(response, current);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable VersionedUserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        Token tokenInstance = new Token(token, null, System.currentTimeMillis() + 60000);
+        return processor.performConditionalAsync(userDetailsPath(true), "GET", headers(tokenInstance), null,
+                etag(current), USER_DETAILS_READER).handle((response, error) -> {
+            if (error == null) {
+                return versioned(response, current);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof HttpProcessor.BadStatusException badStatus && isRejection(badStatus.getCode())) {
+                return null;
+            }
+            throw cause instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(cause);
+        });
+    }
+
+    private static @Nullable String etag(@Nullable VersionedUserDetails current) {
+        return current != null ? current.etag() : null;
+    }
+
+    private static @Nullable VersionedUserDetails versioned(
+            HttpProcessor.ConditionalResponse<UserDetails> response, @Nullable VersionedUserDetails current
+    ) {
+        if (response.notModified()) {
+            // Only sent when an entity tag was provided, so current details are known.
+            return current;
+        }
+        return response.body() != null ? new VersionedUserDetails(response.body(), response.etag()) : null;
+    }
+
+    private static byte @Nullable [] principalBody(@Nullable JsonObject principal) {
+        return principal != null ? principal.toString().getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte @NotNull [] nodeBody(String node) {
+        byte[] body = NODE_BODIES.get(node);
+        if (body == null) {
+            body = encodeField("node", node);
+            if (NODE_BODIES.size() < MAX_CACHED_NODE_BODIES) {
+                NODE_BODIES.put(node, body);
+            }
+        }
+        return body;
+    }
+
+    private static byte @NotNull [] encodeField(String name, String value) {
+        String json = "{" + new JsonPrimitive(name) + ":" + new JsonPrimitive(value) + "}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
     private @Nullable UserDetails doFetchUserDetails(
             HttpProcessor processor, Token token, boolean includePermissions
     ) {
-        String path = "/v1/user/details" + (includePermissions ? "?includePermissions=true" : "");
+        // Details verify tokens, so only 401 and 403 mean a rejected token. Other statuses,
+        // such as 429 when throttled or 5xx, fail the verification instead.
         return makeCall(
-                processor, token, path, "GET", null,
-                response -> new UserDetails(
-                        response.get("permissionsIncluded").getAsBoolean(),
-                        response.get("permissions").getAsJsonArray().asList().stream()
-                                .map(JsonElement::getAsString)
-                                .toList(),
-                        parseNullableString(response.get("uuid")),
-                        parseNullableString(response.get("primaryGroup")),
-                        parseNullableString(response.get("username"))
-                ),
-                null
+                processor, token, userDetailsPath(includePermissions), "GET", null,
+                USER_DETAILS_READER, null, false
+        );
+    }
+
+    private @NotNull CompletableFuture<@Nullable UserDetails> doFetchUserDetailsAsync(
+            HttpProcessor processor, Token token, boolean includePermissions
+    ) {
+        return makeCallAsync(
+                processor, token, userDetailsPath(includePermissions), "GET", null,
+                USER_DETAILS_READER, null, false
         );
     }
 
-    private static String parseNullableString(JsonElement element) {
-        return element.isJsonNull() ? null : element.getAsString();
+    private static String userDetailsPath(boolean includePermissions) {
+        return "/v1/user/details" + (includePermissions ? "?includePermissions=true" : "");
+    }
+
+    private static Token readToken(JsonReader reader) throws IOException {
+        String token = null;
+        String refreshToken = null;
+        long expiresAt = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "token" -> token = nextNullableString(reader);
+                case "refreshToken" -> refreshToken = nextNullableString(reader);
+                case "expiresAt" -> expiresAt = nextLong(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new Token(token, refreshToken, expiresAt);
+    }
+
+    private static UserDetails readUserDetails(JsonReader reader) throws IOException {
+        boolean permissionsIncluded = false;
+        List<String> permissions = Collections.emptyList();
+        String uuid = null;
+        String primaryGroup = null;
+        String username = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "permissionsIncluded" -> permissionsIncluded = nextBoolean(reader);
+                case "permissions" -> permissions = readPermissions(reader);
+                case "uuid" -> uuid = nextNullableString(reader);
+                case "primaryGroup" -> primaryGroup = nextNullableString(reader);
+                case "username" -> username = nextNullableString(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new UserDetails(permissionsIncluded, permissions, uuid, primaryGroup, username);
+    }
+
+    private static Boolean readNodeState(JsonReader reader) throws IOException {
+        boolean state = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("state")) {
+                state = nextBoolean(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return state;
+    }
+
+    private static List<String> readPermissions(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return Collections.emptyList();
+        }
+        // Interned as read, read node strings are dropped right away.
+        PermissionSet.Builder permissions = new PermissionSet.Builder();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            permissions.add(reader.nextString());
+        }
+        reader.endArray();
+        return permissions.build();
+    }
+
+    // Values are read as leniently as by JsonPrimitive's getters. Missing and null values,
+    // which JsonPrimitive rejects, fall back to null, false and zero.
+
+    private static @Nullable String nextNullableString(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            case BOOLEAN -> String.valueOf(reader.nextBoolean());
+            default -> reader.nextString();
+        };
+    }
+
+    private static boolean nextBoolean(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case NULL -> {
+                reader.nextNull();
+                yield false;
+            }
+            case STRING, NUMBER -> Boolean.parseBoolean(reader.nextString());
+            default -> reader.nextBoolean();
+        };
+    }
+
+    private static long nextLong(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+        return reader.nextLong();
     }
 
     private static <T> T makeCall(
@@ -91,19 +334,86 @@ public class AuthorizationStrategyV1 implements AuthorizationStrategy {
             Token token,
             String path,
             String method,
-            JsonObject body,
-            Function<JsonObject, T> mapper,
+            byte[] body,
+            HttpProcessor.ResponseReader<T> reader,
             T defaultValue
+    ) {
+        return makeCall(processor, token, path, method, body, reader, defaultValue, true);
+    }
+
+    private static <T> T makeCall(
+            HttpProcessor processor,
+            Token token,
+            String path,
+            String method,
+            byte[] body,
+            HttpProcessor.ResponseReader<T> reader,
+            T defaultValue,
+            boolean failuresAsDefault
     ) {
         try {
-            Map<String, String> headers = new HashMap<>();
-            if (token != null) {
-                headers.put("Authorization", "Bearer " + token.token());
-            }
-            JsonObject response = processor.perform(path, method, headers, body);
-            return mapper.apply(response);
+            T response = processor.perform(path, method, headers(token), body, reader);
+            return response != null ? response : defaultValue;
         } catch (HttpProcessor.BadStatusException e) {
+            if (!failuresAsDefault && !isRejection(e.getCode())) {
+                throw e;
+            }
             return defaultValue;
         }
     }
+
+    private static <T> CompletableFuture<T> makeCallAsync(
+            HttpProcessor processor,
+            Token token,
+            String path,
+            String method,
+            byte[] body,
+            HttpProcessor.ResponseReader<T> reader,
+            T defaultValue
+    ) {
+        return makeCallAsync(processor, token, path, method, body, reader, defaultValue, true);
+    }
+
+    private static <T> CompletableFuture<T> makeCallAsync(
+            HttpProcessor processor,
+            Token token,
+            String path,
+            String method,
+            byte[] body,
+            HttpProcessor.ResponseReader<T> reader,
+            T defaultValue,
+            boolean failuresAsDefault
+    ) {
+        return processor.performAsync(path, method, headers(token), body, reader).handle((response, error) -> {
+            if (error == null) {
+                return response != null ? response : defaultValue;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof HttpProcessor.BadStatusException badStatus
+                    && (failuresAsDefault || isRejection(badStatus.getCode()))) {
+                return defaultValue;
+            }
+            throw cause instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(cause);
+        });
+    }
+
+    private static boolean isRejection(int code) {
+        return code == 401 || code == 403;
+    }
+
+    private static Map<String, String> headers(Token token) {
+        Map<String, String> headers = new HashMap<>();
+        if (token != null) {
+            headers.put("Authorization", "Bearer " + token.token());
+        }
+        return headers;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
 }
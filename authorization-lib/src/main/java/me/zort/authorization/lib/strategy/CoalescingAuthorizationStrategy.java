@@ -0,0 +1,139 @@
+package me.zort.authorization.lib.strategy;
+
+import com.google.gson.JsonObject;
+import me.zort.authorization.lib.AuthorizationStrategy;
+import me.zort.authorization.lib.HttpProcessor;
+import me.zort.authorization.lib.flight.SingleFlight;
+import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.model.VersionedUserDetails;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Strategy decorator that coalesces concurrent identical calls.
+ * Calls are considered identical when they share the operation, token and
+ * permission node, in which case only one of them reaches the delegate
+ * and all callers receive its result.
+ * <p>
+ * Authorization using a principal is never coalesced.
+ *
+ * @author ZorTik
+ */
+public class CoalescingAuthorizationStrategy implements AuthorizationStrategy {
+
+    private final AuthorizationStrategy delegate;
+    private final SingleFlight<Key, Object> flight = new SingleFlight<>();
+
+    public CoalescingAuthorizationStrategy(@NotNull AuthorizationStrategy delegate) {
+        Objects.requireNonNull(delegate, "Delegate strategy cannot be null");
+        this.delegate = delegate;
+    }
+
+    @Override
+    public @Nullable Token authorize(HttpProcessor processor, @Nullable JsonObject principal) {
+        return delegate.authorize(processor, principal);
+    }
+
+    @Override
+    public @Nullable Token refresh(HttpProcessor processor, @NotNull String refreshToken) {
+        return call(new Key("refresh", refreshToken, null), () -> delegate.refresh(processor, refreshToken));
+    }
+
+    @Override
+    public @Nullable UserDetails fetchUserDetails(HttpProcessor processor, Token token) {
+        return call(new Key("details", token.token(), null), () -> delegate.fetchUserDetails(processor, token));
+    }
+
+    @Override
+    public boolean fetchNodeState(HttpProcessor processor, Token token, String node) {
+        return call(new Key("node", token.token(), node), () -> delegate.fetchNodeState(processor, token, node));
+    }
+
+    @Override
+    public @NotNull Map<String, Boolean> fetchNodeStates(HttpProcessor processor, Token token, Collection<String> nodes) {
+        return call(new Key("nodes", token.token(), String.join(",", nodes)),
+                () -> delegate.fetchNodeStates(processor, token, nodes));
+    }
+
+    @Override
+    public boolean verifyToken(HttpProcessor processor, String token) {
+        return call(new Key("verify", token, null), () -> delegate.verifyToken(processor, token));
+    }
+
+    @Override
+    public @Nullable UserDetails verifyWithDetails(HttpProcessor processor, String token) {
+        return call(new Key("verifyDetails", token, null), () -> delegate.verifyWithDetails(processor, token));
+    }
+
+    @Override
+    public @Nullable VersionedUserDetails verifyWithDetails(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        return call(new Key("verifyDetails", token, etag(current)), () -> delegate.verifyWithDetails(processor, token, current));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable Token> authorizeAsync(HttpProcessor processor, @Nullable JsonObject principal) {
+        return delegate.authorizeAsync(processor, principal);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable Token> refreshAsync(HttpProcessor processor, @NotNull String refreshToken) {
+        return callAsync(new Key("refresh", refreshToken, null), () -> delegate.refreshAsync(processor, refreshToken));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable UserDetails> fetchUserDetailsAsync(HttpProcessor processor, Token token) {
+        return callAsync(new Key("details", token.token(), null), () -> delegate.fetchUserDetailsAsync(processor, token));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> fetchNodeStateAsync(HttpProcessor processor, Token token, String node) {
+        return callAsync(new Key("node", token.token(), node), () -> delegate.fetchNodeStateAsync(processor, token, node));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Map<String, Boolean>> fetchNodeStatesAsync(HttpProcessor processor, Token token, Collection<String> nodes) {
+        return callAsync(new Key("nodes", token.token(), String.join(",", nodes)),
+                () -> delegate.fetchNodeStatesAsync(processor, token, nodes));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> verifyTokenAsync(HttpProcessor processor, String token) {
+        return callAsync(new Key("verify", token, null), () -> delegate.verifyTokenAsync(processor, token));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable UserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token) {
+        return callAsync(new Key("verifyDetails", token, null), () -> delegate.verifyWithDetailsAsync(processor, token));
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable VersionedUserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        return callAsync(new Key("verifyDetails", token, etag(current)),
+                () -> delegate.verifyWithDetailsAsync(processor, token, current));
+    }
+
+    // Revalidations against different versions don't share a result, unversioned calls share it with each other.
+    private static @Nullable String etag(@Nullable VersionedUserDetails current) {
+        return current != null ? "etag:" + current.etag() : "unversioned";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T call(Key key, Supplier<T> call) {
+        return (T) flight.call(key, (Supplier<Object>) call);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> callAsync(Key key, Supplier<CompletableFuture<T>> call) {
+        return (CompletableFuture<T>) (CompletableFuture<?>) flight.callAsync(key,
+                () -> (CompletableFuture<Object>) (CompletableFuture<?>) call.get());
+    }
+
+    private record Key(String operation, String token, @Nullable String node) { }
+
+}
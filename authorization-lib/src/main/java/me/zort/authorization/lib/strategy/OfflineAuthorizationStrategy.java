@@ -0,0 +1,211 @@
+package me.zort.authorization.lib.strategy;
+
+import me.zort.authorization.lib.HttpProcessor;
+import me.zort.authorization.lib.jwt.JsonWebToken;
+import me.zort.authorization.lib.jwt.JwtVerifier;
+import me.zort.authorization.lib.jwt.KeySource;
+import me.zort.authorization.lib.model.UserDetails;
+import me.zort.authorization.lib.model.VersionedUserDetails;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Strategy that verifies tokens locally by checking their signature and claims,
+ * without calling the authorization server.
+ * <p>
+ * Keys are loaded from provided {@link KeySource} on first verification and then
+ * reloaded periodically in the background. When a reload fails, previously loaded
+ * keys stay in use and the failure is passed to the reload failure listener.
+ * Tokens signed with an unknown key ID are verified by the server as in
+ * {@link AuthorizationStrategyV1}, which also triggers an early key reload.
+ * <p>
+ * User details are only known to the server, so verifications with details
+ * ({@link #verifyWithDetails(HttpProcessor, String)} and its variants) still
+ * fetch them from the server. Tokens rejected locally are never sent there.
+ * To authenticate requests without the server, use
+ * {@code JWTAuthorizationFilter} in lazy details mode, which only verifies the
+ * token until details are needed. All other operations are inherited unchanged.
+ *
+ * @author ZorTik
+ */
+public class OfflineAuthorizationStrategy extends AuthorizationStrategyV1 implements AutoCloseable {
+
+    private static final long MIN_RELOAD_INTERVAL_MILLIS = 30_000;
+
+    private final KeySource keySource;
+    private final JwtVerifier verifier;
+    private final Duration rotationInterval;
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<? super Exception> reloadFailureListener;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean reloading = new AtomicBoolean(false);
+    private volatile long lastLoadAt = 0;
+
+    public OfflineAuthorizationStrategy(@NotNull KeySource keySource, @NotNull Duration rotationInterval) {
+        this(keySource, rotationInterval, new JwtVerifier(Duration.ofSeconds(30), null, null));
+    }
+
+    /**
+     * Initializes a new offline strategy.
+     *
+     * @param keySource Source of the verification keys
+     * @param rotationInterval Interval of background key reloads
+     * @param verifier Verifier holding the claim requirements
+     */
+    public OfflineAuthorizationStrategy(
+            @NotNull KeySource keySource,
+            @NotNull Duration rotationInterval,
+            @NotNull JwtVerifier verifier
+    ) {
+        this(keySource, rotationInterval, verifier, e -> { });
+    }
+
+    /**
+     * Initializes a new offline strategy reporting failed key reloads.
+     *
+     * @param keySource Source of the verification keys
+     * @param rotationInterval Interval of background key reloads
+     * @param verifier Verifier holding the claim requirements
+     * @param reloadFailureListener Called with the cause of every failed key reload,
+     *                              on the thread performing the reload
+     */
+    public OfflineAuthorizationStrategy(
+            @NotNull KeySource keySource,
+            @NotNull Duration rotationInterval,
+            @NotNull JwtVerifier verifier,
+            @NotNull Consumer<? super Exception> reloadFailureListener
+    ) {
+        Objects.requireNonNull(keySource, "Key source cannot be null");
+        Objects.requireNonNull(rotationInterval, "Rotation interval cannot be null");
+        Objects.requireNonNull(verifier, "Verifier cannot be null");
+        Objects.requireNonNull(reloadFailureListener, "Reload failure listener cannot be null");
+
+        this.keySource = keySource;
+        this.verifier = verifier;
+        this.rotationInterval = rotationInterval;
+        this.reloadFailureListener = reloadFailureListener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ketchup-key-rotation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public boolean verifyToken(HttpProcessor processor, String token) {
+        Boolean verified = verifyLocally(processor, token);
+        return verified != null ? verified : super.verifyToken(processor, token);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<Boolean> verifyTokenAsync(HttpProcessor processor, String token) {
+        Boolean verified = verifyLocally(processor, token);
+        return verified != null ? CompletableFuture.completedFuture(verified) : super.verifyTokenAsync(processor, token);
+    }
+
+    @Override
+    public @Nullable UserDetails verifyWithDetails(HttpProcessor processor, String token) {
+        return isRejectedLocally(processor, token) ? null : super.verifyWithDetails(processor, token);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable UserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token) {
+        return isRejectedLocally(processor, token)
+                ? CompletableFuture.completedFuture(null)
+                : super.verifyWithDetailsAsync(processor, token);
+    }
+
+    @Override
+    public @Nullable VersionedUserDetails verifyWithDetails(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        return isRejectedLocally(processor, token) ? null : super.verifyWithDetails(processor, token, current);
+    }
+
+    @Override
+    public @NotNull CompletableFuture<@Nullable VersionedUserDetails> verifyWithDetailsAsync(HttpProcessor processor, String token, @Nullable VersionedUserDetails current) {
+        return isRejectedLocally(processor, token)
+                ? CompletableFuture.completedFuture(null)
+                : super.verifyWithDetailsAsync(processor, token, current);
+    }
+
+    /**
+     * Stops background key rotation.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private boolean isRejectedLocally(HttpProcessor processor, String token) {
+        // Details come from the server anyway, so tokens with unknown keys are left to it.
+        return Boolean.FALSE.equals(verifyLocally(processor, token));
+    }
+
+    // Returns null when the token was signed by an unknown key and the server has to decide.
+    private @Nullable Boolean verifyLocally(HttpProcessor processor, String token) {
+        ensureStarted(processor);
+        JsonWebToken decoded = JsonWebToken.decode(token);
+        if (decoded == null) {
+            return false;
+        }
+        return switch (verifier.verify(decoded)) {
+            case VALID -> true;
+            case INVALID -> false;
+            case UNKNOWN_KEY -> {
+                // Keys might have been rotated on the server before we noticed.
+                requestReload(processor);
+                yield null;
+            }
+        };
+    }
+
+    private void ensureStarted(HttpProcessor processor) {
+        if (started.get() || !started.compareAndSet(false, true)) {
+            return;
+        }
+        reload(processor);
+        long interval = rotationInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> reload(processor), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void requestReload(HttpProcessor processor) {
+        if (System.currentTimeMillis() - lastLoadAt < MIN_RELOAD_INTERVAL_MILLIS
+                || !reloading.compareAndSet(false, true)) {
+            return;
+        }
+        scheduler.execute(() -> {
+            try {
+                reload(processor);
+            } finally {
+                reloading.set(false);
+            }
+        });
+    }
+
+    private void reload(HttpProcessor processor) {
+        lastLoadAt = System.currentTimeMillis();
+        try {
+            verifier.setKeys(keySource.load(processor));
+        } catch (Exception e) {
+            // Keep using previous keys, unknown ones fall back to the server anyway.
+            notifyReloadFailure(e);
+        }
+    }
+
+    private void notifyReloadFailure(Exception cause) {
+        try {
+            reloadFailureListener.accept(cause);
+        } catch (RuntimeException ignored) {
+            // A failing listener must not stop the background rotation.
+        }
+    }
+
+}
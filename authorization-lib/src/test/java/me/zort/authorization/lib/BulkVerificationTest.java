@@ -0,0 +1,80 @@
+package me.zort.authorization.lib;
+
+import me.zort.authorization.lib.model.TokenVerification;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkVerificationTest {
+
+    private static final String DETAILS = "/v1/user/details";
+    private static final String DETAILS_WITH_PERMISSIONS = "/v1/user/details?includePermissions=true";
+    private static final String USER_DETAILS = "{\"permissionsIncluded\":true,\"permissions\":[\"a.b\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}";
+
+    private final StubHttpProcessor processor = new StubHttpProcessor()
+            .respond(DETAILS, this::respond)
+            .respond(DETAILS_WITH_PERMISSIONS, this::respond);
+    private final AuthorizationClient client = new AuthorizationClient.Builder()
+            .url("http://localhost")
+            .processor(processor)
+            .verificationCache(100, Duration.ofMinutes(1))
+            .rejectionCache(100, Duration.ofMinutes(1))
+            .build();
+
+    @Test
+    void verifiesTokensInOrder() {
+        List<String> tokens = List.of("good-1", "bad-1", "good-2", "error-1", "good-3");
+
+        List<TokenVerification> results = verifyAll(tokens, false);
+        assertEquals(tokens, results.stream().map(TokenVerification::token).collect(Collectors.toList()));
+        // A batch the server failed to verify is reported as failed as a whole.
+        assertEquals(List.of(true, false, false, false, true), results.stream().map(TokenVerification::valid).collect(Collectors.toList()));
+        assertNull(results.get(0).details());
+        assertNull(results.get(1).error());
+        assertInstanceOf(HttpProcessor.BadStatusException.class, results.get(2).error());
+        assertInstanceOf(HttpProcessor.BadStatusException.class, results.get(3).error());
+    }
+
+    @Test
+    void returnsDetails() {
+        List<TokenVerification> results = verifyAll(List.of("good-1", "bad-1"), true);
+
+        assertEquals("user", results.get(0).details().username());
+        assertFalse(results.get(1).valid());
+        assertEquals(2, processor.requests(DETAILS_WITH_PERMISSIONS));
+    }
+
+    @Test
+    void cachesVerificationsAndRejections() {
+        List<String> tokens = List.of("good-1", "bad-1", "good-2");
+        verifyAll(tokens, true);
+        long requests = processor.requests().size();
+
+        List<TokenVerification> results = verifyAll(tokens, true);
+        assertEquals(List.of(true, false, true), results.stream().map(TokenVerification::valid).collect(Collectors.toList()));
+        assertEquals("user", results.get(2).details().username());
+        assertEquals(requests, processor.requests().size());
+    }
+
+    private List<TokenVerification> verifyAll(List<String> tokens, boolean withDetails) {
+        try (Stream<TokenVerification> results = withDetails
+                ? client.verifyAllWithDetails(tokens.stream(), 2, 2)
+                : client.verifyAll(tokens.stream(), 2, 2)) {
+            return results.collect(Collectors.toList());
+        }
+    }
+
+    private StubHttpProcessor.Response respond(Map<String, String> headers) {
+        String token = headers.get("Authorization").substring("Bearer ".length());
+        if (token.startsWith("good")) {
+            return new StubHttpProcessor.Response(200, USER_DETAILS);
+        }
+        return new StubHttpProcessor.Response(token.startsWith("error") ? 503 : 401, null);
+    }
+}
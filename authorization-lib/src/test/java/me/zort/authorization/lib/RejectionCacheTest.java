@@ -0,0 +1,92 @@
+package me.zort.authorization.lib;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RejectionCacheTest {
+
+    private static final String DETAILS = "/v1/user/details";
+    private static final String DETAILS_WITH_PERMISSIONS = "/v1/user/details?includePermissions=true";
+    private static final String USER_DETAILS = "{\"permissionsIncluded\":true,\"permissions\":[\"a.b\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}";
+
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final StubHttpProcessor processor = new StubHttpProcessor()
+            .respond(DETAILS, headers -> respond())
+            .respond(DETAILS_WITH_PERMISSIONS, headers -> respond());
+    private final AuthorizationClient client = new AuthorizationClient.Builder()
+            .url("http://localhost")
+            .processor(processor)
+            .rejectionCache(100, Duration.ofMinutes(1))
+            .build();
+
+    @ParameterizedTest
+    @ValueSource(ints = {401, 403})
+    void remembersRejections(int code) {
+        status.set(code);
+        assertFalse(client.verify("token").authorized());
+        assertFalse(client.verifyWithDetails("token-2").authorized());
+
+        status.set(200);
+        assertFalse(client.verify("token").authorized());
+        assertFalse(client.verifyWithDetails("token-2").authorized());
+        assertEquals(2, processor.requests().size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 404, 408, 429, 503})
+    void doesNotRememberOtherFailures(int code) {
+        status.set(code);
+        assertEquals(code, assertThrows(HttpProcessor.BadStatusException.class, () -> client.verify("token")).getCode());
+        assertEquals(code, assertThrows(HttpProcessor.BadStatusException.class, () -> client.verifyWithDetails("token")).getCode());
+        CompletionException async = assertThrows(CompletionException.class, () -> client.verifyWithDetailsAsync("token").join());
+        assertInstanceOf(HttpProcessor.BadStatusException.class, async.getCause());
+
+        status.set(200);
+        assertTrue(client.verify("token").authorized());
+        assertEquals("user", client.verifyWithDetails("token").getDetails().username());
+    }
+
+    @Test
+    void rejectsMalformedTokensWithoutRequests() {
+        StubHttpProcessor processor = new StubHttpProcessor().respond(DETAILS, 200, USER_DETAILS);
+        AuthorizationClient client = new AuthorizationClient.Builder()
+                .url("http://localhost")
+                .processor(processor)
+                .rejectMalformedTokens(true)
+                .build();
+
+        assertFalse(client.verify("3f2a9c1e7b6d4a58").authorized());
+        assertFalse(client.verify("eyJhbGciOiJIUzI1NiJ9.e30").authorized());
+        assertEquals(0, processor.requests().size());
+        assertTrue(client.verify("eyJhbGciOiJIUzI1NiJ9.e30.c2ln").authorized());
+        assertEquals(1, processor.requests().size());
+    }
+
+    @Test
+    void verifiesOpaqueTokensByDefault() {
+        assertTrue(client.verify("3f2a9c1e7b6d4a58").authorized());
+        assertEquals(1, processor.requests().size());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        AuthorizationClient.Builder builder = new AuthorizationClient.Builder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.rejectionCache(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> builder.rejectionCache(-1, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> builder.rejectionCache(100, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> builder.rejectionCache(100, Duration.ofMinutes(-1)));
+        assertThrows(NullPointerException.class, () -> builder.rejectionCache(100, null));
+    }
+
+    private StubHttpProcessor.Response respond() {
+        return new StubHttpProcessor.Response(status.get(), status.get() == 200 ? USER_DETAILS : null);
+    }
+}
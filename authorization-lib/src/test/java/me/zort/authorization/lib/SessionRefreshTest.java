@@ -0,0 +1,58 @@
+package me.zort.authorization.lib;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRefreshTest {
+
+    private static final String AUTHENTICATE = "/v1/auth/authenticate";
+
+    private final StubHttpProcessor processor = new StubHttpProcessor().respond(AUTHENTICATE, headers ->
+            // Refreshed roughly every 200 ms, see AuthorizationClient.Session#scheduleRefresh.
+            new StubHttpProcessor.Response(200, "{\"token\":\"token\",\"expiresAt\":" + (System.currentTimeMillis() + 400) + "}"));
+    private final AuthorizationClient client = new AuthorizationClient.Builder()
+            .url("http://localhost")
+            .processor(processor)
+            .refreshAhead(Duration.ofMillis(350))
+            .build();
+
+    @AfterEach
+    void closeClient() {
+        client.close();
+    }
+
+    @Test
+    void refreshesReferencedSessions() throws InterruptedException {
+        AuthorizationClient.Session session = client.authorize("user", "password");
+        Thread.sleep(1000);
+
+        assertTrue(processor.requests(AUTHENTICATE) >= 3, "Refreshed " + (processor.requests(AUTHENTICATE) - 1) + " times");
+        assertTrue(session.authorized());
+    }
+
+    @Test
+    void stopsRefreshingClosedSessions() throws InterruptedException {
+        client.authorize("user", "password").close();
+        Thread.sleep(500);
+
+        assertEquals(1, processor.requests(AUTHENTICATE));
+    }
+
+    @Test
+    void stopsRefreshingDiscardedSessions() throws InterruptedException {
+        client.authorize("user", "password");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        long requests;
+        do {
+            assertTrue(System.currentTimeMillis() < deadline, "Discarded session kept refreshing");
+            requests = processor.requests(AUTHENTICATE);
+            System.gc();
+            Thread.sleep(600);
+        } while (processor.requests(AUTHENTICATE) != requests);
+    }
+}
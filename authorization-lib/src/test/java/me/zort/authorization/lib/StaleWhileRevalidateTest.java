@@ -0,0 +1,116 @@
+package me.zort.authorization.lib;
+
+import me.zort.authorization.lib.jdk.JdkHttpProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaleWhileRevalidateTest {
+
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> username = new AtomicReference<>("user");
+    private final AtomicReference<CountDownLatch> gate = new AtomicReference<>(new CountDownLatch(0));
+    private final AtomicInteger requests = new AtomicInteger();
+    private TestServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new TestServer().handle("/v1/user/details", exchange -> {
+            requests.incrementAndGet();
+            try {
+                gate.get().await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String body = "{\"permissionsIncluded\":true,\"permissions\":[\"a.b\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"" + username.get() + "\"}";
+            TestServer.respond(exchange, status.get(), status.get() == 200 ? body : "");
+        });
+    }
+
+    @AfterEach
+    void stopServer() {
+        gate.get().countDown();
+        server.close();
+    }
+
+    @Test
+    void servesStaleEntryWhileSingleRevalidationRuns() throws InterruptedException {
+        AuthorizationClient client = client(Duration.ofMillis(200), Duration.ofSeconds(10));
+        assertEquals("user", client.verifyWithDetails("token").getDetails().username());
+        assertEquals(1, requests.get());
+
+        Thread.sleep(300);
+        CountDownLatch blocked = new CountDownLatch(1);
+        gate.set(blocked);
+        username.set("renamed");
+        for (int i = 0; i < 10; i++) {
+            assertEquals("user", client.verifyWithDetails("token").getDetails().username());
+        }
+        awaitCondition(() -> requests.get() == 2);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("user", client.verifyWithDetails("token").getDetails().username());
+        }
+        assertEquals(2, requests.get());
+
+        blocked.countDown();
+        awaitCondition(() -> "renamed".equals(client.verifyWithDetails("token").getDetails().username()));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void dropsStaleEntryOnceStaleWindowEnds() throws InterruptedException {
+        AuthorizationClient client = client(Duration.ofMillis(200), Duration.ofMillis(500));
+        long cachedAt = System.nanoTime();
+        assertTrue(client.verify("token").authorized());
+
+        status.set(503);
+        Thread.sleep(300);
+        // Server is failing, so the entry keeps being served and revalidated.
+        assertTrue(client.verify("token").authorized());
+        awaitCondition(() -> requests.get() == 2);
+        awaitCondition(() -> client.verify("token").authorized() && requests.get() >= 3);
+
+        long sinceCached = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cachedAt);
+        Thread.sleep(Math.max(0, 800 - sinceCached));
+        HttpProcessor.BadStatusException e = assertThrows(HttpProcessor.BadStatusException.class, () -> client.verify("token"));
+        assertEquals(503, e.getCode());
+    }
+
+    @Test
+    void evictsEntryRejectedOnRevalidation() throws InterruptedException {
+        AuthorizationClient client = client(Duration.ofMillis(200), Duration.ofSeconds(10));
+        assertTrue(client.verify("token").authorized());
+
+        status.set(401);
+        Thread.sleep(300);
+        assertTrue(client.verify("token").authorized());
+        awaitCondition(() -> !client.verify("token").authorized());
+    }
+
+    private AuthorizationClient client(Duration ttl, Duration staleTtl) {
+        return new AuthorizationClient.Builder()
+                .url(server.url())
+                .processor(new JdkHttpProcessor())
+                .verificationCache(100, ttl)
+                .staleWhileRevalidate(staleTtl)
+                .build();
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package me.zort.authorization.lib;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Processor answering requests from canned responses, keyed by relative URL,
+ * and recording every request it received.
+ */
+public class StubHttpProcessor extends HttpProcessor {
+
+    private final Map<String, Function<Map<String, String>, Response>> responses = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    public StubHttpProcessor respond(String relativeUrl, int status, @Nullable String body) {
+        return respond(relativeUrl, headers -> new Response(status, body));
+    }
+
+    public StubHttpProcessor respond(String relativeUrl, Function<Map<String, String>, Response> response) {
+        responses.put(relativeUrl, response);
+        return this;
+    }
+
+    public List<String> requests() {
+        return requests;
+    }
+
+    public long requests(String relativeUrl) {
+        return requests.stream().filter(relativeUrl::equals).count();
+    }
+
+    @Override
+    public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) throws BadStatusException {
+        String response = respond(relativeUrl, headers);
+        return response != null ? JsonParser.parseString(response).getAsJsonObject() : null;
+    }
+
+    @Override
+    public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) throws BadStatusException {
+        String response = respond(relativeUrl, headers);
+        if (response == null) {
+            return null;
+        }
+        try {
+            return reader.read(new JsonReader(new StringReader(response)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private @Nullable String respond(String relativeUrl, Map<String, String> headers) {
+        requests.add(relativeUrl);
+        Function<Map<String, String>, Response> response = responses.get(relativeUrl);
+        if (response == null) {
+            throw new BadStatusException(404);
+        }
+        Response answer = response.apply(headers);
+        if (answer.status() != 200) {
+            throw new BadStatusException(answer.status());
+        }
+        return answer.body();
+    }
+
+    public record Response(int status, @Nullable String body) { }
+}
@@ -0,0 +1,86 @@
+package me.zort.authorization.lib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecayingBloomFilterTest {
+
+    @Test
+    void remembersMembersForAtLeastHalfOfTtl() throws InterruptedException {
+        DecayingBloomFilter filter = new DecayingBloomFilter(100, 0.001, Duration.ofMillis(600));
+        filter.put("token");
+
+        assertTrue(filter.mightContain("token"));
+        Thread.sleep(150);
+        assertTrue(filter.mightContain("token"));
+        assertFalse(filter.mightContain("other"));
+    }
+
+    @Test
+    void forgetsMembersAfterTtl() throws InterruptedException {
+        DecayingBloomFilter filter = new DecayingBloomFilter(100, 0.001, Duration.ofMillis(200));
+        filter.put("token");
+
+        Thread.sleep(450);
+        assertFalse(filter.mightContain("token"));
+    }
+
+    @Test
+    void keepsMembersOfPreviousGenerationAfterRotation() throws InterruptedException {
+        DecayingBloomFilter filter = new DecayingBloomFilter(100, 0.001, Duration.ofMillis(1000));
+        filter.put("old");
+        Thread.sleep(600);
+        filter.put("new");
+
+        // Rotated once, "old" moved to the previous generation.
+        assertTrue(filter.mightContain("old"));
+        assertTrue(filter.mightContain("new"));
+        Thread.sleep(600);
+        assertFalse(filter.mightContain("old"));
+        assertTrue(filter.mightContain("new"));
+    }
+
+    @Test
+    void rotatesEarlyToKeepFalsePositivesBounded() {
+        double probability = 0.01;
+        DecayingBloomFilter filter = new DecayingBloomFilter(1000, probability, Duration.ofHours(1));
+        int added = 50_000;
+        for (int i = 0; i < added; i++) {
+            filter.put("member-" + i);
+        }
+
+        // The latest capacity worth of members is always remembered.
+        for (int i = added - 1000; i < added; i++) {
+            assertTrue(filter.mightContain("member-" + i));
+        }
+        int falsePositives = 0;
+        int checked = 100_000;
+        for (int i = 0; i < checked; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < checked * probability * 1.5, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void clearsMembers() {
+        DecayingBloomFilter filter = new DecayingBloomFilter(100, 0.001, Duration.ofMinutes(1));
+        filter.put("token");
+
+        filter.clear();
+        assertFalse(filter.mightContain("token"));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new DecayingBloomFilter(0, 0.01, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new DecayingBloomFilter(100, 0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new DecayingBloomFilter(100, 1, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new DecayingBloomFilter(100, 0.01, Duration.ofMillis(1)));
+        assertThrows(NullPointerException.class, () -> new DecayingBloomFilter(100, 0.01, null));
+    }
+}
@@ -0,0 +1,93 @@
+package me.zort.authorization.lib.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+    @Test
+    void evictsInInsertionOrder() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", "1", -1);
+        cache.put("b", "2", -1);
+        // Neither reads nor replacements move an entry back.
+        cache.get("a");
+        cache.put("a", "3", -1);
+        cache.put("c", "4", -1);
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertEquals("4", cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void countsReplacedEntriesOnce() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", "1", -1);
+        cache.put("b", "2", -1);
+        for (int i = 0; i < 100; i++) {
+            cache.put("b", "b" + i, -1);
+        }
+
+        assertEquals("1", cache.get("a"));
+        assertEquals("b99", cache.get("b"));
+    }
+
+    @Test
+    void reinsertsInvalidatedKeysAtTheEnd() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", "1", -1);
+        cache.put("b", "2", -1);
+        cache.invalidate("a");
+        cache.put("a", "3", -1);
+
+        // The position of the invalidated entry is evicted first, without removing anything.
+        assertEquals("2", cache.get("b"));
+        assertEquals("3", cache.get("a"));
+        cache.put("c", "4", -1);
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("a"));
+        assertEquals("4", cache.get("c"));
+    }
+
+    @Test
+    void expiresEntries() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMillis(50));
+        cache.put("ttl", "1", -1);
+        cache.put("expiration", "2", System.currentTimeMillis() + 20);
+        cache.put("expired", "3", System.currentTimeMillis() - 1);
+
+        assertEquals("1", cache.get("ttl"));
+        assertEquals("2", cache.get("expiration"));
+        assertNull(cache.get("expired"));
+        Thread.sleep(30);
+        assertNull(cache.get("expiration"));
+        Thread.sleep(30);
+        assertNull(cache.get("ttl"));
+    }
+
+    @Test
+    void servesStaleEntries() throws InterruptedException {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMillis(20), Duration.ofMinutes(1));
+        cache.put("a", "1", -1);
+        Thread.sleep(30);
+
+        assertNull(cache.get("a"));
+        ExpiringCache.Entry<String> entry = cache.getEntry("a");
+        assertNotNull(entry);
+        assertTrue(entry.isStale());
+        assertEquals("1", entry.value());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(1, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(1, Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> new ExpiringCache<>(1, Duration.ofMinutes(1), Duration.ofSeconds(-1)));
+    }
+}
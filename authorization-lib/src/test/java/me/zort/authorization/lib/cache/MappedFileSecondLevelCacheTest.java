@@ -0,0 +1,244 @@
+package me.zort.authorization.lib.cache;
+
+import me.zort.authorization.lib.model.UserDetails;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MappedFileSecondLevelCacheTest {
+
+    // Layout of the file, slots follow the header and start with the lock word.
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_COUNT = 4;
+    private static final int SLOT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+    private Process process;
+
+    @AfterEach
+    void destroyProcess() {
+        if (process != null) {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    void sharesEntriesBetweenInstances() throws IOException {
+        try (MappedFileSecondLevelCache first = open(); MappedFileSecondLevelCache second = open()) {
+            first.put("token", details("uuid"), -1);
+            assertEquals(details("uuid"), second.get("token"));
+            assertNull(second.get("other"));
+        }
+        try (MappedFileSecondLevelCache reopened = open()) {
+            assertEquals(details("uuid"), reopened.get("token"));
+        }
+    }
+
+    @Test
+    void invalidatesEntries() throws IOException {
+        try (MappedFileSecondLevelCache cache = open()) {
+            cache.put("first", details("a"), -1);
+            cache.put("second", details("b"), -1);
+            cache.invalidate("first");
+            assertNull(cache.get("first"));
+            assertEquals(details("b"), cache.get("second"));
+
+            cache.put("first", details("a"), -1);
+            cache.invalidateUsers(Set.of("b"));
+            assertEquals(details("a"), cache.get("first"));
+            assertNull(cache.get("second"));
+
+            cache.invalidateAll();
+            assertNull(cache.get("first"));
+        }
+    }
+
+    @Test
+    void expiresEntries() throws Exception {
+        try (MappedFileSecondLevelCache cache = open()) {
+            cache.put("expired", details("a"), System.currentTimeMillis() - 1);
+            assertNull(cache.get("expired"));
+
+            cache.put("token", details("a"), System.currentTimeMillis() + 100);
+            assertNotNull(cache.get("token"));
+            Thread.sleep(150);
+            assertNull(cache.get("token"));
+        }
+    }
+
+    @Test
+    void skipsDetailsNotFittingSlot() throws IOException {
+        try (MappedFileSecondLevelCache cache = open()) {
+            UserDetails large = new UserDetails(true, List.of("x".repeat(SLOT_SIZE)), "a", "group", "user");
+            cache.put("token", large, -1);
+            assertNull(cache.get("token"));
+        }
+    }
+
+    @Test
+    void rejectsDifferentLayout() throws IOException {
+        open().close();
+        assertThrows(IOException.class, () -> MappedFileSecondLevelCache.open(file(), SLOT_COUNT * 2, SLOT_SIZE, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void createsFileAccessibleByOwnerOnly() throws IOException {
+        assumeTrue(posix());
+        open().close();
+
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(file()));
+    }
+
+    @Test
+    void refusesFileAccessibleByOthers() throws IOException {
+        assumeTrue(posix());
+        open().close();
+        for (String permissions : List.of("rw-rw----", "rw----rw-", "rw-r--r--")) {
+            Files.setPosixFilePermissions(file(), PosixFilePermissions.fromString(permissions));
+            assertThrows(AccessDeniedException.class, this::open, permissions);
+        }
+    }
+
+    @Test
+    void refusesPlantedFile() throws IOException {
+        assumeTrue(posix());
+        // Created by someone else before the cache was ever opened.
+        Files.createFile(file(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-rw-rw-")));
+        Files.setPosixFilePermissions(file(), PosixFilePermissions.fromString("rw-rw-rw-"));
+
+        assertThrows(AccessDeniedException.class, this::open);
+    }
+
+    @Test
+    void refusesFileOwnedByOtherUser() throws IOException {
+        open().close();
+        try {
+            UserPrincipal nobody = file().getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName("nobody");
+            Files.setOwner(file(), nobody);
+        } catch (IOException e) {
+            // Only privileged users can give files away.
+            assumeTrue(false, "Can't change owner of the file: " + e);
+        }
+
+        assertThrows(AccessDeniedException.class, this::open);
+    }
+
+    @Test
+    void refusesSymbolicLink() throws IOException {
+        Path target = directory.resolve("target");
+        MappedFileSecondLevelCache.open(target, SLOT_COUNT, SLOT_SIZE, Duration.ofMinutes(1)).close();
+        try {
+            Files.createSymbolicLink(file(), target);
+        } catch (UnsupportedOperationException | IOException e) {
+            assumeTrue(false, "Symbolic links are not supported: " + e);
+        }
+
+        assertThrows(IOException.class, this::open);
+    }
+
+    @Test
+    void takesOverSlotsOfDeadWriter() throws Exception {
+        Process dead = new ProcessBuilder("true").start();
+        dead.waitFor();
+        try (MappedFileSecondLevelCache cache = open()) {
+            lockAllSlots(dead.pid());
+            assertNull(cache.get("token"));
+            cache.put("token", details("a"), -1);
+            assertEquals(details("a"), cache.get("token"));
+
+            lockAllSlots(dead.pid());
+            cache.invalidate("token");
+            cache.put("other", details("b"), -1);
+            assertNull(cache.get("token"));
+            assertEquals(details("b"), cache.get("other"));
+        }
+    }
+
+    @Test
+    void recoversOwnWritesOfPreviousProcess() throws IOException {
+        open().close();
+        lockAllSlots(ProcessHandle.current().pid());
+        try (MappedFileSecondLevelCache cache = open()) {
+            cache.put("token", details("a"), -1);
+            assertEquals(details("a"), cache.get("token"));
+        }
+    }
+
+    @Test
+    void invalidationWaitsForLiveWriter() throws Exception {
+        process = new ProcessBuilder("sleep", "30").start();
+        try (MappedFileSecondLevelCache cache = open()) {
+            cache.put("token", details("a"), -1);
+            long[] locks = lockAllSlots(process.pid());
+
+            // Best effort puts give up on a slot being written.
+            cache.put("other", details("b"), -1);
+            CompletableFuture<Void> invalidation = CompletableFuture.runAsync(() -> cache.invalidate("token"));
+            assertThrows(TimeoutException.class, () -> invalidation.get(200, TimeUnit.MILLISECONDS));
+
+            unlockAllSlots(locks);
+            invalidation.get(5, TimeUnit.SECONDS);
+            assertNull(cache.get("token"));
+            assertNull(cache.get("other"));
+        }
+    }
+
+    private MappedFileSecondLevelCache open() throws IOException {
+        return MappedFileSecondLevelCache.open(file(), SLOT_COUNT, SLOT_SIZE, Duration.ofMinutes(1));
+    }
+
+    private boolean posix() {
+        return directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+    }
+
+    private Path file() {
+        return directory.resolve("cache");
+    }
+
+    // Simulates another process in the middle of writing every slot.
+    private long[] lockAllSlots(long pid) throws IOException {
+        long[] locks = new long[SLOT_COUNT];
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                ByteBuffer word = ByteBuffer.allocate(8);
+                channel.read(word, HEADER_SIZE + (long) i * SLOT_SIZE);
+                int sequence = (int) word.getLong(0);
+                locks[i] = (pid << 32) | ((sequence | 1) & 0xFFFFFFFFL);
+                channel.write(ByteBuffer.allocate(8).putLong(0, locks[i]), HEADER_SIZE + (long) i * SLOT_SIZE);
+            }
+        }
+        return locks;
+    }
+
+    private void unlockAllSlots(long[] locks) throws IOException {
+        try (FileChannel channel = FileChannel.open(file(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < SLOT_COUNT; i++) {
+                channel.write(ByteBuffer.allocate(8).putLong(0, locks[i] + 1), HEADER_SIZE + (long) i * SLOT_SIZE);
+            }
+        }
+    }
+
+    private static UserDetails details(String uuid) {
+        return new UserDetails(true, List.of("a.b"), uuid, "group", "user");
+    }
+}
@@ -0,0 +1,216 @@
+package me.zort.authorization.lib.circuit;
+
+import com.google.gson.JsonObject;
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerHttpProcessorTest {
+
+    private static final long OPEN_MILLIS = 200;
+    private static final HttpProcessor.ResponseReader<String> READER = reader -> "ok";
+
+    private final ControlledProcessor delegate = new ControlledProcessor();
+    private final CircuitBreakerHttpProcessor processor = new CircuitBreakerHttpProcessor(delegate, 3, Duration.ofMillis(OPEN_MILLIS));
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        delegate.status.set(503);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(processor.isOpen());
+            assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+        }
+
+        assertTrue(processor.isOpen());
+        assertThrows(CircuitBreakerHttpProcessor.CircuitOpenException.class, this::perform);
+        assertEquals(3, delegate.requests.get());
+    }
+
+    @Test
+    void resetsFailureCountOnSuccess() {
+        delegate.status.set(503);
+        assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+        assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+        delegate.status.set(200);
+        assertEquals("ok", perform());
+        delegate.status.set(503);
+        assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+        assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+
+        assertFalse(processor.isOpen());
+    }
+
+    @Test
+    void staysClosedOnClientErrors() {
+        delegate.status.set(429);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+        }
+
+        assertFalse(processor.isOpen());
+        assertEquals(5, delegate.requests.get());
+    }
+
+    @Test
+    void countsErrorsWithoutResponseAsFailures() {
+        delegate.failure = new IllegalStateException("Connection refused");
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalStateException.class, this::perform);
+        }
+
+        assertTrue(processor.isOpen());
+    }
+
+    @Test
+    void reopensWhenTrialFails() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        // Half-open, the trial reaches the server.
+        assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+        assertEquals(4, delegate.requests.get());
+        assertTrue(processor.isOpen());
+        assertThrows(CircuitBreakerHttpProcessor.CircuitOpenException.class, this::perform);
+        assertEquals(4, delegate.requests.get());
+    }
+
+    @Test
+    void closesWhenTrialSucceeds() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 50);
+        delegate.status.set(200);
+
+        assertEquals("ok", perform());
+        assertFalse(processor.isOpen());
+        assertEquals("ok", perform());
+        assertEquals(5, delegate.requests.get());
+    }
+
+    @Test
+    void opensOnAsyncFailures() {
+        delegate.status.set(503);
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<String> future = performAsync();
+            delegate.completePending();
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertInstanceOf(HttpProcessor.BadStatusException.class, e.getCause());
+        }
+
+        assertTrue(processor.isOpen());
+        CompletionException e = assertThrows(CompletionException.class, () -> performAsync().join());
+        assertInstanceOf(CircuitBreakerHttpProcessor.CircuitOpenException.class, e.getCause());
+        assertEquals(3, delegate.requests.get());
+    }
+
+    @Test
+    void letsSingleAsyncTrialThrough() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 50);
+        delegate.status.set(200);
+
+        CompletableFuture<String> trial = performAsync();
+        // Other requests are rejected while the trial is in flight.
+        CompletionException e = assertThrows(CompletionException.class, () -> performAsync().join());
+        assertInstanceOf(CircuitBreakerHttpProcessor.CircuitOpenException.class, e.getCause());
+        assertThrows(CircuitBreakerHttpProcessor.CircuitOpenException.class, this::perform);
+
+        delegate.completePending();
+        assertEquals("ok", trial.join());
+        assertFalse(processor.isOpen());
+        CompletableFuture<String> next = performAsync();
+        delegate.completePending();
+        assertEquals("ok", next.join());
+    }
+
+    @Test
+    void cancelledTrialDoesNotCloseCircuit() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_MILLIS + 50);
+
+        performAsync().cancel(true);
+        assertTrue(processor.isOpen());
+        // Trial slot is released, so another trial may go through.
+        delegate.status.set(200);
+        CompletableFuture<String> trial = performAsync();
+        delegate.completePending();
+        assertEquals("ok", trial.join());
+        assertFalse(processor.isOpen());
+    }
+
+    private void open() {
+        delegate.status.set(503);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpProcessor.BadStatusException.class, this::perform);
+        }
+        assertTrue(processor.isOpen());
+    }
+
+    private String perform() {
+        return processor.perform("/v1/user/details", "GET", Map.of(), null, READER);
+    }
+
+    private CompletableFuture<String> performAsync() {
+        return processor.performAsync("/v1/user/details", "GET", Map.of(), null, READER);
+    }
+
+    // Answers synchronous requests right away, asynchronous ones once completePending() is called.
+    private static final class ControlledProcessor extends HttpProcessor {
+        private final AtomicInteger status = new AtomicInteger(200);
+        private final AtomicInteger requests = new AtomicInteger();
+        private final Queue<CompletableFuture<String>> pending = new ConcurrentLinkedQueue<>();
+        private volatile RuntimeException failure;
+
+        @Override
+        public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> @Nullable T perform(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+            requests.incrementAndGet();
+            return (T) respond();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> @NotNull CompletableFuture<@Nullable T> performAsync(String relativeUrl, String method, Map<String, String> headers, byte @Nullable [] body, @NotNull ResponseReader<T> reader) {
+            requests.incrementAndGet();
+            CompletableFuture<String> future = new CompletableFuture<>();
+            pending.add(future);
+            return (CompletableFuture<T>) future;
+        }
+
+        private void completePending() {
+            CompletableFuture<String> future;
+            while ((future = pending.poll()) != null) {
+                try {
+                    future.complete(respond());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        }
+
+        private String respond() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (status.get() != 200) {
+                throw new BadStatusException(status.get());
+            }
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package me.zort.authorization.lib.flight;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    @Test
+    void coalescesConcurrentCalls() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> flight.call("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "result";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> flight.call("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        }));
+        CompletableFuture<String> async = flight.callAsync("key", () -> CompletableFuture.completedFuture("other"));
+        // Gives the second caller time to join the flight.
+        Thread.sleep(100);
+
+        release.countDown();
+        assertEquals("result", first.get(5, TimeUnit.SECONDS));
+        assertEquals("result", second.get(5, TimeUnit.SECONDS));
+        assertEquals("result", async.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, flight.inFlight());
+    }
+
+    @Test
+    void propagatesErrorsToWaitingCallers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> failing = CompletableFuture.supplyAsync(() -> flight.call("key", () -> {
+            started.countDown();
+            await(release);
+            throw new StackOverflowError();
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> flight.call("key", () -> "other"));
+        // Gives the second caller time to join the flight.
+        Thread.sleep(100);
+
+        release.countDown();
+        assertInstanceOf(StackOverflowError.class, assertThrows(Exception.class, () -> failing.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(StackOverflowError.class, assertThrows(Exception.class, () -> waiting.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals(0, flight.inFlight());
+        assertEquals("next", flight.call("key", () -> "next"));
+    }
+
+    @Test
+    void completesAsyncCallsThatFailToStart() {
+        CompletableFuture<String> future = flight.callAsync("key", () -> {
+            throw new AssertionError("Failed to start");
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(AssertionError.class, e.getCause());
+        assertEquals(0, flight.inFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package me.zort.authorization.lib.invalidation;
+
+import com.sun.net.httpserver.HttpExchange;
+import me.zort.authorization.lib.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerSentEventsInvalidationStreamTest {
+
+    private final BlockingQueue<InvalidationEvent> events = new LinkedBlockingQueue<>();
+    private final CountDownLatch released = new CountDownLatch(1);
+    private TestServer server;
+    private InvalidationStream.Subscription subscription;
+
+    @AfterEach
+    void close() {
+        released.countDown();
+        if (subscription != null) {
+            subscription.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void deliversRecognizedEvents() throws Exception {
+        subscribe(List.of("""
+                : keep-alive
+
+                event: tokens-revoked
+                data: first
+                data:second
+
+                event: unknown
+                data: ignored
+
+                event: users-changed
+                data: 5f0c3e1a
+
+                event: tokens-revoked
+
+                event: reset
+
+                """));
+
+        assertEquals(InvalidationEvent.all(), next());
+        assertEquals(InvalidationEvent.tokensRevoked(Set.of("first", "second")), next());
+        assertEquals(InvalidationEvent.usersChanged(Set.of("5f0c3e1a")), next());
+        assertEquals(InvalidationEvent.all(), next());
+        assertNull(events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void resumesFromLastEventAfterReconnect() throws Exception {
+        subscribe(List.of("""
+                id: 7
+                event: tokens-revoked
+                data: revoked
+
+                """, """
+                event: users-changed
+                data: changed
+
+                """));
+
+        assertEquals(InvalidationEvent.all(), next());
+        assertEquals(InvalidationEvent.tokensRevoked(Set.of("revoked")), next());
+        // Events published while disconnected are lost, so everything is invalidated.
+        assertEquals(InvalidationEvent.all(), next());
+        assertEquals(InvalidationEvent.usersChanged(Set.of("changed")), next());
+
+        assertNull(server.requests().get(0).getFirst("Last-Event-ID"));
+        assertEquals("7", server.requests().get(1).getFirst("Last-Event-ID"));
+        assertEquals("text/event-stream", server.requests().get(1).getFirst("Accept"));
+    }
+
+    @Test
+    void invalidatesEverythingWhenServerBecomesReachable() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            port = socket.getLocalPort();
+        }
+        subscription = new ServerSentEventsInvalidationStream.Builder()
+                .url("/events")
+                .reconnectDelay(Duration.ofMillis(50))
+                .build()
+                .subscribe("http://127.0.0.1:" + port, events::add);
+        // Connection attempts fail while nothing listens on the port.
+        assertNull(events.poll(300, TimeUnit.MILLISECONDS));
+
+        server = new TestServer(port).handle("/events", exchange -> {
+            stream(exchange, "event: users-changed\ndata: changed\n\n");
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Revocations published while unreachable are lost, so cached verifications are dropped.
+        assertEquals(InvalidationEvent.all(), next());
+        assertEquals(InvalidationEvent.usersChanged(Set.of("changed")), next());
+    }
+
+    @Test
+    void doesNotRetryFasterThanConfigured() throws Exception {
+        AtomicInteger connections = new AtomicInteger();
+        server = new TestServer().handle("/events", exchange -> {
+            connections.incrementAndGet();
+            stream(exchange, "retry: 0\n\nretry: -1\n\nretry: 1e3\n\n");
+        });
+        subscription = new ServerSentEventsInvalidationStream.Builder()
+                .url("/events")
+                .reconnectDelay(Duration.ofMillis(100))
+                .build()
+                .subscribe(server.url(), events::add);
+
+        Thread.sleep(1000);
+        assertTrue(connections.get() <= 10, "Reconnected " + connections.get() + " times");
+    }
+
+    // Each connection streams the next script and is dropped, the last one is held open.
+    private void subscribe(List<String> scripts) throws IOException {
+        AtomicInteger connection = new AtomicInteger();
+        server = new TestServer().handle("/events", exchange -> {
+            int index = connection.getAndIncrement();
+            if (index >= scripts.size()) {
+                TestServer.respond(exchange, 503, "");
+                return;
+            }
+            stream(exchange, scripts.get(index));
+            if (index == scripts.size() - 1) {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        subscription = new ServerSentEventsInvalidationStream.Builder()
+                .url("/events")
+                .reconnectDelay(Duration.ofMillis(50))
+                .build()
+                .subscribe(server.url(), events::add);
+    }
+
+    private static void stream(HttpExchange exchange, String script) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+        body.write(script.getBytes(StandardCharsets.UTF_8));
+        body.flush();
+    }
+
+    private InvalidationEvent next() throws InterruptedException {
+        InvalidationEvent event = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event, "No event received");
+        return event;
+    }
+}
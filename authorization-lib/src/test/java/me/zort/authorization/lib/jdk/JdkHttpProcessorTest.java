@@ -0,0 +1,161 @@
+package me.zort.authorization.lib.jdk;
+
+import com.google.gson.JsonObject;
+import me.zort.authorization.lib.HttpProcessor;
+import me.zort.authorization.lib.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdkHttpProcessorTest {
+
+    private static final HttpProcessor.ResponseReader<String> USERNAME = reader -> {
+        String username = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("username")) {
+                username = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return username;
+    };
+
+    private TestServer server;
+    private JdkHttpProcessor processor;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new TestServer()
+                .handle("/ok", exchange -> TestServer.respond(exchange, 200, "{\"username\":\"user\"}"))
+                .handle("/unauthorized", exchange -> TestServer.respond(exchange, 401, ""))
+                .handle("/gzip", exchange -> {
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    try (OutputStream out = new GZIPOutputStream(compressed)) {
+                        out.write("{\"username\":\"gzipped\"}".getBytes(StandardCharsets.UTF_8));
+                    }
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    exchange.sendResponseHeaders(200, compressed.size());
+                    exchange.getResponseBody().write(compressed.toByteArray());
+                })
+                .handle("/etag", exchange -> {
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        exchange.sendResponseHeaders(304, -1);
+                    } else {
+                        TestServer.respond(exchange, 200, "{\"username\":\"user\"}");
+                    }
+                })
+                .handle("/slow", exchange -> {
+                    try {
+                        Thread.sleep(2000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    TestServer.respond(exchange, 200, "{}");
+                });
+        processor = server.assign(new JdkHttpProcessor.Builder()
+                .requestTimeout(Duration.ofMillis(500))
+                .build());
+    }
+
+    @AfterEach
+    void stopServer() {
+        processor.close();
+        server.close();
+    }
+
+    @Test
+    void readsSuccessfulResponse() {
+        assertEquals("user", processor.perform("/ok", "GET", Map.of(), null, USERNAME));
+        assertEquals("user", processor.performAsync("/ok", "GET", Map.of(), null, USERNAME).join());
+        JsonObject tree = processor.perform("/ok", "POST", Map.of(), new JsonObject());
+        assertNotNull(tree);
+        assertEquals("user", tree.get("username").getAsString());
+        assertEquals("user", processor.performAsync("/ok", "POST", Map.of(), new JsonObject()).join().get("username").getAsString());
+    }
+
+    @Test
+    void failsOnBadStatus() {
+        HttpProcessor.BadStatusException e = assertThrows(HttpProcessor.BadStatusException.class,
+                () -> processor.perform("/unauthorized", "GET", Map.of(), null, USERNAME));
+        assertEquals(401, e.getCode());
+
+        CompletionException async = assertThrows(CompletionException.class,
+                () -> processor.performAsync("/unauthorized", "GET", Map.of(), null, USERNAME).join());
+        assertEquals(401, assertInstanceOf(HttpProcessor.BadStatusException.class, async.getCause()).getCode());
+    }
+
+    @Test
+    void decodesGzipResponses() {
+        assertEquals("gzipped", processor.perform("/gzip", "GET", Map.of(), null, USERNAME));
+        assertEquals("gzipped", processor.performAsync("/gzip", "GET", Map.of(), null, USERNAME).join());
+        assertEquals("gzip", server.requests().get(0).getFirst("Accept-Encoding"));
+    }
+
+    @Test
+    void revalidatesWithEntityTag() {
+        HttpProcessor.ConditionalResponse<String> full = processor.performConditional("/etag", "GET", Map.of(), null, null, USERNAME);
+        assertFalse(full.notModified());
+        assertEquals("user", full.body());
+        assertEquals("\"v1\"", full.etag());
+
+        HttpProcessor.ConditionalResponse<String> revalidated = processor.performConditional("/etag", "GET", Map.of(), null, full.etag(), USERNAME);
+        assertTrue(revalidated.notModified());
+        assertNull(revalidated.body());
+        assertEquals("\"v1\"", revalidated.etag());
+
+        HttpProcessor.ConditionalResponse<String> async = processor.performConditionalAsync("/etag", "GET", Map.of(), null, full.etag(), USERNAME).join();
+        assertTrue(async.notModified());
+        assertFalse(processor.performConditionalAsync("/etag", "GET", Map.of(), null, "\"v0\"", USERNAME).join().notModified());
+    }
+
+    @Test
+    void timesOutSlowRequests() {
+        UncheckedIOException e = assertThrows(UncheckedIOException.class,
+                () -> processor.perform("/slow", "GET", Map.of(), null, USERNAME));
+        assertInstanceOf(HttpTimeoutException.class, e.getCause());
+
+        CompletionException async = assertThrows(CompletionException.class,
+                () -> processor.performAsync("/slow", "GET", Map.of(), null, USERNAME).join());
+        assertInstanceOf(HttpTimeoutException.class, async.getCause());
+    }
+
+    @Test
+    void doesNotDuplicateCallerHeaders() {
+        processor.performConditional("/etag", "POST", Map.of(
+                "Content-Type", "application/json; charset=utf-8",
+                "Accept-Encoding", "identity",
+                "If-None-Match", "\"stale\""), new byte[] {'{', '}'}, "\"v1\"", USERNAME);
+
+        var headers = server.requests().get(0);
+        assertEquals(List.of("application/json; charset=utf-8"), headers.get("Content-Type"));
+        assertEquals(List.of("identity"), headers.get("Accept-Encoding"));
+        assertEquals(List.of("\"v1\""), headers.get("If-None-Match"));
+    }
+
+    @Test
+    void checksVirtualThreadSupportEagerly() {
+        if (Runtime.version().feature() >= 21) {
+            new JdkHttpProcessor.Builder().virtualThreads().build().close();
+        } else {
+            assertThrows(UnsupportedOperationException.class, () -> new JdkHttpProcessor.Builder().virtualThreads());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package me.zort.authorization.lib.jwt;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.security.KeyPair;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonWebTokenTest {
+
+    @Test
+    void acceptsSignedTokens() throws Exception {
+        KeyPair rsa = TestTokens.rsaKeyPair();
+        KeyPair ec = TestTokens.ecKeyPair();
+
+        assertTrue(JsonWebToken.isWellFormed(TestTokens.sign("RS256", "k", rsa.getPrivate(), TestTokens.claims())));
+        assertTrue(JsonWebToken.isWellFormed(TestTokens.sign("ES256", null, ec.getPrivate(), TestTokens.claims())));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "eyJhbGciOiJIUzI1NiJ9.e30.c2ln",
+            "eyJhbGciOiJub25lIn0.eyJzdWIiOiJ1c2VyIn0.AAAA",
+            "eyJhbGciOiJIUzI1NiJ9.e30.c2ln-_"
+    })
+    void acceptsTokensOfJwtShape(String token) {
+        assertTrue(JsonWebToken.isWellFormed(token));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            // Opaque tokens
+            "3f2a9c1e7b6d4a58",
+            "c2Vzc2lvbi10b2tlbg",
+            // Wrong number of segments
+            "eyJhbGciOiJIUzI1NiJ9.e30",
+            "eyJhbGciOiJIUzI1NiJ9.e30.c2ln.c2ln",
+            // Empty segments
+            "eyJhbGciOiJIUzI1NiJ9..c2ln",
+            "eyJhbGciOiJIUzI1NiJ9.e30.",
+            ".e30.c2ln",
+            // Header or payload not encoding a JSON object
+            "WyJhIl0.e30.c2ln",
+            "eyJhbGciOiJIUzI1NiJ9.WyJhIl0.c2ln",
+            // Length of a segment no base64 encoding has
+            "eyJhbGciOiJIUzI1NiJ9.e30.c2lnc",
+            // Characters outside of base64url
+            "eyJhbGciOiJIUzI1NiJ9.e30.c2l+",
+            "eyJhbGciOiJIUzI1NiJ9.e30.c2l=",
+            "eyJhbGciOiJIUzI1NiJ9.e30.c2l n",
+            "Bearer eyJhbGciOiJIUzI1NiJ9.e30.c2ln"
+    })
+    void rejectsOtherShapes(String token) {
+        assertFalse(JsonWebToken.isWellFormed(token));
+    }
+
+    @Test
+    void rejectsOversizedTokens() {
+        String token = "eyJhbGciOiJIUzI1NiJ9.e30." + "A".repeat(16 * 1024);
+
+        assertFalse(JsonWebToken.isWellFormed(token));
+    }
+}
@@ -0,0 +1,159 @@
+package me.zort.authorization.lib.jwt;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JwtVerifierTest {
+
+    private static KeyPair rsa;
+    private static KeyPair ec;
+
+    @BeforeAll
+    static void generateKeys() throws GeneralSecurityException {
+        rsa = TestTokens.rsaKeyPair();
+        ec = TestTokens.ecKeyPair();
+    }
+
+    @Test
+    void acceptsValidRsaSignature() throws GeneralSecurityException {
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), TestTokens.claims());
+        assertEquals(JwtVerifier.Result.VALID, verifier().verify(decode(token)));
+    }
+
+    @Test
+    void acceptsValidEcSignature() throws GeneralSecurityException {
+        String token = TestTokens.sign("ES256", "ec", ec.getPrivate(), TestTokens.claims());
+        assertEquals(JwtVerifier.Result.VALID, verifier().verify(decode(token)));
+    }
+
+    @Test
+    void rejectsTamperedPayload() throws GeneralSecurityException {
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), TestTokens.claims());
+        JsonObject forged = TestTokens.claims();
+        forged.addProperty("sub", "admin");
+        String forgedToken = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), forged);
+        String tampered = forgedToken.substring(0, forgedToken.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+        assertEquals(JwtVerifier.Result.INVALID, verifier().verify(decode(tampered)));
+    }
+
+    @Test
+    void rejectsSignatureOfAnotherKey() throws GeneralSecurityException {
+        String token = TestTokens.sign("RS256", "rsa", TestTokens.rsaKeyPair().getPrivate(), TestTokens.claims());
+        assertEquals(JwtVerifier.Result.INVALID, verifier().verify(decode(token)));
+    }
+
+    @Test
+    void rejectsKeyOfWrongType() throws GeneralSecurityException {
+        String token = TestTokens.sign("ES256", "rsa", ec.getPrivate(), TestTokens.claims());
+        assertEquals(JwtVerifier.Result.INVALID, verifier().verify(decode(token)));
+    }
+
+    @Test
+    void reportsUnknownKey() throws GeneralSecurityException {
+        String token = TestTokens.sign("RS256", "rotated", rsa.getPrivate(), TestTokens.claims());
+        assertEquals(JwtVerifier.Result.UNKNOWN_KEY, verifier().verify(decode(token)));
+    }
+
+    @Test
+    void rejectsExpiredToken() throws GeneralSecurityException {
+        JsonObject claims = TestTokens.claims();
+        claims.addProperty("exp", System.currentTimeMillis() / 1000 - 60);
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims);
+        assertEquals(JwtVerifier.Result.INVALID, verifier().verify(decode(token)));
+    }
+
+    @Test
+    void toleratesClockSkewOnExpiration() throws GeneralSecurityException {
+        JsonObject claims = TestTokens.claims();
+        claims.addProperty("exp", System.currentTimeMillis() / 1000 - 5);
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims);
+        assertEquals(JwtVerifier.Result.VALID, verifier().verify(decode(token)));
+    }
+
+    @Test
+    void rejectsTokenWithoutExpiration() throws GeneralSecurityException {
+        JsonObject claims = TestTokens.claims();
+        claims.remove("exp");
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims);
+        assertEquals(JwtVerifier.Result.INVALID, verifier().verify(decode(token)));
+
+        JwtVerifier lenient = new JwtVerifier(Duration.ofSeconds(30), null, null, false);
+        lenient.setKeys(Map.of("rsa", rsa.getPublic()));
+        assertEquals(JwtVerifier.Result.VALID, lenient.verify(decode(token)));
+    }
+
+    @Test
+    void rejectsTokenNotValidYet() throws GeneralSecurityException {
+        JsonObject claims = TestTokens.claims();
+        claims.addProperty("nbf", System.currentTimeMillis() / 1000 + 600);
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims);
+        assertEquals(JwtVerifier.Result.INVALID, verifier().verify(decode(token)));
+
+        claims.addProperty("nbf", System.currentTimeMillis() / 1000 + 5);
+        String skewed = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims);
+        assertEquals(JwtVerifier.Result.VALID, verifier().verify(decode(skewed)));
+    }
+
+    @Test
+    void checksAudience() throws GeneralSecurityException {
+        JwtVerifier verifier = new JwtVerifier(Duration.ofSeconds(30), null, "shop");
+        verifier.setKeys(Map.of("rsa", rsa.getPublic()));
+
+        JsonObject claims = TestTokens.claims();
+        assertEquals(JwtVerifier.Result.INVALID, verifier.verify(decode(sign(claims))));
+        claims.addProperty("aud", "shop");
+        assertEquals(JwtVerifier.Result.VALID, verifier.verify(decode(sign(claims))));
+        claims.addProperty("aud", "billing");
+        assertEquals(JwtVerifier.Result.INVALID, verifier.verify(decode(sign(claims))));
+
+        JsonArray audiences = new JsonArray();
+        audiences.add(new JsonObject());
+        audiences.add("billing");
+        claims.add("aud", audiences);
+        assertEquals(JwtVerifier.Result.INVALID, verifier.verify(decode(sign(claims))));
+        audiences.add("shop");
+        assertEquals(JwtVerifier.Result.VALID, verifier.verify(decode(sign(claims))));
+
+        claims.add("aud", new JsonObject());
+        assertEquals(JwtVerifier.Result.INVALID, verifier.verify(decode(sign(claims))));
+    }
+
+    @Test
+    void checksIssuer() throws GeneralSecurityException {
+        JwtVerifier verifier = new JwtVerifier(Duration.ofSeconds(30), "ketchup", null);
+        verifier.setKeys(Map.of("rsa", rsa.getPublic()));
+
+        JsonObject claims = TestTokens.claims();
+        claims.addProperty("iss", "someone-else");
+        assertEquals(JwtVerifier.Result.INVALID, verifier.verify(decode(sign(claims))));
+        claims.addProperty("iss", "ketchup");
+        assertEquals(JwtVerifier.Result.VALID, verifier.verify(decode(sign(claims))));
+    }
+
+    private static JwtVerifier verifier() {
+        JwtVerifier verifier = new JwtVerifier(Duration.ofSeconds(30), null, null);
+        verifier.setKeys(Map.of("rsa", rsa.getPublic(), "ec", ec.getPublic()));
+        return verifier;
+    }
+
+    private static String sign(JsonObject claims) throws GeneralSecurityException {
+        return TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims);
+    }
+
+    private static JsonWebToken decode(String token) {
+        JsonWebToken decoded = JsonWebToken.decode(token);
+        if (decoded == null) {
+            throw new AssertionError("Token is not well-formed: " + token);
+        }
+        return decoded;
+    }
+}
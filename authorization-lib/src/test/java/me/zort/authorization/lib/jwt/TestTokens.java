@@ -0,0 +1,83 @@
+package me.zort.authorization.lib.jwt;
+
+import com.google.gson.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Signs tokens with locally generated keys.
+ */
+public final class TestTokens {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private TestTokens() {
+    }
+
+    public static KeyPair rsaKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    public static KeyPair ecKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Returns claims expiring in an hour.
+     */
+    public static JsonObject claims() {
+        JsonObject claims = new JsonObject();
+        claims.addProperty("sub", "user");
+        claims.addProperty("exp", System.currentTimeMillis() / 1000 + 3600);
+        return claims;
+    }
+
+    public static String sign(String algorithm, String keyId, PrivateKey key, JsonObject claims) throws GeneralSecurityException {
+        JsonObject header = new JsonObject();
+        header.addProperty("alg", algorithm);
+        if (keyId != null) {
+            header.addProperty("kid", keyId);
+        }
+        String signingInput = encode(header.toString()) + "." + encode(claims.toString());
+        Signature signature = Signature.getInstance(algorithm.startsWith("ES")
+                ? "SHA" + algorithm.substring(2) + "withECDSA"
+                : "SHA" + algorithm.substring(2) + "withRSA");
+        signature.initSign(key);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        byte[] signed = signature.sign();
+        if (algorithm.startsWith("ES")) {
+            signed = derToConcat(signed, 32);
+        }
+        return signingInput + "." + BASE64_URL.encodeToString(signed);
+    }
+
+    private static String encode(String json) {
+        return BASE64_URL.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // JCA produces an ASN.1 DER sequence, JWS expects R || S of fixed length.
+    private static byte[] derToConcat(byte[] der, int length) {
+        int offset = der[1] == (byte) 0x81 ? 3 : 2;
+        byte[] concat = new byte[length * 2];
+        for (int part = 0; part < 2; part++) {
+            int integerLength = der[offset + 1];
+            byte[] integer = Arrays.copyOfRange(der, offset + 2, offset + 2 + integerLength);
+            int start = Math.max(0, integer.length - length);
+            System.arraycopy(integer, start, concat, part * length + length - (integer.length - start), integer.length - start);
+            offset += 2 + integerLength;
+        }
+        return concat;
+    }
+}
@@ -0,0 +1,117 @@
+package me.zort.authorization.lib.okhttp;
+
+import com.squareup.okhttp.OkHttpClient;
+import me.zort.authorization.lib.HttpProcessor;
+import me.zort.authorization.lib.TestServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OkHttpProcessorTest {
+
+    private static final long DEADLINE_MILLIS = 300;
+    private static final HttpProcessor.ResponseReader<String> USERNAME = reader -> {
+        String username = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("username")) {
+                username = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return username;
+    };
+
+    private final CountDownLatch released = new CountDownLatch(1);
+    private TestServer server;
+    private OkHttpProcessor processor;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new TestServer()
+                .handle("/ok", exchange -> TestServer.respond(exchange, 200, "{\"username\":\"user\"}"))
+                .handle("/slow", exchange -> {
+                    // Headers arrive in time, the body doesn't, so only the deadline can end the call.
+                    exchange.sendResponseHeaders(200, 0);
+                    OutputStream body = exchange.getResponseBody();
+                    body.write("{\"username\":".getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                    await();
+                })
+                .handle("/stalled", exchange -> await());
+        OkHttpClient client = new OkHttpClient();
+        client.setReadTimeout(10, TimeUnit.SECONDS);
+        processor = server.assign(new OkHttpProcessor(client, Duration.ofMillis(DEADLINE_MILLIS)));
+    }
+
+    @AfterEach
+    void stopServer() {
+        released.countDown();
+        server.close();
+    }
+
+    @Test
+    void completesCallsWithinDeadline() throws Exception {
+        assertEquals("user", processor.perform("/ok", "GET", Map.of(), null, USERNAME));
+        assertEquals("user", processor.performAsync("/ok", "GET", Map.of(), null, USERNAME).get(5, TimeUnit.SECONDS));
+        // The deadline of a finished call must not affect later calls on the connection.
+        Thread.sleep(DEADLINE_MILLIS + 100);
+        assertEquals("user", processor.perform("/ok", "GET", Map.of(), null, USERNAME));
+    }
+
+    @Test
+    void cancelsCallAtDeadline() {
+        for (String path : new String[] {"/stalled", "/slow"}) {
+            long start = System.nanoTime();
+            RuntimeException e = assertThrows(RuntimeException.class, () -> processor.perform(path, "GET", Map.of(), null, USERNAME));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertInstanceOf(SocketTimeoutException.class, e.getCause(), path);
+            assertTrue(elapsedMillis >= DEADLINE_MILLIS && elapsedMillis < 5000, path + " took " + elapsedMillis + "ms");
+        }
+    }
+
+    @Test
+    void cancelsAsyncCallAtDeadline() {
+        for (String path : new String[] {"/stalled", "/slow"}) {
+            long start = System.nanoTime();
+            CompletableFuture<String> future = processor.performAsync(path, "GET", Map.of(), null, USERNAME);
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertInstanceOf(UncheckedIOException.class, e.getCause(), path);
+            assertInstanceOf(SocketTimeoutException.class, e.getCause().getCause(), path);
+            assertTrue(elapsedMillis >= DEADLINE_MILLIS && elapsedMillis < 5000, path + " took " + elapsedMillis + "ms");
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveDeadline() {
+        assertThrows(IllegalArgumentException.class, () -> new OkHttpProcessor(new OkHttpClient(), Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> new OkHttpProcessor(new OkHttpClient(), Duration.ofSeconds(-1)));
+    }
+
+    private void await() {
+        try {
+            released.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
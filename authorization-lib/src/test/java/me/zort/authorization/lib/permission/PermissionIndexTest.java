@@ -0,0 +1,128 @@
+package me.zort.authorization.lib.permission;
+
+import me.zort.authorization.lib.model.UserDetails;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionIndexTest {
+
+    @Test
+    void grantsExactNodes() {
+        PermissionIndex index = PermissionIndex.compile(List.of("shop.orders.read", "admin"));
+
+        assertTrue(index.isGranted("shop.orders.read"));
+        assertTrue(index.isGranted("admin"));
+        assertFalse(index.isGranted("shop.orders"));
+        assertFalse(index.isGranted("shop.orders.read.all"));
+        assertFalse(index.isGranted("shop.orders.write"));
+        assertFalse(index.isGranted("admin.users"));
+    }
+
+    @Test
+    void grantsNodesBelowWildcards() {
+        PermissionIndex index = PermissionIndex.compile(List.of("shop.*", "admin.users.*"));
+
+        assertTrue(index.isGranted("shop.orders"));
+        assertTrue(index.isGranted("shop.orders.read"));
+        assertTrue(index.isGranted("admin.users.delete"));
+        assertTrue(index.isGranted("admin.users.roles.edit"));
+        // A wildcard doesn't grant its parent.
+        assertFalse(index.isGranted("shop"));
+        assertFalse(index.isGranted("admin.users"));
+        assertFalse(index.isGranted("admin.groups"));
+        assertFalse(index.isGranted("shopping.cart"));
+    }
+
+    @Test
+    void prefersMostSpecificNode() {
+        PermissionIndex index = PermissionIndex.compile(List.of("shop.*", "-shop.orders.*", "shop.orders.read.*", "-shop.cart"));
+
+        assertTrue(index.isGranted("shop.products"));
+        assertFalse(index.isGranted("shop.cart"));
+        assertFalse(index.isGranted("shop.orders.write"));
+        // Granted by a deeper wildcard than the negated one.
+        assertTrue(index.isGranted("shop.orders.read.all"));
+        // Not covered by shop.orders.read.*, so denied by -shop.orders.*.
+        assertFalse(index.isGranted("shop.orders.read"));
+    }
+
+    @Test
+    void prefersExactNodeOverWildcard() {
+        PermissionIndex index = PermissionIndex.compile(List.of("-admin.*", "admin.audit", "shop.*", "-shop.orders"));
+
+        assertTrue(index.isGranted("admin.audit"));
+        assertFalse(index.isGranted("admin.users"));
+        assertFalse(index.isGranted("shop.orders"));
+        assertTrue(index.isGranted("shop.orders.read"));
+    }
+
+    @Test
+    void negationWinsTies() {
+        for (List<String> permissions : List.of(
+                List.of("shop.orders", "-shop.orders", "shop.*", "-shop.*"),
+                List.of("-shop.orders", "shop.orders", "-shop.*", "shop.*"))) {
+            PermissionIndex index = PermissionIndex.compile(permissions);
+            assertFalse(index.isGranted("shop.orders"), permissions.toString());
+            assertFalse(index.isGranted("shop.cart"), permissions.toString());
+        }
+    }
+
+    @Test
+    void grantsEverythingWithLoneWildcard() {
+        PermissionIndex index = PermissionIndex.compile(List.of("*"));
+
+        assertTrue(index.isGranted("admin"));
+        assertTrue(index.isGranted("admin.users.delete"));
+
+        PermissionIndex negated = PermissionIndex.compile(List.of("*", "-admin.*"));
+        assertTrue(negated.isGranted("admin"));
+        assertFalse(negated.isGranted("admin.users"));
+
+        assertFalse(PermissionIndex.compile(List.of("-*")).isGranted("admin"));
+    }
+
+    @Test
+    void ignoresEmptyNodes() {
+        List<String> permissions = new ArrayList<>(List.of("", "-", "shop.read"));
+        permissions.add(null);
+        PermissionIndex index = PermissionIndex.compile(permissions);
+
+        assertTrue(index.isGranted("shop.read"));
+        assertFalse(index.isGranted(""));
+        assertFalse(index.isGranted("-"));
+        assertFalse(PermissionIndex.EMPTY.isGranted("shop.read"));
+        assertFalse(PermissionIndex.EMPTY.isGranted(""));
+        assertFalse(PermissionIndex.compile(List.of()).isGranted("shop.read"));
+    }
+
+    @Test
+    void matchesUserDetailsWithoutWildcards() {
+        Random random = new Random(7);
+        String[] segments = {"shop", "orders", "read", "write", "admin", "users", "a", "b"};
+        for (int round = 0; round < 200; round++) {
+            List<String> permissions = new ArrayList<>();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                permissions.add(randomNode(random, segments));
+            }
+            UserDetails details = new UserDetails(true, permissions, "uuid", "group", "user");
+            PermissionIndex index = PermissionIndex.compile(permissions);
+            for (int i = 0; i < 50; i++) {
+                String node = i < permissions.size() ? permissions.get(i) : randomNode(random, segments);
+                assertEquals(details.hasPermission(node), index.isGranted(node), permissions + " " + node);
+            }
+        }
+    }
+
+    private static String randomNode(Random random, String[] segments) {
+        StringBuilder node = new StringBuilder(segments[random.nextInt(segments.length)]);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            node.append('.').append(segments[random.nextInt(segments.length)]);
+        }
+        return node.toString();
+    }
+}
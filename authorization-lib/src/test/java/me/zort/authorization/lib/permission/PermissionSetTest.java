@@ -0,0 +1,50 @@
+package me.zort.authorization.lib.permission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionSetTest {
+
+    @Test
+    void keepsProvidedOrderAndDuplicates() {
+        PermissionDictionary dictionary = new PermissionDictionary(100);
+        PermissionSet.of(List.of("a", "b", "c"), dictionary);
+
+        List<String> permissions = PermissionSet.of(List.of("c", "a", "c", "b"), dictionary);
+
+        assertInstanceOf(PermissionSet.class, permissions);
+        assertEquals(List.of("c", "a", "c", "b"), permissions);
+        assertEquals(0, permissions.indexOf("c"));
+        assertEquals(2, permissions.lastIndexOf("c"));
+        assertEquals(-1, permissions.indexOf("d"));
+    }
+
+    @Test
+    void findsNodesRegardlessOfOrder() {
+        PermissionDictionary dictionary = new PermissionDictionary(100);
+        PermissionSet.of(List.of("a", "b", "c", "d"), dictionary);
+
+        PermissionSet permissions = (PermissionSet) PermissionSet.of(List.of("d", "b", "a"), dictionary);
+
+        assertTrue(permissions.has("a"));
+        assertTrue(permissions.has("b"));
+        assertTrue(permissions.has("d"));
+        assertFalse(permissions.has("c"));
+        assertFalse(permissions.has("e"));
+        assertFalse(permissions.contains(1));
+    }
+
+    @Test
+    void copiesNodesWhenDictionaryIsFull() {
+        PermissionDictionary dictionary = new PermissionDictionary(2);
+
+        List<String> permissions = PermissionSet.of(Arrays.asList("b", "a", "c", null), dictionary);
+
+        assertFalse(permissions instanceof PermissionSet);
+        assertEquals(Arrays.asList("b", "a", "c", null), permissions);
+    }
+}
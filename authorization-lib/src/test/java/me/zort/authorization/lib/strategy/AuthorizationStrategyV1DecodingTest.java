@@ -0,0 +1,129 @@
+package me.zort.authorization.lib.strategy;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.zort.authorization.lib.AuthorizationStrategy;
+import me.zort.authorization.lib.StubHttpProcessor;
+import me.zort.authorization.lib.model.UserDetails;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares streaming decoders of {@link AuthorizationStrategyV1} with mapping
+ * of parsed {@link JsonObject}s, the way responses were decoded before.
+ */
+class AuthorizationStrategyV1DecodingTest {
+
+    private static final String DETAILS_PATH = "/v1/user/details?includePermissions=true";
+    private static final AuthorizationStrategy.Token TOKEN = new AuthorizationStrategy.Token("token", null, Long.MAX_VALUE);
+
+    private final AuthorizationStrategyV1 strategy = new AuthorizationStrategyV1();
+    private final StubHttpProcessor processor = new StubHttpProcessor();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"permissionsIncluded\":true,\"permissions\":[\"a.b\",\"c\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}",
+            // Unknown fields of every kind, before and after known ones.
+            "{\"extra\":{\"nested\":[1,{\"a\":null}],\"b\":\"x\"},\"permissionsIncluded\":true,\"roles\":[\"r\",[]],"
+                    + "\"permissions\":[\"a\"],\"uuid\":\"u\",\"count\":1.5,\"primaryGroup\":\"g\",\"username\":\"user\",\"flag\":false,\"none\":null}",
+            "{\"permissionsIncluded\":false,\"permissions\":[],\"uuid\":null,\"primaryGroup\":null,\"username\":null}",
+            // Order and duplicates of the server's list.
+            "{\"permissionsIncluded\":true,\"permissions\":[\"z\",\"a\",\"z\",\"m.*\",\"-m.x\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}",
+            "{\"username\":\"user\",\"primaryGroup\":\"g\",\"uuid\":\"u\",\"permissions\":[\"a\"],\"permissionsIncluded\":true}",
+            // Primitives of other types than expected.
+            "{\"permissionsIncluded\":\"true\",\"permissions\":[\"a\",1],\"uuid\":123,\"primaryGroup\":true,\"username\":\"user\"}",
+            "{\"permissionsIncluded\":1,\"permissions\":[\"a\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}",
+            "{\"permissionsIncluded\":true,\"permissions\":[\"\\u017elu\\u0165ou\\u010dk\\u00fd\",\"\\\"quoted\\\"\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"\"}"
+    })
+    void decodesUserDetailsLikeTreeMapping(String response) {
+        processor.respond(DETAILS_PATH, 200, response);
+
+        assertEquals(treeUserDetails(response), strategy.fetchUserDetails(processor, TOKEN));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"token\":\"t\",\"refreshToken\":\"r\",\"expiresAt\":4102444800000}",
+            "{\"expiresAt\":1,\"scope\":[\"a\"],\"refreshToken\":\"r\",\"meta\":{\"x\":null},\"token\":\"t\"}",
+            "{\"token\":\"t\",\"refreshToken\":\"r\",\"expiresAt\":\"4102444800000\"}",
+            "{\"token\":\"t\",\"refreshToken\":1,\"expiresAt\":1e3}"
+    })
+    void decodesTokensLikeTreeMapping(String response) {
+        processor.respond("/v1/auth/refresh", 200, response);
+
+        assertEquals(treeToken(response), strategy.refresh(processor, "r"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"state\":true}",
+            "{\"state\":false}",
+            "{\"node\":\"a\",\"reason\":{\"inherited\":[\"g\"]},\"state\":true,\"extra\":null}",
+            "{\"state\":\"true\"}",
+            "{\"state\":\"yes\"}"
+    })
+    void decodesNodeStatesLikeTreeMapping(String response) {
+        processor.respond("/v1/user/checknode", 200, response);
+
+        assertEquals(treeNodeState(response), strategy.fetchNodeState(processor, TOKEN, "a"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}",
+            "{\"permissionsIncluded\":null,\"permissions\":null,\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}"
+    })
+    void defaultsValuesTreeMappingRejected(String response) {
+        // Missing permissions and nulls where a value is expected failed the mapping.
+        assertThrows(RuntimeException.class, () -> treeUserDetails(response));
+        processor.respond(DETAILS_PATH, 200, response);
+
+        assertEquals(new UserDetails(false, List.of(), "u", "g", "user"), strategy.fetchUserDetails(processor, TOKEN));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{}", "{\"state\":null}"})
+    void defaultsNodeStatesTreeMappingRejected(String response) {
+        assertThrows(RuntimeException.class, () -> treeNodeState(response));
+        processor.respond("/v1/user/checknode", 200, response);
+
+        assertFalse(strategy.fetchNodeState(processor, TOKEN, "a"));
+    }
+
+    // Mappers of parsed responses, as used before responses were streamed.
+
+    private static UserDetails treeUserDetails(String response) {
+        JsonObject object = JsonParser.parseString(response).getAsJsonObject();
+        return new UserDetails(
+                object.get("permissionsIncluded").getAsBoolean(),
+                object.get("permissions").getAsJsonArray().asList().stream()
+                        .map(JsonElement::getAsString)
+                        .toList(),
+                nullableString(object.get("uuid")),
+                nullableString(object.get("primaryGroup")),
+                nullableString(object.get("username"))
+        );
+    }
+
+    private static AuthorizationStrategy.Token treeToken(String response) {
+        JsonObject object = JsonParser.parseString(response).getAsJsonObject();
+        return new AuthorizationStrategy.Token(
+                object.get("token").getAsString(),
+                object.get("refreshToken").getAsString(),
+                object.get("expiresAt").getAsLong()
+        );
+    }
+
+    private static boolean treeNodeState(String response) {
+        return JsonParser.parseString(response).getAsJsonObject().get("state").getAsBoolean();
+    }
+
+    private static String nullableString(JsonElement element) {
+        return element.isJsonNull() ? null : element.getAsString();
+    }
+}
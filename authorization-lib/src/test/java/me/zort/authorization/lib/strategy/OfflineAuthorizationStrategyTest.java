@@ -0,0 +1,174 @@
+package me.zort.authorization.lib.strategy;
+
+import me.zort.authorization.lib.StubHttpProcessor;
+import me.zort.authorization.lib.jwt.JwtVerifier;
+import me.zort.authorization.lib.jwt.KeySource;
+import me.zort.authorization.lib.jwt.TestTokens;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OfflineAuthorizationStrategyTest {
+
+    private static final String DETAILS = "/v1/user/details";
+    private static final String DETAILS_WITH_PERMISSIONS = "/v1/user/details?includePermissions=true";
+    private static final String USER_DETAILS = "{\"permissionsIncluded\":true,\"permissions\":[\"a.b\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}";
+
+    private static KeyPair rsa;
+    private static KeyPair ec;
+
+    private OfflineAuthorizationStrategy strategy;
+
+    @BeforeAll
+    static void generateKeys() throws GeneralSecurityException {
+        rsa = TestTokens.rsaKeyPair();
+        ec = TestTokens.ecKeyPair();
+    }
+
+    @AfterEach
+    void closeStrategy() {
+        if (strategy != null) {
+            strategy.close();
+        }
+    }
+
+    @Test
+    void verifiesRsaAndEcTokensWithoutServer() throws GeneralSecurityException {
+        StubHttpProcessor processor = new StubHttpProcessor();
+        strategy = new OfflineAuthorizationStrategy(
+                processor1 -> Map.of("rsa", rsa.getPublic(), "ec", ec.getPublic()), Duration.ofHours(1));
+
+        assertTrue(strategy.verifyToken(processor, TestTokens.sign("RS256", "rsa", rsa.getPrivate(), TestTokens.claims())));
+        assertTrue(strategy.verifyTokenAsync(processor, TestTokens.sign("ES256", "ec", ec.getPrivate(), TestTokens.claims())).join());
+        assertTrue(processor.requests().isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidTokensWithoutServer() throws GeneralSecurityException {
+        StubHttpProcessor processor = new StubHttpProcessor().respond(DETAILS_WITH_PERMISSIONS, 200, USER_DETAILS);
+        strategy = new OfflineAuthorizationStrategy(KeySource.of("rsa", rsa.getPublic()), Duration.ofHours(1));
+
+        String foreign = TestTokens.sign("RS256", "rsa", TestTokens.rsaKeyPair().getPrivate(), TestTokens.claims());
+        var expiredClaims = TestTokens.claims();
+        expiredClaims.addProperty("exp", System.currentTimeMillis() / 1000 - 3600);
+        String expired = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), expiredClaims);
+        var futureClaims = TestTokens.claims();
+        futureClaims.addProperty("nbf", System.currentTimeMillis() / 1000 + 3600);
+        String notYetValid = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), futureClaims);
+
+        for (String token : List.of(foreign, expired, notYetValid)) {
+            assertFalse(strategy.verifyToken(processor, token));
+            assertNull(strategy.verifyWithDetails(processor, token));
+            assertNull(strategy.verifyWithDetailsAsync(processor, token).join());
+            assertNull(strategy.verifyWithDetails(processor, token, null));
+        }
+        assertTrue(processor.requests().isEmpty());
+    }
+
+    @Test
+    void checksAudience() throws GeneralSecurityException {
+        StubHttpProcessor processor = new StubHttpProcessor();
+        strategy = new OfflineAuthorizationStrategy(KeySource.of("rsa", rsa.getPublic()), Duration.ofHours(1),
+                new JwtVerifier(Duration.ofSeconds(30), null, "shop"));
+
+        var claims = TestTokens.claims();
+        claims.addProperty("aud", "billing");
+        assertFalse(strategy.verifyToken(processor, TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims)));
+        claims.addProperty("aud", "shop");
+        assertTrue(strategy.verifyToken(processor, TestTokens.sign("RS256", "rsa", rsa.getPrivate(), claims)));
+        assertTrue(processor.requests().isEmpty());
+    }
+
+    @Test
+    void fetchesDetailsOfValidTokensFromServer() throws GeneralSecurityException {
+        StubHttpProcessor processor = new StubHttpProcessor().respond(DETAILS_WITH_PERMISSIONS, 200, USER_DETAILS);
+        strategy = new OfflineAuthorizationStrategy(KeySource.of("rsa", rsa.getPublic()), Duration.ofHours(1));
+
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), TestTokens.claims());
+        assertEquals("user", strategy.verifyWithDetails(processor, token).username());
+        assertEquals(1, processor.requests(DETAILS_WITH_PERMISSIONS));
+    }
+
+    @Test
+    void unknownKeyFallsBackToServer() throws GeneralSecurityException {
+        KeyPair rotated = TestTokens.rsaKeyPair();
+        String known = TestTokens.sign("RS256", "rotated", rotated.getPrivate(), TestTokens.claims());
+        String unknown = TestTokens.sign("RS256", "unknown", rotated.getPrivate(), TestTokens.claims());
+        StubHttpProcessor processor = new StubHttpProcessor().respond(DETAILS, headers ->
+                headers.get("Authorization").equals("Bearer " + known)
+                        ? new StubHttpProcessor.Response(200, USER_DETAILS)
+                        : new StubHttpProcessor.Response(401, null));
+        strategy = new OfflineAuthorizationStrategy(KeySource.of("rsa", rsa.getPublic()), Duration.ofHours(1));
+
+        assertTrue(strategy.verifyToken(processor, known));
+        assertFalse(strategy.verifyTokenAsync(processor, unknown).join());
+        assertEquals(2, processor.requests(DETAILS));
+    }
+
+    @Test
+    void picksUpRotatedKeys() throws Exception {
+        KeyPair rotated = TestTokens.rsaKeyPair();
+        AtomicReference<Map<String, PublicKey>> keys = new AtomicReference<>(Map.of("rsa", rsa.getPublic()));
+        StubHttpProcessor processor = new StubHttpProcessor().respond(DETAILS, 200, USER_DETAILS);
+        strategy = new OfflineAuthorizationStrategy(processor1 -> keys.get(), Duration.ofMillis(20));
+
+        String token = TestTokens.sign("RS256", "rotated", rotated.getPrivate(), TestTokens.claims());
+        assertTrue(strategy.verifyToken(processor, token));
+        assertEquals(1, processor.requests(DETAILS));
+
+        keys.set(Map.of("rotated", rotated.getPublic()));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!verifiedLocally(processor, token)) {
+            assertTrue(System.currentTimeMillis() < deadline, "Rotated key was not loaded");
+            Thread.sleep(20);
+        }
+        // Keys of the previous rotation are gone, their tokens go to the server.
+        assertFalse(verifiedLocally(processor, TestTokens.sign("RS256", "rsa", rsa.getPrivate(), TestTokens.claims())));
+    }
+
+    @Test
+    void keepsLastKeysWhenReloadFails() throws Exception {
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        AtomicReference<Boolean> failing = new AtomicReference<>(false);
+        KeySource source = processor1 -> {
+            if (failing.get()) {
+                throw new IOException("Key server unavailable");
+            }
+            return Map.of("rsa", rsa.getPublic());
+        };
+        StubHttpProcessor processor = new StubHttpProcessor();
+        strategy = new OfflineAuthorizationStrategy(source, Duration.ofMillis(20),
+                new JwtVerifier(Duration.ofSeconds(30), null, null), failures::add);
+
+        String token = TestTokens.sign("RS256", "rsa", rsa.getPrivate(), TestTokens.claims());
+        assertTrue(strategy.verifyToken(processor, token));
+        failing.set(true);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (failures.isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Reload failure was not reported");
+            Thread.sleep(20);
+        }
+        assertInstanceOf(IOException.class, failures.get(0));
+        assertTrue(strategy.verifyToken(processor, token));
+        assertTrue(processor.requests().isEmpty());
+    }
+
+    // Tokens verified by the server show up as a details request.
+    private boolean verifiedLocally(StubHttpProcessor processor, String token) {
+        long before = processor.requests(DETAILS);
+        boolean verified = strategy.verifyToken(processor, token);
+        return verified && processor.requests(DETAILS) == before;
+    }
+}
@@ -1,9 +1,11 @@
 package me.zort.authorization.spring;
 
 import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.metrics.AuthorizationMetrics;
 import me.zort.authorization.lib.model.UserDetails;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -14,40 +16,64 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 public class JWTAuthorizationFilter extends OncePerRequestFilter {
 
+    static final String METRICS_NAME = "servlet";
+
     private final AuthorizationClient client;
-    private final Map<AntPathRequestMatcher, String> permissionMapping = new ConcurrentHashMap<>();
+    private final RouteIndex permissionMapping;
+    private final boolean lazyDetails;
 
     public JWTAuthorizationFilter(AuthorizationClient client) {
         this(client, null);
     }
 
     public JWTAuthorizationFilter(AuthorizationClient client, @Nullable PermissionMapping mapping) {
+        this(client, mapping, false);
+    }
+
+    /**
+     * Initializes the filter, optionally with lazily loaded details.
+     * <p>
+     * In lazy mode, requests to paths without mapped permission nodes only verify
+     * the token. User details and permissions are fetched when the resulting
+     * {@link KetchupAuthenticationToken} is first asked for them, so endpoints
+     * that only need the user to be authenticated never download them.
+     * Requests to mapped paths fetch details right away, as they are needed
+     * to check the nodes.
+     *
+     * @param client Authorization client
+     * @param mapping Permission nodes required by paths (optional)
+     * @param lazyDetails True to fetch details only when they are used
+     */
+    public JWTAuthorizationFilter(AuthorizationClient client, @Nullable PermissionMapping mapping, boolean lazyDetails) {
         this.client = client;
-        if (mapping != null) {
-            this.permissionMapping.putAll(mapping.getMapping());
-        }
+        this.permissionMapping = RouteIndex.compile(mapping != null ? mapping.getPatterns() : Map.of());
+        this.lazyDetails = lazyDetails;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authorizationHeader = request.getHeader("Authorization");
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            String jwtToken = authorizationHeader.substring(7);
-            AuthorizationClient.Session session = client.verify(jwtToken);
-            if (session.authorized()) {
-                try {
-                    UserDetails userDetails = session.fetchUserDetails();
-                    if (permissionNodeCheck(request, session)) {
-                        KetchupAuthenticationToken authenticationToken = new KetchupAuthenticationToken(session, userDetails);
-                        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                    }
-                } catch (AuthorizationClient.UnauthorizedException ignored) {
-                }
+            AuthorizationMetrics metrics = client.getMetrics();
+            boolean timed = metrics != AuthorizationMetrics.NOOP;
+            long start = timed ? System.nanoTime() : 0;
+            boolean authenticated;
+            try {
+                authenticated = authenticate(request, authorizationHeader.substring(7));
+            } catch (RuntimeException e) {
+                // Server failed to answer (bad status, I/O failure, deadline, open circuit),
+                // the request proceeds unauthenticated rather than failing, same as in the
+                // reactive filter.
+                authenticated = false;
+            }
+            if (timed) {
+                metrics.filterCompleted(METRICS_NAME, authenticated, System.nanoTime() - start);
             }
         }
 
@@ -56,30 +82,95 @@ public class JWTAuthorizationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private boolean permissionNodeCheck(HttpServletRequest request, AuthorizationClient.Session session) {
-        for (AntPathRequestMatcher matcher : permissionMapping.keySet()) {
-            try {
-                if (matcher.matches(request) && !session.fetchNodeState(permissionMapping.get(matcher))) {
-                    return false;
-                }
-            } catch (AuthorizationClient.UnauthorizedException e) {
-                e.printStackTrace();
+    private boolean authenticate(HttpServletRequest request, String jwtToken) {
+        Set<String> requiredNodes = permissionMapping.match(requestPath(request));
+        if (lazyDetails && requiredNodes.isEmpty()) {
+            AuthorizationClient.Session session = client.verify(jwtToken);
+            if (!session.authorized()) {
                 return false;
             }
+            SecurityContextHolder.getContext().setAuthentication(
+                    new KetchupAuthenticationToken(session, () -> fetchDetails(jwtToken)));
+            return true;
         }
+        // Verification and details (including permissions) are obtained in a single request.
+        AuthorizationClient.Session session = client.verifyWithDetails(jwtToken);
+        if (!session.authorized()) {
+            return false;
+        }
+        UserDetails userDetails = session.getDetails();
+        Map<String, Boolean> nodeStates = permissionNodeCheck(requiredNodes, session);
+        if (nodeStates == null) {
+            return false;
+        }
+        KetchupAuthenticationToken authenticationToken = new KetchupAuthenticationToken(session, userDetails);
+        // Lets KetchupPermissionEvaluator answer checks of the same nodes without another lookup.
+        authenticationToken.rememberNodeStates(nodeStates);
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         return true;
     }
 
+    private UserDetails fetchDetails(String jwtToken) {
+        // Goes through the client's verification caches, unlike fetching details from the session.
+        AuthorizationClient.Session session;
+        try {
+            session = client.verifyWithDetails(jwtToken);
+        } catch (RuntimeException e) {
+            throw new AuthenticationServiceException("Authorization server failed to provide user details", e);
+        }
+        if (!session.authorized() || session.getDetails() == null) {
+            throw new AuthenticationServiceException("Token is no longer valid, user details are not available");
+        }
+        return session.getDetails();
+    }
+
+    private @Nullable Map<String, Boolean> permissionNodeCheck(Set<String> requiredNodes, AuthorizationClient.Session session) {
+        if (requiredNodes.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            // All matching nodes are resolved in one step instead of one request per node.
+            Map<String, Boolean> states = session.fetchNodeStates(requiredNodes);
+            return states.containsValue(false) ? null : states;
+        } catch (AuthorizationClient.UnauthorizedException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Returns the path of provided request the same way {@link AntPathRequestMatcher} does.
+     *
+     * @param request Request
+     * @return Path within the servlet context
+     */
+    static String requestPath(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null) {
+            return servletPath;
+        }
+        return servletPath != null && !servletPath.isEmpty() ? servletPath + pathInfo : pathInfo;
+    }
+
     public static class PermissionMapping {
-        private final Map<AntPathRequestMatcher, String> mapping = new HashMap<>();
+        // Patterns are kept as plain strings, so the mapping can be shared with
+        // reactive filters that don't have the servlet API available.
+        private final Map<String, String> patterns = new LinkedHashMap<>();
 
         public @NotNull PermissionMapping path(String ant, String node) {
-            mapping.put(new AntPathRequestMatcher(ant), node);
+            patterns.put(ant, node);
             return this;
         }
 
         public @NotNull Map<AntPathRequestMatcher, String> getMapping() {
-            return new HashMap<>(mapping);
+            Map<AntPathRequestMatcher, String> mapping = new HashMap<>();
+            patterns.forEach((ant, node) -> mapping.put(new AntPathRequestMatcher(ant), node));
+            return mapping;
+        }
+
+        public @NotNull Map<String, String> getPatterns() {
+            return new LinkedHashMap<>(patterns);
         }
     }
 }
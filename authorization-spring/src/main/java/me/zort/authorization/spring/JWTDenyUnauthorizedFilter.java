@@ -1,7 +1,6 @@
 package me.zort.authorization.spring;
 
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.servlet.FilterChain;
@@ -13,14 +12,14 @@ import java.util.Collections;
 import java.util.List;
 
 public class JWTDenyUnauthorizedFilter extends OncePerRequestFilter {
-    private final List<AntPathRequestMatcher> ignoredPaths;
+    private final RouteIndex ignoredPaths;
 
     public JWTDenyUnauthorizedFilter() {
         this(Collections.emptyList());
     }
 
     public JWTDenyUnauthorizedFilter(List<String> ignoredPaths) {
-        this.ignoredPaths = ignoredPaths.stream().map(AntPathRequestMatcher::new).toList();
+        this.ignoredPaths = RouteIndex.compile(ignoredPaths);
     }
 
     @Override
@@ -35,6 +34,6 @@ public class JWTDenyUnauthorizedFilter extends OncePerRequestFilter {
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
-        return ignoredPaths.stream().anyMatch(matcher -> matcher.matches(request));
+        return ignoredPaths.matches(JWTAuthorizationFilter.requestPath(request));
     }
 }
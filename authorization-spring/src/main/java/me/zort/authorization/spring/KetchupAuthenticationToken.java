@@ -5,16 +5,59 @@ import me.zort.authorization.lib.model.UserDetails;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 
 import java.security.Principal;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+/**
+ * Authentication of a request carrying a token verified by the authorization server.
+ * Tokens are authenticated from creation, as they are only created for sessions
+ * the server already verified, and can't be marked authenticated by anyone else.
+ * {@link #toString()}, {@link #equals(Object)} and {@link #hashCode()} are based
+ * on the bearer token and never resolve lazily supplied details.
+ *
+ * @author ZorTik
+ */
 public class KetchupAuthenticationToken extends AbstractAuthenticationToken {
 
     private final AuthorizationClient.Session session;
-    private final UserDetailsPrincipal principal;
+    private Supplier<UserDetails> detailsSupplier;
+    private volatile UserDetailsPrincipal principal;
+    // Token is created for a single request, so node states are remembered for that request only.
+    private final Map<String, Boolean> nodeStates = new ConcurrentHashMap<>();
 
     public KetchupAuthenticationToken(AuthorizationClient.Session session, UserDetails details) {
+        this(session);
+        this.principal = new UserDetailsPrincipal(details);
+    }
+
+    /**
+     * Creates a token whose details are resolved by provided supplier when first
+     * needed, by {@link #getUserDetails()}, {@link #getPrincipal()} or {@link #getName()}.
+     * The supplier is called at most once successfully, its result is kept.
+     *
+     * @param session Verified session
+     * @param detailsSupplier Supplier of the session's details
+     */
+    public KetchupAuthenticationToken(AuthorizationClient.Session session, Supplier<UserDetails> detailsSupplier) {
+        this(session);
+        this.detailsSupplier = Objects.requireNonNull(detailsSupplier, "Details supplier cannot be null");
+    }
+
+    private KetchupAuthenticationToken(AuthorizationClient.Session session) {
         super(null);
         this.session = session;
-        this.principal = new UserDetailsPrincipal(details);
+        // Token is only created for sessions that were already verified by the server.
+        super.setAuthenticated(true);
+    }
+
+    @Override
+    public void setAuthenticated(boolean authenticated) {
+        if (authenticated) {
+            throw new IllegalArgumentException("Token can only be authenticated by verifying its session");
+        }
+        super.setAuthenticated(false);
     }
 
     @Override
@@ -24,11 +67,86 @@ public class KetchupAuthenticationToken extends AbstractAuthenticationToken {
 
     @Override
     public Object getPrincipal() {
-        return principal;
+        return principal();
     }
 
     public UserDetails getUserDetails() {
-        return principal.details();
+        return principal().details();
+    }
+
+    /**
+     * Returns whether user details were already resolved, so accessing
+     * them won't contact the authorization server.
+     *
+     * @return True if details are available
+     */
+    public boolean isDetailsResolved() {
+        return principal != null;
+    }
+
+    /**
+     * Returns whether the user is granted provided permission node.
+     * The state is resolved by the session at most once per token, repeated
+     * checks of the same node, including nodes already checked by
+     * {@link JWTAuthorizationFilter}, don't contact the authorization server.
+     *
+     * @param node Permission node
+     * @return True if the node is granted
+     * @throws AuthorizationClient.UnauthorizedException When the session is no longer authorized
+     */
+    public boolean hasPermission(String node) throws AuthorizationClient.UnauthorizedException {
+        Boolean state = nodeStates.get(node);
+        if (state == null) {
+            state = session.fetchNodeState(node);
+            nodeStates.put(node, state);
+        }
+        return state;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KetchupAuthenticationToken other)) {
+            return false;
+        }
+        return getCredentials().equals(other.getCredentials())
+                && isAuthenticated() == other.isAuthenticated()
+                && Objects.equals(getDetails(), other.getDetails());
+    }
+
+    @Override
+    public int hashCode() {
+        return getCredentials().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        // Super's variant includes the principal, which would fetch lazy details.
+        UserDetailsPrincipal principal = this.principal;
+        return getClass().getSimpleName() + " [Principal=" + (principal != null ? principal.getName() : "[UNRESOLVED]")
+                + ", Credentials=[PROTECTED], Authenticated=" + isAuthenticated()
+                + ", Details=" + getDetails() + "]";
+    }
+
+    void rememberNodeStates(Map<String, Boolean> states) {
+        nodeStates.putAll(states);
+    }
+
+    private UserDetailsPrincipal principal() {
+        UserDetailsPrincipal principal = this.principal;
+        if (principal == null) {
+            synchronized (this) {
+                principal = this.principal;
+                if (principal == null) {
+                    principal = new UserDetailsPrincipal(detailsSupplier.get());
+                    this.principal = principal;
+                    detailsSupplier = null;
+                }
+            }
+        }
+        return principal;
     }
 
     private record UserDetailsPrincipal(UserDetails details) implements Principal {
@@ -0,0 +1,53 @@
+package me.zort.authorization.spring;
+
+import me.zort.authorization.lib.AuthorizationClient;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+
+import java.io.Serializable;
+
+/**
+ * {@link PermissionEvaluator} checking permission nodes of users authenticated
+ * by {@link JWTAuthorizationFilter}, so {@code hasPermission} expressions of
+ * method security can be backed by the authorization server.
+ * <pre>
+ *     &#64;PreAuthorize("hasPermission(null, 'shop.orders.read')")
+ *     &#64;PreAuthorize("hasPermission(#orderId, 'shop.orders', 'read')") // node shop.orders.read
+ * </pre>
+ * Node states are remembered by the request's {@link KetchupAuthenticationToken},
+ * so each node is resolved at most once per request and nodes already checked
+ * by the filter are not resolved again. Other authentications are never granted
+ * any permission.
+ *
+ * @author ZorTik
+ */
+public class KetchupPermissionEvaluator implements PermissionEvaluator {
+
+    /**
+     * Checks provided permission as a node, the target object is not considered.
+     */
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        return permission instanceof String node && hasNode(authentication, node);
+    }
+
+    /**
+     * Checks node made of the target type and permission, joined by a dot.
+     * The target identifier is not considered.
+     */
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
+        return permission instanceof String action && targetType != null && hasNode(authentication, targetType + "." + action);
+    }
+
+    private static boolean hasNode(Authentication authentication, String node) {
+        if (!(authentication instanceof KetchupAuthenticationToken token)) {
+            return false;
+        }
+        try {
+            return token.hasPermission(node);
+        } catch (AuthorizationClient.UnauthorizedException e) {
+            return false;
+        }
+    }
+}
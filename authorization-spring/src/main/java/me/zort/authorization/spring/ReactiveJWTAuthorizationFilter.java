@@ -0,0 +1,110 @@
+package me.zort.authorization.spring;
+
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.metrics.AuthorizationMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reactive equivalent of {@link JWTAuthorizationFilter}.
+ * Verifies the bearer token and loads user details, then populates
+ * {@link ReactiveSecurityContextHolder} with {@link KetchupAuthenticationToken}.
+ * <p>
+ * Processors and strategies without a non-blocking implementation perform their
+ * requests in the calling thread, so verification is started on a scheduler meant
+ * for blocking work, {@link Schedulers#boundedElastic()} by default, instead of the
+ * event loop. Requests whose token can't be verified, for example because the server
+ * is unavailable, proceed unauthenticated.
+ */
+public class ReactiveJWTAuthorizationFilter implements WebFilter {
+
+    static final String METRICS_NAME = "reactive";
+
+    private final AuthorizationClient client;
+    private final RouteIndex permissionMapping;
+    private final Scheduler scheduler;
+
+    public ReactiveJWTAuthorizationFilter(AuthorizationClient client) {
+        this(client, null);
+    }
+
+    public ReactiveJWTAuthorizationFilter(AuthorizationClient client, JWTAuthorizationFilter.@Nullable PermissionMapping mapping) {
+        this(client, mapping, Schedulers.boundedElastic());
+    }
+
+    /**
+     * Initializes the filter verifying tokens on provided scheduler.
+     * When the client's processor and strategy are fully non-blocking,
+     * {@link Schedulers#immediate()} avoids switching threads.
+     *
+     * @param client Authorization client
+     * @param mapping Permission nodes required by paths (optional)
+     * @param scheduler Scheduler starting the verification
+     */
+    public ReactiveJWTAuthorizationFilter(AuthorizationClient client, JWTAuthorizationFilter.@Nullable PermissionMapping mapping, @NotNull Scheduler scheduler) {
+        this.client = client;
+        this.permissionMapping = RouteIndex.compile(mapping != null ? mapping.getPatterns() : Map.of());
+        this.scheduler = Objects.requireNonNull(scheduler, "Scheduler cannot be null");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authorizationHeader = exchange.getRequest().getHeaders().getFirst("Authorization");
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+        String jwtToken = authorizationHeader.substring(7);
+        AuthorizationMetrics metrics = client.getMetrics();
+        boolean timed = metrics != AuthorizationMetrics.NOOP;
+        long start = timed ? System.nanoTime() : 0;
+        return authenticate(exchange, jwtToken)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(authentication -> {
+                    if (timed) {
+                        metrics.filterCompleted(METRICS_NAME, authentication.isPresent(), System.nanoTime() - start);
+                    }
+                })
+                .flatMap(authentication -> authentication
+                        .map(token -> chain.filter(exchange)
+                                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(token)))
+                        // Combine with ReactiveJWTDenyUnauthorizedFilter or spring security's
+                        // authorizeExchange() to reject requests without authentication.
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+
+    private Mono<KetchupAuthenticationToken> authenticate(ServerWebExchange exchange, String jwtToken) {
+        return Mono.fromFuture(() -> client.verifyWithDetailsAsync(jwtToken))
+                .subscribeOn(scheduler)
+                .filter(AuthorizationClient.Session::authorized)
+                .flatMap(session -> permissionNodeCheck(exchange, session)
+                        .filter(Boolean::booleanValue)
+                        .map(granted -> new KetchupAuthenticationToken(session, session.getDetails())))
+                // Verification failures, such as an unavailable server, leave the request unauthenticated.
+                .onErrorResume(Exception.class, e -> Mono.empty());
+    }
+
+    private Mono<Boolean> permissionNodeCheck(ServerWebExchange exchange, AuthorizationClient.Session session) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        Set<String> requiredNodes = permissionMapping.match(path);
+        if (requiredNodes.isEmpty()) {
+            return Mono.just(true);
+        }
+        return Mono.fromFuture(() -> session.fetchNodeStatesAsync(requiredNodes))
+                .subscribeOn(scheduler)
+                .map(states -> !states.containsValue(false))
+                .onErrorResume(AuthorizationClient.UnauthorizedException.class, e -> Mono.just(false));
+    }
+}
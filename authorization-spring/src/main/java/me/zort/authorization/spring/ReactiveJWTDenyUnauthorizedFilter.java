@@ -0,0 +1,45 @@
+package me.zort.authorization.spring;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reactive equivalent of {@link JWTDenyUnauthorizedFilter}.
+ * Rejects requests without authentication in the reactive security context.
+ */
+public class ReactiveJWTDenyUnauthorizedFilter implements WebFilter {
+    private final RouteIndex ignoredPaths;
+
+    public ReactiveJWTDenyUnauthorizedFilter() {
+        this(Collections.emptyList());
+    }
+
+    public ReactiveJWTDenyUnauthorizedFilter(List<String> ignoredPaths) {
+        this.ignoredPaths = RouteIndex.compile(ignoredPaths);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (ignoredPaths.matches(path)) {
+            return chain.filter(exchange);
+        }
+        return ReactiveSecurityContextHolder.getContext()
+                .filter(context -> context.getAuthentication() != null)
+                .hasElement()
+                .flatMap(authenticated -> {
+                    if (!authenticated) {
+                        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                        return exchange.getResponse().setComplete();
+                    }
+                    return chain.filter(exchange);
+                });
+    }
+}
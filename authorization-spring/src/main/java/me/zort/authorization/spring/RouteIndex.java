@@ -0,0 +1,504 @@
+package me.zort.authorization.spring;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable index of ant-style path patterns, compiled into a trie of path segments.
+ * <p>
+ * Matching follows {@link org.springframework.util.AntPathMatcher}: {@code ?} matches
+ * one character, {@code *} zero or more characters within a segment, {@code **} zero
+ * or more segments and {@code {name}} or {@code {name:regex}} a template variable.
+ * Empty segments are ignored, so {@code /admin} also matches {@code //admin}, and patterns
+ * starting with a separator match only paths starting with one and vice versa.
+ * The only exception is pattern {@code **}, which matches every path, same as in
+ * {@link org.springframework.security.web.util.matcher.AntPathRequestMatcher}.
+ * <p>
+ * A lookup walks only the branches the path can match, so its cost depends on the
+ * path length rather than the number of patterns. Literal segments, {@code *}, {@code ?}
+ * and plain template variables are matched without allocation, only template variables
+ * with a regular expression allocate. Sets of values of multiple matching patterns are
+ * computed once and remembered.
+ *
+ * @author ZorTik
+ */
+final class RouteIndex {
+
+    private static final RouteIndex EMPTY = new RouteIndex(new Node(), new Node(), new String[0], new int[0]);
+    private static final int MAX_CACHED_COMBINATIONS = 4096;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final Node root;
+    private final Node relativeRoot;
+    // Values of patterns, by pattern id (registration order).
+    private final String[] values;
+    private final int[] matchAll;
+    private final List<Set<String>> singles;
+    private final Map<Scratch, Set<String>> combinations = new ConcurrentHashMap<>();
+
+    private RouteIndex(Node root, Node relativeRoot, String[] values, int[] matchAll) {
+        this.root = root;
+        this.relativeRoot = relativeRoot;
+        this.values = values;
+        this.matchAll = matchAll;
+        List<Set<String>> singles = new ArrayList<>(values.length);
+        for (String value : values) {
+            singles.add(Set.of(value));
+        }
+        this.singles = singles;
+    }
+
+    /**
+     * Compiles provided patterns mapped to values.
+     *
+     * @param patterns Patterns to values, in the order of precedence of the values
+     * @return Compiled index
+     */
+    static @NotNull RouteIndex compile(@NotNull Map<String, String> patterns) {
+        if (patterns.isEmpty()) {
+            return EMPTY;
+        }
+        Node root = new Node();
+        Node relativeRoot = new Node();
+        String[] values = new String[patterns.size()];
+        List<Integer> matchAll = new ArrayList<>();
+        int id = 0;
+        for (Map.Entry<String, String> entry : patterns.entrySet()) {
+            String pattern = Objects.requireNonNull(entry.getKey(), "Pattern cannot be null");
+            values[id] = Objects.requireNonNull(entry.getValue(), "Value cannot be null");
+            if (pattern.equals("**")) {
+                matchAll.add(id);
+            } else {
+                insert(pattern.startsWith("/") ? root : relativeRoot, pattern, id);
+            }
+            id++;
+        }
+        root.freeze();
+        relativeRoot.freeze();
+        return new RouteIndex(root, relativeRoot, values, matchAll.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Compiles provided patterns, for use with {@link #matches(String)} only.
+     *
+     * @param patterns Patterns to compile
+     * @return Compiled index
+     */
+    static @NotNull RouteIndex compile(@NotNull Collection<String> patterns) {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        patterns.forEach(pattern -> mapping.put(pattern, pattern));
+        return compile(mapping);
+    }
+
+    /**
+     * Returns values of all patterns matching provided path, in the order
+     * the patterns were provided in.
+     *
+     * @param path Request path
+     * @return Immutable set of values, empty if no pattern matches
+     */
+    @NotNull Set<String> match(@NotNull String path) {
+        if (values.length == 0) {
+            return Collections.emptySet();
+        }
+        Scratch scratch = SCRATCH.get();
+        scratch.reset(path);
+        for (int id : matchAll) {
+            scratch.add(id);
+        }
+        collect(path.startsWith("/") ? root : relativeRoot, path, 0, scratch);
+        return valuesOf(scratch);
+    }
+
+    /**
+     * Returns whether any pattern matches provided path.
+     *
+     * @param path Request path
+     * @return True if a pattern matches
+     */
+    boolean matches(@NotNull String path) {
+        return !match(path).isEmpty();
+    }
+
+    private Set<String> valuesOf(Scratch scratch) {
+        int count = scratch.count;
+        if (count == 0) {
+            return Collections.emptySet();
+        }
+        if (count == 1) {
+            return singles.get(scratch.ids[0]);
+        }
+        scratch.sort();
+        Set<String> cached = combinations.get(scratch);
+        if (cached != null) {
+            return cached;
+        }
+        Set<String> union = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            union.add(values[scratch.ids[i]]);
+        }
+        Set<String> combination = Collections.unmodifiableSet(union);
+        if (combinations.size() < MAX_CACHED_COMBINATIONS) {
+            combinations.put(scratch.copy(), combination);
+        }
+        return combination;
+    }
+
+    private static void collect(Node node, String path, int segment, Scratch scratch) {
+        if (segment == scratch.segments) {
+            collectExhausted(node, scratch);
+            return;
+        }
+        int start = scratch.starts[segment];
+        int end = scratch.ends[segment];
+        Node literal = node.literal(path, start, end);
+        if (literal != null) {
+            collect(literal, path, segment + 1, scratch);
+        }
+        if (node.any != null) {
+            collect(node.any, path, segment + 1, scratch);
+        }
+        for (int i = 0; i < node.wildcards.size(); i++) {
+            Wildcard wildcard = node.wildcards.get(i);
+            if (wildcard.matches(path, start, end)) {
+                collect(wildcard.node, path, segment + 1, scratch);
+            }
+        }
+        if (node.doubleWildcard != null) {
+            // ** consumes any number of segments, including none.
+            for (int next = segment; next <= scratch.segments; next++) {
+                collect(node.doubleWildcard, path, next, scratch);
+            }
+        }
+    }
+
+    private static void collectExhausted(Node node, Scratch scratch) {
+        for (int i = 0; i < node.terminals.size(); i++) {
+            Terminal terminal = node.terminals.get(i);
+            if (terminal.anySeparator() || terminal.trailingSeparator() == scratch.trailingSeparator) {
+                scratch.add(terminal.id());
+            }
+        }
+        // Same as AntPathMatcher, "/a/*" also matches "/a/".
+        if (node.any != null && scratch.trailingSeparator) {
+            for (int i = 0; i < node.any.terminals.size(); i++) {
+                Terminal terminal = node.any.terminals.get(i);
+                if (!terminal.anySeparator()) {
+                    scratch.add(terminal.id());
+                }
+            }
+        }
+        // Remaining ** segments match nothing, regardless of trailing separator.
+        for (Node doubleWildcard = node.doubleWildcard; doubleWildcard != null; doubleWildcard = doubleWildcard.doubleWildcard) {
+            addAll(doubleWildcard, scratch);
+        }
+    }
+
+    private static void addAll(Node node, Scratch scratch) {
+        for (int i = 0; i < node.terminals.size(); i++) {
+            scratch.add(node.terminals.get(i).id());
+        }
+    }
+
+    private static void insert(Node root, String pattern, int id) {
+        Node node = root;
+        boolean doubleWildcard = false;
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals("**")) {
+                doubleWildcard = true;
+                node = node.doubleWildcard != null ? node.doubleWildcard : (node.doubleWildcard = new Node());
+            } else if (segment.equals("*")) {
+                node = node.any != null ? node.any : (node.any = new Node());
+            } else if (isLiteral(segment)) {
+                node = node.literals.computeIfAbsent(segment, key -> new Node());
+            } else {
+                node = node.wildcard(segment);
+            }
+        }
+        // Like in AntPathMatcher, trailing separator matters only for patterns without **.
+        node.terminals.add(new Terminal(id, pattern.endsWith("/"), doubleWildcard));
+    }
+
+    private static boolean isLiteral(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<Wildcard> wildcards = new ArrayList<>();
+        private final List<Terminal> terminals = new ArrayList<>();
+        private Node any;
+        private Node doubleWildcard;
+        // Open addressing table of literal children, built by freeze().
+        private String[] literalKeys;
+        private Node[] literalNodes;
+
+        private Node literal(String path, int start, int end) {
+            String[] keys = literalKeys;
+            if (keys == null) {
+                return null;
+            }
+            // Hashed over the region of the path the same way as String.hashCode(),
+            // so no segment string needs to be created.
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            int mask = keys.length - 1;
+            int length = end - start;
+            for (int slot = spread(hash) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+                String key = keys[slot];
+                if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                    return literalNodes[slot];
+                }
+            }
+            return null;
+        }
+
+        private void freeze() {
+            if (!literals.isEmpty()) {
+                int capacity = Integer.highestOneBit(literals.size() * 2 - 1) << 1;
+                literalKeys = new String[capacity];
+                literalNodes = new Node[capacity];
+                literals.forEach((key, node) -> {
+                    int slot = spread(key.hashCode()) & (capacity - 1);
+                    while (literalKeys[slot] != null) {
+                        slot = (slot + 1) & (capacity - 1);
+                    }
+                    literalKeys[slot] = key;
+                    literalNodes[slot] = node;
+                });
+                literals.values().forEach(Node::freeze);
+            }
+            wildcards.forEach(wildcard -> wildcard.node.freeze());
+            if (any != null) {
+                any.freeze();
+            }
+            if (doubleWildcard != null) {
+                doubleWildcard.freeze();
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private Node wildcard(String segment) {
+            for (Wildcard wildcard : wildcards) {
+                if (wildcard.pattern.equals(segment)) {
+                    return wildcard.node;
+                }
+            }
+            Wildcard wildcard = new Wildcard(segment);
+            wildcards.add(wildcard);
+            return wildcard.node;
+        }
+    }
+
+    private record Terminal(int id, boolean trailingSeparator, boolean anySeparator) { }
+
+    private static final class Wildcard {
+        private final String pattern;
+        // Pattern with template variables replaced by *, when none of them has a regex.
+        private final String glob;
+        private final Pattern regex;
+        private final Node node = new Node();
+
+        private Wildcard(String pattern) {
+            this.pattern = pattern;
+            StringBuilder glob = new StringBuilder();
+            StringBuilder regex = new StringBuilder();
+            boolean needsRegex = false;
+            int literalStart = 0;
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '*' || c == '?') {
+                    appendLiteral(regex, pattern, literalStart, i);
+                    regex.append(c == '*' ? ".*" : ".");
+                    glob.append(c);
+                    literalStart = ++i;
+                } else if (c == '{') {
+                    int close = closingBrace(pattern, i);
+                    if (close < 0) {
+                        glob.append(c);
+                        i++;
+                        continue;
+                    }
+                    appendLiteral(regex, pattern, literalStart, i);
+                    String variable = pattern.substring(i + 1, close);
+                    int colon = variable.indexOf(':');
+                    if (colon >= 0) {
+                        needsRegex = true;
+                        regex.append('(').append(variable.substring(colon + 1)).append(')');
+                    } else {
+                        regex.append("(.*)");
+                    }
+                    glob.append('*');
+                    literalStart = i = close + 1;
+                } else {
+                    glob.append(c);
+                    i++;
+                }
+            }
+            appendLiteral(regex, pattern, literalStart, pattern.length());
+            this.glob = needsRegex ? null : glob.toString();
+            this.regex = needsRegex ? Pattern.compile(regex.toString(), Pattern.DOTALL) : null;
+        }
+
+        private boolean matches(String path, int start, int end) {
+            if (glob != null) {
+                return globMatches(glob, path, start, end);
+            }
+            return regex.matcher(path).region(start, end).matches();
+        }
+
+        private static void appendLiteral(StringBuilder regex, String pattern, int from, int to) {
+            if (from < to) {
+                regex.append(Pattern.quote(pattern.substring(from, to)));
+            }
+        }
+
+        private static int closingBrace(String pattern, int open) {
+            int depth = 0;
+            for (int i = open; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean globMatches(String glob, String path, int start, int end) {
+            int g = 0;
+            int p = start;
+            int starGlob = -1;
+            int starPath = -1;
+            while (p < end) {
+                if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == path.charAt(p))) {
+                    g++;
+                    p++;
+                } else if (g < glob.length() && glob.charAt(g) == '*') {
+                    starGlob = g++;
+                    starPath = p;
+                } else if (starGlob >= 0) {
+                    g = starGlob + 1;
+                    p = ++starPath;
+                } else {
+                    return false;
+                }
+            }
+            while (g < glob.length() && glob.charAt(g) == '*') {
+                g++;
+            }
+            return g == glob.length();
+        }
+    }
+
+    /**
+     * Per-thread state of a lookup: segment bounds of the path and ids of matched patterns.
+     * Also serves as the key of remembered combinations, which avoids creating a key per lookup.
+     */
+    private static final class Scratch {
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int segments;
+        private boolean trailingSeparator;
+        private int[] ids = new int[8];
+        private int count;
+
+        private void reset(String path) {
+            count = 0;
+            segments = 0;
+            trailingSeparator = path.endsWith("/");
+            int length = path.length();
+            int i = 0;
+            while (i < length) {
+                while (i < length && path.charAt(i) == '/') {
+                    i++;
+                }
+                if (i == length) {
+                    break;
+                }
+                int start = i;
+                while (i < length && path.charAt(i) != '/') {
+                    i++;
+                }
+                if (segments == starts.length) {
+                    starts = Arrays.copyOf(starts, segments * 2);
+                    ends = Arrays.copyOf(ends, segments * 2);
+                }
+                starts[segments] = start;
+                ends[segments] = i;
+                segments++;
+            }
+        }
+
+        private void add(int id) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == id) {
+                    return;
+                }
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        private void sort() {
+            // Few ids match at once, insertion sort avoids any allocation.
+            for (int i = 1; i < count; i++) {
+                int id = ids[i];
+                int j = i - 1;
+                while (j >= 0 && ids[j] > id) {
+                    ids[j + 1] = ids[j];
+                    j--;
+                }
+                ids[j + 1] = id;
+            }
+        }
+
+        private Scratch copy() {
+            Scratch copy = new Scratch();
+            copy.ids = Arrays.copyOf(ids, count);
+            copy.count = count;
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Scratch other) || other.count != count) {
+                return false;
+            }
+            return Arrays.equals(ids, 0, count, other.ids, 0, count);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 1;
+            for (int i = 0; i < count; i++) {
+                hash = 31 * hash + ids[i];
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package me.zort.authorization.spring;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.HttpProcessor;
+import me.zort.authorization.lib.circuit.CircuitBreakerHttpProcessor;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JWTAuthorizationFilterTest {
+
+    private static final String DETAILS = "{\"permissionsIncluded\":true,\"permissions\":[\"shop.read\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}";
+
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesValidTokens() throws Exception {
+        Authentication authentication = filter(false, "/shop");
+
+        assertInstanceOf(KetchupAuthenticationToken.class, authentication);
+        assertEquals("user", ((KetchupAuthenticationToken) authentication).getUserDetails().username());
+    }
+
+    @Test
+    void leavesRequestsUnauthenticatedOnServerErrors() throws Exception {
+        status.set(503);
+        assertNull(filter(false, "/shop"));
+        assertNull(filter(true, "/public"));
+
+        status.set(401);
+        assertNull(filter(false, "/shop"));
+    }
+
+    @Test
+    void leavesRequestsUnauthenticatedOnProcessorFailures() throws Exception {
+        List<RuntimeException> failures = List.of(
+                new UncheckedIOException(new ConnectException("Connection refused")),
+                new RuntimeException(new SocketTimeoutException("Deadline exceeded")),
+                new CircuitBreakerHttpProcessor.CircuitOpenException());
+        for (RuntimeException e : failures) {
+            failure.set(e);
+            assertNull(filter(false, "/shop"), e.toString());
+            assertNull(filter(true, "/public"), e.toString());
+        }
+    }
+
+    @Test
+    void reportsProcessorFailuresOfLazyDetailsAsAuthenticationFailure() throws Exception {
+        KetchupAuthenticationToken authentication = (KetchupAuthenticationToken) filter(true, "/public");
+        assertNotNull(authentication);
+
+        failure.set(new UncheckedIOException(new ConnectException("Connection refused")));
+        assertThrows(AuthenticationServiceException.class, authentication::getUserDetails);
+    }
+
+    @Test
+    void reportsServerErrorsOfLazyDetailsAsAuthenticationFailure() throws Exception {
+        KetchupAuthenticationToken authentication = (KetchupAuthenticationToken) filter(true, "/public");
+        assertNotNull(authentication);
+
+        status.set(503);
+        assertThrows(AuthenticationServiceException.class, authentication::getUserDetails);
+    }
+
+    private @Nullable Authentication filter(boolean lazyDetails, String path) throws Exception {
+        AuthorizationClient client = new AuthorizationClient.Builder()
+                .url("http://localhost")
+                .processor(new StatusProcessor())
+                // Node states come from the fetched details, so every request is a details request.
+                .localPermissionEvaluation(true)
+                .build();
+        JWTAuthorizationFilter filter = new JWTAuthorizationFilter(client,
+                new JWTAuthorizationFilter.PermissionMapping().path("/shop/**", "shop.read"), lazyDetails);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.addHeader("Authorization", "Bearer token");
+        AtomicReference<Authentication> authentication = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                authentication.set(SecurityContextHolder.getContext().getAuthentication());
+            }
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        SecurityContextHolder.clearContext();
+        return authentication.get();
+    }
+
+    // Answers every request with the current status and the user's details.
+    private final class StatusProcessor extends HttpProcessor {
+        @Override
+        public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            if (status.get() != 200) {
+                throw new BadStatusException(status.get());
+            }
+            return JsonParser.parseString(DETAILS).getAsJsonObject();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package me.zort.authorization.spring;
+
+import com.google.gson.JsonObject;
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.HttpProcessor;
+import me.zort.authorization.lib.model.UserDetails;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KetchupAuthenticationTokenTest {
+
+    private static final UserDetails DETAILS = new UserDetails(true, List.of("shop.read"), "u", "g", "user");
+
+    private final AuthorizationClient client = new AuthorizationClient.Builder()
+            .url("http://localhost")
+            .processor(new HttpProcessor() {
+                @Override
+                public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+                    return new JsonObject();
+                }
+            })
+            .build();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final Supplier<UserDetails> supplier = () -> {
+        fetches.incrementAndGet();
+        return DETAILS;
+    };
+
+    @Test
+    void isAuthenticatedFromCreation() {
+        KetchupAuthenticationToken token = new KetchupAuthenticationToken(client.verify("token"), supplier);
+
+        assertTrue(token.isAuthenticated());
+        assertThrows(IllegalArgumentException.class, () -> token.setAuthenticated(true));
+        token.setAuthenticated(false);
+        assertFalse(token.isAuthenticated());
+    }
+
+    @Test
+    void objectMethodsDoNotResolveLazyDetails() {
+        KetchupAuthenticationToken token = new KetchupAuthenticationToken(client.verify("token"), supplier);
+        KetchupAuthenticationToken same = new KetchupAuthenticationToken(client.verify("token"), supplier);
+        KetchupAuthenticationToken other = new KetchupAuthenticationToken(client.verify("other"), supplier);
+
+        assertEquals(token, same);
+        assertEquals(token.hashCode(), same.hashCode());
+        assertNotEquals(token, other);
+        assertFalse(token.toString().contains("token"));
+        assertTrue(token.toString().contains("[UNRESOLVED]"));
+        assertEquals(0, fetches.get());
+        assertFalse(token.isDetailsResolved());
+
+        assertEquals("user", token.getName());
+        assertEquals(1, fetches.get());
+        assertTrue(token.toString().contains("Principal=user"));
+        assertEquals(token, same);
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void differsFromDeauthenticatedToken() {
+        KetchupAuthenticationToken token = new KetchupAuthenticationToken(client.verify("token"), DETAILS);
+        KetchupAuthenticationToken revoked = new KetchupAuthenticationToken(client.verify("token"), DETAILS);
+        revoked.setAuthenticated(false);
+
+        assertNotEquals(token, revoked);
+    }
+}
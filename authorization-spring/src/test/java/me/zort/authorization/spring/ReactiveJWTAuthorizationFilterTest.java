@@ -0,0 +1,88 @@
+package me.zort.authorization.spring;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.zort.authorization.lib.AuthorizationClient;
+import me.zort.authorization.lib.HttpProcessor;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveJWTAuthorizationFilterTest {
+
+    private static final String DETAILS = "{\"permissionsIncluded\":true,\"permissions\":[\"shop.read\"],\"uuid\":\"u\",\"primaryGroup\":\"g\",\"username\":\"user\"}";
+
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> requestThread = new AtomicReference<>();
+
+    @Test
+    void authenticatesValidTokens() {
+        Authentication authentication = filter("/shop");
+
+        assertInstanceOf(KetchupAuthenticationToken.class, authentication);
+        assertEquals("user", ((KetchupAuthenticationToken) authentication).getUserDetails().username());
+    }
+
+    @Test
+    void leavesRequestsUnauthenticatedOnServerErrors() {
+        status.set(503);
+        assertNull(filter("/shop"));
+
+        status.set(401);
+        assertNull(filter("/shop"));
+    }
+
+    @Test
+    void verifiesOutsideOfCallingThread() {
+        assertNotNull(filter("/shop"));
+
+        assertNotEquals(Thread.currentThread().getName(), requestThread.get());
+        assertTrue(requestThread.get().startsWith("boundedElastic"), requestThread.get());
+    }
+
+    private @Nullable Authentication filter(String path) {
+        AuthorizationClient client = new AuthorizationClient.Builder()
+                .url("http://localhost")
+                .processor(new StatusProcessor())
+                // Node states come from the fetched details, so every request is a details request.
+                .localPermissionEvaluation(true)
+                .build();
+        ReactiveJWTAuthorizationFilter filter = new ReactiveJWTAuthorizationFilter(client,
+                new JWTAuthorizationFilter.PermissionMapping().path("/shop/**", "shop.read"));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path)
+                .header("Authorization", "Bearer token"));
+        AtomicReference<Authentication> authentication = new AtomicReference<>();
+        filter.filter(exchange, e -> ReactiveSecurityContextHolder.getContext()
+                        .map(SecurityContext::getAuthentication)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .doOnNext(value -> authentication.set(value.orElse(null)))
+                        .then())
+                .block(Duration.ofSeconds(5));
+        return authentication.get();
+    }
+
+    // Answers every request with the current status and the user's details.
+    private final class StatusProcessor extends HttpProcessor {
+        @Override
+        public @Nullable JsonObject perform(String relativeUrl, String method, Map<String, String> headers, @Nullable JsonObject body) {
+            requestThread.set(Thread.currentThread().getName());
+            if (status.get() != 200) {
+                throw new BadStatusException(status.get());
+            }
+            return JsonParser.parseString(DETAILS).getAsJsonObject();
+        }
+    }
+}
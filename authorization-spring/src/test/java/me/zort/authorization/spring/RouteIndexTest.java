@@ -0,0 +1,122 @@
+package me.zort.authorization.spring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteIndexTest {
+
+    private static final List<String> PATTERNS = List.of(
+            "/admin", "/admin/", "admin", "/admin*", "/a?min", "/admin/*", "/admin/**", "/admin/**/",
+            "/admin/**/edit", "/**/edit", "/**", "/*", "/**/", "/admin/{id}", "/admin/{id:\\d+}",
+            "/admin/*.json", "/admin/user-*", "/admin/**/*.html", "/{a}/{b}", "/*/users/{id}",
+            "/a/**/b/**/c", "/static/**/?.css", "//admin", "/admin//users");
+    private static final List<String> PATHS = List.of(
+            "", "/", "//", "admin", "/admin", "/admin/", "//admin", "//admin/", "/admin//", "///admin",
+            "/admin//users", "/admin/users", "/admin/users/", "/admin/1", "/admin/x1", "/admin/1/edit",
+            "/admin/a/b/edit", "/edit", "/admin/edit", "/admin/file.json", "/admin/user-1", "/aXmin",
+            "/adminX", "/admin/users/1", "/x/users/2", "/a/b", "/a/b/c", "/a/x/b/y/c", "/a/b/c/",
+            "/static/x/a.css", "/static/a.css", "/admin/a.html", "/admin/x/y/a.html");
+
+    // Segments combined into random patterns and paths.
+    private static final String[] PATTERN_SEGMENTS = {"a", "b", "ab", "A", ".", "", "*", "**", "?", "a*", "*b",
+            "a?", "*.b", "a**", "**b", "{x}", "{x}.b", "a{x}b", "{x}{y}", "{x:a+}", "{x:[ab]}*", "\\{x\\}"};
+    private static final String[] PATH_SEGMENTS = {"a", "b", "ab", "aa", "aab", "ba", "bb", "A", "", "a.", "a.b",
+            "ba.b", "b.a.b", "*", "{x}"};
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    @Test
+    void matchesLikeAntPathMatcher() {
+        List<String> differences = new ArrayList<>();
+        for (String pattern : PATTERNS) {
+            RouteIndex index = RouteIndex.compile(List.of(pattern));
+            for (String path : PATHS) {
+                boolean expected = matcher.match(pattern, path);
+                if (index.matches(path) != expected) {
+                    differences.add(pattern + " " + (expected ? "matches" : "doesn't match") + " '" + path + "'");
+                }
+            }
+        }
+        assertEquals(List.of(), differences);
+    }
+
+    @Test
+    void matchesRandomPatternsLikeAntPathMatcher() {
+        Random random = new Random(42);
+        List<String> differences = new ArrayList<>();
+        for (int i = 0; i < 100_000 && differences.size() < 20; i++) {
+            String pattern = randomPath(random, PATTERN_SEGMENTS, 5);
+            String path = randomPath(random, PATH_SEGMENTS, 6);
+            if (pattern.equals("**")) {
+                continue;
+            }
+            boolean expected = matcher.match(pattern, path);
+            if (RouteIndex.compile(List.of(pattern)).matches(path) != expected) {
+                differences.add(pattern + " " + (expected ? "matches" : "doesn't match") + " '" + path + "'");
+            }
+        }
+        assertEquals(List.of(), differences);
+    }
+
+    @Test
+    void matchesEveryPathWithDoubleWildcard() {
+        // Unlike AntPathMatcher, but same as AntPathRequestMatcher used by the filters before.
+        RouteIndex index = RouteIndex.compile(List.of("**"));
+
+        for (String path : PATHS) {
+            assertTrue(index.matches(path), path);
+        }
+    }
+
+    @Test
+    void mapsLikeAntPathMatcher() {
+        Map<String, String> mapping = new LinkedHashMap<>();
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            mapping.put(PATTERNS.get(i), "node" + i);
+        }
+        RouteIndex index = RouteIndex.compile(mapping);
+        for (String path : PATHS) {
+            List<String> expected = new ArrayList<>();
+            mapping.forEach((pattern, node) -> {
+                if (matcher.match(pattern, path)) {
+                    expected.add(node);
+                }
+            });
+            assertEquals(expected, new ArrayList<>(index.match(path)), path);
+        }
+    }
+
+    @Test
+    void returnsSameSetForRepeatedCombinations() {
+        RouteIndex index = RouteIndex.compile(Map.of("/admin/**", "admin", "/**", "all"));
+
+        Set<String> first = index.match("/admin/users");
+        assertSame(first, index.match("/admin/groups"));
+        assertEquals(Set.of("admin", "all"), first);
+        assertEquals(Set.of("all"), index.match("/shop"));
+    }
+
+    private static String randomPath(Random random, String[] segments, int maxSegments) {
+        StringBuilder path = new StringBuilder();
+        if (random.nextInt(5) > 0) {
+            path.append('/');
+        }
+        int count = random.nextInt(maxSegments);
+        for (int i = 0; i < count; i++) {
+            path.append(segments[random.nextInt(segments.length)]);
+            if (i < count - 1 || random.nextInt(4) == 0) {
+                path.append('/');
+            }
+        }
+        return path.toString();
+    }
+}